@@ -99,6 +99,24 @@ public class ConvertResult {
         }
     }
 
+    /**
+     * Get the result of a conversion from its failure count.
+     * @param failureCount The number of rows which failed to be converted.
+     * @param totalCount The number of rows.
+     * @return SUCCESS without failure, FAILED if all rows failed, otherwise PARTIAL_SUCCESS.
+     */
+    public static Result resultOf(long failureCount, long totalCount) {
+        if (failureCount == 0){
+            return Result.SUCCESS;
+        }
+        else if (failureCount > 0 && failureCount < totalCount){
+            return Result.PARTIAL_SUCCESS;
+        }
+        else {
+            return Result.FAILED;
+        }
+    }
+
     private double getRuntimeErrorPercentage(){
         double percentage = 0;
         long currentCount = this.failureCount + this.successCount;
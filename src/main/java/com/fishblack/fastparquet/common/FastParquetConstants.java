@@ -13,4 +13,19 @@ public class FastParquetConstants {
 
     public static final String PARQUET_VERSION_VALUE = "1.0";
 
+    /**
+     * Footer key of the Avro schema, parquet-avro readers use it to restore the Avro field types.
+     */
+    public static final String AVRO_SCHEMA_METADATA_KEY = "parquet.avro.schema";
+
+    public static final String AVRO_WRITER_MODEL_NAME = "avro";
+
+    /**
+     * Footer keys of a part file written by RollingParquetDataWriter, the index of the part and the number of rows
+     * in the parts before it. The row numbers of the audit errors in a part are relative to the part.
+     */
+    public static final String PART_INDEX_KEY = "PART_INDEX";
+
+    public static final String PART_ROW_OFFSET_KEY = "PART_ROW_OFFSET";
+
 }
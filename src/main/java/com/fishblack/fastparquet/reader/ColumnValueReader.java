@@ -0,0 +1,345 @@
+package com.fishblack.fastparquet.reader;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.HadoopReadOptions;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.ColumnReadStore;
+import org.apache.parquet.column.ColumnReader;
+import org.apache.parquet.column.impl.ColumnReadStoreImpl;
+import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.Converter;
+import org.apache.parquet.io.api.GroupConverter;
+import org.apache.parquet.io.api.PrimitiveConverter;
+import org.apache.parquet.schema.DecimalMetadata;
+import org.apache.parquet.schema.GroupType;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Type;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes the values of one column of the current row group, it is shared by the column readers which advance the
+ * row groups. It only supports the data types and parquet schema written by fastparquet in parquet conversion.
+ */
+class ColumnValueReader {
+    private final String parquetPath;
+    private final String columnName;
+    private final Type column;
+    private final ColumnDescriptor columnDescriptor;
+    private final String columnTypeName;
+    private final int maxDefinitionLevel;
+    private ColumnReader columnReader;
+
+    /**
+     * @throws IllegalArgumentException If the column is not in the schema.
+     */
+    ColumnValueReader(String parquetPath, MessageType schema, String columnName) {
+        if (!schema.containsField(columnName)) {
+            String message = String.format("Column %s is not found in parquet file %s", columnName, parquetPath);
+            throw new IllegalArgumentException(message);
+        }
+        this.parquetPath = parquetPath;
+        this.columnName = columnName;
+        this.columnDescriptor = schema.getColumnDescription(new String[] { columnName });
+        this.maxDefinitionLevel = columnDescriptor.getMaxDefinitionLevel();
+        this.column = schema.getType(columnName);
+        if (column.getOriginalType() != null) {
+            columnTypeName = column.getOriginalType().name();
+        } else {
+            columnTypeName = column.asPrimitiveType().getPrimitiveTypeName().name();
+        }
+    }
+
+    /**
+     * Open the file, the row groups whose statistics or dictionaries show that no row matches the filter are skipped
+     * by the file reader, the rows of the other row groups are not filtered.
+     * @param filter The filter, or null to read all row groups.
+     */
+    static ParquetFileReader open(String parquetPath, FilterPredicate filter) throws IOException {
+        Configuration conf = new Configuration();
+        HadoopReadOptions.Builder options = HadoopReadOptions.builder(conf);
+        if (filter != null) {
+            options.withRecordFilter(FilterCompat.get(filter));
+        }
+        return ParquetFileReader.open(HadoopInputFile.fromPath(new Path(parquetPath), conf), options.build());
+    }
+
+    /**
+     * Returns the schema of only the columns, in the order of the file schema, to request only their column chunks.
+     */
+    static MessageType projection(MessageType schema, List<ColumnValueReader> columns) {
+        List<Type> fields = new ArrayList<>();
+        for (Type field : schema.getFields()) {
+            for (ColumnValueReader column : columns) {
+                if (column.getColumn() == field) {
+                    fields.add(field);
+                    break;
+                }
+            }
+        }
+        return new MessageType(schema.getName(), fields);
+    }
+
+    /**
+     * Returns the store of the column readers of a row group read with the projection.
+     */
+    static ColumnReadStore columnReadStore(PageReadStore rowGroup, MessageType projection, String createdBy) {
+        return new ColumnReadStoreImpl(rowGroup, new DummyGroupConverter(projection), projection, createdBy);
+    }
+
+    String getColumnName() {
+        return columnName;
+    }
+
+    Type getColumn() {
+        return column;
+    }
+
+    ColumnDescriptor getColumnDescriptor() {
+        return columnDescriptor;
+    }
+
+    /**
+     * Start reading the column chunk of a row group.
+     * @return the number of values of the column chunk
+     */
+    long startRowGroup(ColumnReadStore columnReadStore) {
+        columnReader = columnReadStore.getColumnReader(columnDescriptor);
+        return columnReader.getTotalValueCount();
+    }
+
+    /**
+     * Returns the current value and moves to the next, see ParquetColumnReader#next() for the returned types.
+     */
+    Object next() throws IOException {
+        Object value;
+
+        int definitionLevel = columnReader.getCurrentDefinitionLevel();
+
+        if (definitionLevel == 0) {
+            // it is null
+            value = null;
+        } else {
+            switch (columnTypeName) {
+                case "INT32":
+                    value = columnReader.getInteger();
+                    break;
+                case "DOUBLE":
+                    value = columnReader.getDouble();
+                    break;
+                case "DATE":
+                    Integer days = columnReader.getInteger();
+                    value = LocalDate.ofEpochDay(days);
+                    break;
+                case "TIMESTAMP_MILLIS":
+                    Long timestampVal = columnReader.getLong();
+                    value = LocalDateTime.ofEpochSecond(timestampVal / 1000, 0, ZoneOffset.ofHours(0));
+                    break;
+                case "UTF8":
+                    Binary bi = columnReader.getBinary();
+                    value = new String(bi.getBytes(), "utf-8");
+                    break;
+                case "DECIMAL":
+                    PrimitiveType ptype = column.asPrimitiveType();
+                    DecimalMetadata meta = ptype.getDecimalMetadata();
+                    Binary d = columnReader.getBinary();
+                    value = new BigDecimal(new BigInteger(d.getBytes()), meta.getScale());
+                    break;
+                default:
+                    // it only supports the data types that OAC uses, throw
+                    // exception for other data types
+                    throw unsupportedType();
+            }
+        }
+
+        // when the column reader initialized, the consume method is already
+        // called automatically and points to the 1st record,
+        // this is why we call consume method here after the data is read by
+        // above code, it moves the pointer to next record
+        columnReader.consume();
+
+        return value;
+    }
+
+    /**
+     * Skip values of the current row group, only the non-null values are read from the page.
+     */
+    void skip(long count) {
+        for (long i = 0; i < count; i++) {
+            if (columnReader.getCurrentDefinitionLevel() == maxDefinitionLevel) {
+                columnReader.skip();
+            }
+            columnReader.consume();
+        }
+    }
+
+    /**
+     * Clear the vector for a batch of at most maxRows values and allocate the arrays of the column type.
+     */
+    void startBatch(ColumnVector vector, int maxRows) throws IOException {
+        vector.reset(maxRows);
+        switch (columnTypeName) {
+            case "INT32":
+            case "DATE":
+                vector.intValues(maxRows);
+                break;
+            case "TIMESTAMP_MILLIS":
+                vector.longValues(maxRows);
+                break;
+            case "DOUBLE":
+                vector.doubleValues(maxRows);
+                break;
+            case "DECIMAL":
+                vector.setScale(column.asPrimitiveType().getDecimalMetadata().getScale());
+                vector.offsets(maxRows)[0] = 0;
+                break;
+            case "UTF8":
+                vector.offsets(maxRows)[0] = 0;
+                break;
+            default:
+                throw unsupportedType();
+        }
+    }
+
+    /**
+     * Read a run of values of the current row group into the vector from index start.
+     */
+    void readBatch(ColumnVector vector, int start, int count) {
+        switch (columnTypeName) {
+            case "INT32":
+            case "DATE":
+                readInts(vector, start, count);
+                break;
+            case "TIMESTAMP_MILLIS":
+                readLongs(vector, start, count);
+                break;
+            case "DOUBLE":
+                readDoubles(vector, start, count);
+                break;
+            default:
+                readBinaries(vector, start, count);
+                break;
+        }
+    }
+
+    // the loops below read a run of values of the current row group, a value is null if its definition level is
+    // below the maximum definition level of the column
+
+    private void readInts(ColumnVector vector, int start, int count) {
+        int[] values = vector.getIntValues();
+        for (int i = start, end = start + count; i < end; i++) {
+            if (columnReader.getCurrentDefinitionLevel() < maxDefinitionLevel) {
+                values[i] = 0;
+                vector.setNull(i);
+            } else {
+                values[i] = columnReader.getInteger();
+            }
+            columnReader.consume();
+        }
+    }
+
+    private void readLongs(ColumnVector vector, int start, int count) {
+        long[] values = vector.getLongValues();
+        for (int i = start, end = start + count; i < end; i++) {
+            if (columnReader.getCurrentDefinitionLevel() < maxDefinitionLevel) {
+                values[i] = 0;
+                vector.setNull(i);
+            } else {
+                values[i] = columnReader.getLong();
+            }
+            columnReader.consume();
+        }
+    }
+
+    private void readDoubles(ColumnVector vector, int start, int count) {
+        double[] values = vector.getDoubleValues();
+        for (int i = start, end = start + count; i < end; i++) {
+            if (columnReader.getCurrentDefinitionLevel() < maxDefinitionLevel) {
+                values[i] = 0;
+                vector.setNull(i);
+            } else {
+                values[i] = columnReader.getDouble();
+            }
+            columnReader.consume();
+        }
+    }
+
+    private void readBinaries(ColumnVector vector, int start, int count) {
+        int[] offsets = vector.getOffsets();
+        int offset = offsets[start];
+        for (int i = start, end = start + count; i < end; i++) {
+            if (columnReader.getCurrentDefinitionLevel() < maxDefinitionLevel) {
+                vector.setNull(i);
+            } else {
+                // the byte buffer wraps the bytes of the page, they are copied once into the vector
+                offset = vector.putBytes(offset, columnReader.getBinary().toByteBuffer());
+            }
+            offsets[i + 1] = offset;
+            columnReader.consume();
+        }
+    }
+
+    private IOException unsupportedType() {
+        String message = String.format("Unsupported data type %s is found in parquet file %s", columnTypeName,
+                parquetPath);
+        return new IOException(message);
+    }
+
+    /**
+     * This class is required in order to use the ColumnReadStoreImpl API, but
+     * internally we don't reply it for data conversion. The only thing it does
+     * is that it returns a DummyPrimitiveConverter for each field.
+     */
+    private static class DummyGroupConverter extends GroupConverter {
+        private final Converter converters[];
+
+        public DummyGroupConverter(GroupType schema) {
+            this.converters = new Converter[schema.getFieldCount()];
+
+            int i = 0;
+            for (Type field : schema.getFields()) {
+                converters[i++] = createConverter(field);
+            }
+        }
+
+        private Converter createConverter(Type field) {
+            return new DummyPrimitiveConverter();
+        }
+
+        @Override
+        public Converter getConverter(int fieldIndex) {
+            return converters[fieldIndex];
+        }
+
+        @Override
+        public void start() {
+
+        }
+
+        @Override
+        public void end() {
+
+        }
+    }
+
+    /**
+     * A dummy implementation of PrimitiveConverter used by DummyGroupConverter.
+     */
+    private static class DummyPrimitiveConverter extends PrimitiveConverter {
+
+    }
+}
@@ -0,0 +1,205 @@
+package com.fishblack.fastparquet.reader;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A batch of values of one column filled by ParquetColumnReader.readBatch(), the arrays are reused by the next batch
+ * and only grow, so a scan of a whole column does not allocate per value. The values are in the array of the column
+ * type, see the table below, the array element of a null value is 0, or an empty range of bytes.
+ * <table border="1">
+ * <tr><td> OAC Type </td> <td> Values</td></tr>
+ * <tr><td> integer </td> <td> getIntValues()</td></tr>
+ * <tr><td> date </td> <td> getIntValues(), the days since 1970-01-01</td></tr>
+ * <tr><td> timestamp, time </td> <td> getLongValues(), the milliseconds since 1970-01-01T00:00:00Z</td></tr>
+ * <tr><td> double </td> <td> getDoubleValues()</td></tr>
+ * <tr><td> varchar </td> <td> getBytes() from getOffsets()[i] to getOffsets()[i + 1], UTF-8 encoded</td></tr>
+ * <tr><td> decimal </td> <td> getBytes() from getOffsets()[i] to getOffsets()[i + 1], the big-endian two's complement unscaled value at getScale()</td></tr>
+ * </table>
+ * A vector is not thread safe.
+ */
+public class ColumnVector {
+
+    public static final int DEFAULT_BYTE_CAPACITY = 64 * 1024;
+
+    private int size;
+    //bit i % 64 of word i / 64 is set if value i is null
+    private long[] nulls = new long[0];
+    private boolean hasNulls;
+    private int[] intValues;
+    private long[] longValues;
+    private double[] doubleValues;
+    private byte[] bytes;
+    //offsets of the values in bytes, the value i ends where value i + 1 starts
+    private int[] offsets;
+    private int scale;
+
+    public ColumnVector() {
+        this(DEFAULT_BYTE_CAPACITY);
+    }
+
+    /**
+     * @param initialByteCapacity The initial size of the byte array of varchar and decimal values, it grows as needed.
+     */
+    public ColumnVector(int initialByteCapacity) {
+        this.bytes = new byte[Math.max(initialByteCapacity, 16)];
+    }
+
+    /**
+     * Returns the number of values of the batch.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if a value of the batch is null.
+     */
+    public boolean hasNulls() {
+        return hasNulls;
+    }
+
+    public boolean isNull(int index) {
+        return (nulls[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Returns the null bitmap, bit index % 64 of word index / 64 is set if the value is null.
+     */
+    public long[] getNulls() {
+        return nulls;
+    }
+
+    public int[] getIntValues() {
+        return intValues;
+    }
+
+    public long[] getLongValues() {
+        return longValues;
+    }
+
+    public double[] getDoubleValues() {
+        return doubleValues;
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the offsets of the varchar or decimal values in getBytes(), it has size() + 1 valid elements.
+     */
+    public int[] getOffsets() {
+        return offsets;
+    }
+
+    /**
+     * Returns the scale of decimal values.
+     */
+    public int getScale() {
+        return scale;
+    }
+
+    public int getInt(int index) {
+        return intValues[index];
+    }
+
+    public long getLong(int index) {
+        return longValues[index];
+    }
+
+    public double getDouble(int index) {
+        return doubleValues[index];
+    }
+
+    /**
+     * Returns a varchar value as a String, or null, it allocates the String.
+     */
+    public String getString(int index) {
+        if (isNull(index)) {
+            return null;
+        }
+        return new String(bytes, offsets[index], offsets[index + 1] - offsets[index], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns a decimal value as a BigDecimal, or null, it allocates the BigDecimal.
+     */
+    public BigDecimal getDecimal(int index) {
+        if (isNull(index)) {
+            return null;
+        }
+        byte[] value = Arrays.copyOfRange(bytes, offsets[index], offsets[index + 1]);
+        return new BigDecimal(new BigInteger(value), scale);
+    }
+
+    /**
+     * Clear the vector for a batch of at most maxRows values, the arrays grow to hold them.
+     */
+    void reset(int maxRows) {
+        size = 0;
+        hasNulls = false;
+        int words = (maxRows + 63) >>> 6;
+        if (nulls.length < words) {
+            nulls = new long[words];
+        } else {
+            Arrays.fill(nulls, 0, words, 0L);
+        }
+    }
+
+    int[] intValues(int maxRows) {
+        if (intValues == null || intValues.length < maxRows) {
+            intValues = new int[maxRows];
+        }
+        return intValues;
+    }
+
+    long[] longValues(int maxRows) {
+        if (longValues == null || longValues.length < maxRows) {
+            longValues = new long[maxRows];
+        }
+        return longValues;
+    }
+
+    double[] doubleValues(int maxRows) {
+        if (doubleValues == null || doubleValues.length < maxRows) {
+            doubleValues = new double[maxRows];
+        }
+        return doubleValues;
+    }
+
+    int[] offsets(int maxRows) {
+        if (offsets == null || offsets.length < maxRows + 1) {
+            offsets = new int[maxRows + 1];
+        }
+        return offsets;
+    }
+
+    void setScale(int scale) {
+        this.scale = scale;
+    }
+
+    void setNull(int index) {
+        nulls[index >>> 6] |= 1L << index;
+        hasNulls = true;
+    }
+
+    void setSize(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Append the bytes of a varchar or decimal value at an offset of the byte array, returns the offset after it.
+     */
+    int putBytes(int offset, ByteBuffer value) {
+        int length = value.remaining();
+        if (bytes.length - offset < length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, offset + length));
+        }
+        value.get(bytes, offset, length);
+        return offset + length;
+    }
+}
@@ -0,0 +1,491 @@
+package com.fishblack.fastparquet.reader;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.bytes.BytesInput;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.ColumnReadStore;
+import org.apache.parquet.column.page.DataPage;
+import org.apache.parquet.column.page.DataPageV1;
+import org.apache.parquet.column.page.DictionaryPage;
+import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.column.page.PageReader;
+import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.filter2.predicate.Operators;
+import org.apache.parquet.filter2.predicate.UserDefinedPredicate;
+import org.apache.parquet.filter2.statisticslevel.StatisticsFilter;
+import org.apache.parquet.format.DataPageHeader;
+import org.apache.parquet.format.PageHeader;
+import org.apache.parquet.format.Util;
+import org.apache.parquet.format.converter.ParquetMetadataConverter;
+import org.apache.parquet.hadoop.CodecFactory;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnPath;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.apache.parquet.io.ParquetDecodingException;
+import org.apache.parquet.io.SeekableInputStream;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reads the rows of the pages which may match a filter through the page index of a file. The rows of a row group are
+ * selected as ranges of rows from the statistics of the pages of the filtered columns, then only the pages of the
+ * read columns which overlap those ranges are read, each with one seek, and the column value readers skip the
+ * values of a page before the next selected row. The rows of the ranges are not filtered.
+ */
+class IndexedPageScan implements Closeable {
+    private static final Logger logger = Logger.getLogger(IndexedPageScan.class.getName());
+    private final String parquetPath;
+    private final MessageType schema;
+    private final MessageType projection;
+    private final String createdBy;
+    private final ColumnValueReader[] columns;
+    private final List<BlockMetaData> blocks = new ArrayList<>();
+    private final List<PageIndex.RowGroup> rowGroups = new ArrayList<>();
+    // the selected ranges of rows of each row group, a range is {start, end} with the end excluded
+    private final List<List<long[]>> blockRanges = new ArrayList<>();
+    private final ParquetMetadataConverter converter = new ParquetMetadataConverter();
+    private final CodecFactory codecFactory;
+    private SeekableInputStream in;
+    private long rowCount;
+    private int blockIndex = -1;
+    private int rangeIndex;
+    private long row;
+    private ColumnCursor[] cursors;
+
+    private IndexedPageScan(String parquetPath, MessageType schema, MessageType projection, String createdBy,
+            ColumnValueReader[] columns, Configuration conf) {
+        this.parquetPath = parquetPath;
+        this.schema = schema;
+        this.projection = projection;
+        this.createdBy = createdBy;
+        this.columns = columns;
+        this.codecFactory = new CodecFactory(conf, 0);
+    }
+
+    /**
+     * Returns the scan of the row groups, or null if the file has no page index, or the index does not have a row
+     * group.
+     * @param blocks The row groups to read, after the row groups which cannot match the filter are skipped.
+     */
+    static IndexedPageScan open(String parquetPath, List<BlockMetaData> blocks, MessageType schema,
+            MessageType projection, String createdBy, ColumnValueReader[] columns, FilterPredicate predicate) throws IOException {
+        PageIndex index = PageIndex.read(parquetPath);
+        if (index == null) {
+            return null;
+        }
+        Configuration conf = new Configuration();
+        IndexedPageScan scan = new IndexedPageScan(parquetPath, schema, projection, createdBy, columns, conf);
+        long rows = 0;
+        long totalRows = 0;
+        for (BlockMetaData block : blocks) {
+            PageIndex.RowGroup rowGroup = index.getRowGroup(block);
+            if (rowGroup == null) {
+                logger.log(Level.WARNING, "Page index of parquet file {0} does not have row group at {1}, it is ignored",
+                        new Object[] { parquetPath, block.getStartingPos() });
+                return null;
+            }
+            List<long[]> ranges = predicate.accept(scan.new RangeVisitor(block, rowGroup));
+            for (long[] range : ranges) {
+                rows += range[1] - range[0];
+            }
+            totalRows += block.getRowCount();
+            scan.blocks.add(block);
+            scan.rowGroups.add(rowGroup);
+            scan.blockRanges.add(ranges);
+        }
+        logger.log(Level.FINE, "Page index selects {0} of {1} rows of the row groups of parquet file {2}",
+                new Object[] { rows, totalRows, parquetPath });
+        scan.rowCount = rows;
+        scan.in = HadoopInputFile.fromPath(new Path(parquetPath), conf).newStream();
+        return scan;
+    }
+
+    /**
+     * Returns the number of the selected rows of all row groups.
+     */
+    long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Position the column value readers at the next selected row and return the number of consecutive selected rows
+     * from it, at most maxRows. The caller reads that many values from each column before the next call.
+     * @throws EOFException If there is no selected row left.
+     */
+    int nextRun(int maxRows) throws IOException {
+        while (blockIndex < 0 || rangeIndex >= blockRanges.get(blockIndex).size()) {
+            if (blockIndex + 1 >= blocks.size()) {
+                throw new EOFException("End of file reached for parquet file " + parquetPath);
+            }
+            startRowGroup(blockIndex + 1);
+        }
+        long[] range = blockRanges.get(blockIndex).get(rangeIndex);
+        if (row < range[0]) {
+            row = range[0];
+        }
+        for (ColumnCursor cursor : cursors) {
+            cursor.moveTo(row);
+        }
+        int n = (int) Math.min(maxRows, range[1] - row);
+        row += n;
+        for (ColumnCursor cursor : cursors) {
+            cursor.row += n;
+        }
+        if (row >= range[1]) {
+            rangeIndex++;
+        }
+        return n;
+    }
+
+    private void startRowGroup(int index) throws IOException {
+        blockIndex = index;
+        rangeIndex = 0;
+        row = 0;
+        BlockMetaData block = blocks.get(index);
+        PageIndex.RowGroup rowGroup = rowGroups.get(index);
+        List<long[]> ranges = blockRanges.get(index);
+        logger.log(Level.FINE, "Read {0} row ranges of row group at {1} of parquet file {2}",
+                new Object[] { ranges.size(), block.getStartingPos(), parquetPath });
+        if (ranges.isEmpty()) {
+            return;
+        }
+        cursors = new ColumnCursor[columns.length];
+        Map<ColumnDescriptor, PageReader> pageReaders = new HashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            ColumnDescriptor descriptor = columns[i].getColumnDescriptor();
+            int chunkIndex = indexOf(block, ColumnPath.get(descriptor.getPath()));
+            List<PageIndex.Page> pages = selectPages(rowGroup.columns[chunkIndex].pages, ranges);
+            pageReaders.put(descriptor, readPages(block.getColumns().get(chunkIndex), rowGroup.columns[chunkIndex], pages));
+            cursors[i] = new ColumnCursor(columns[i], pages);
+        }
+        PageReadStore pageReadStore = new PageReadStore() {
+            @Override
+            public PageReader getPageReader(ColumnDescriptor descriptor) {
+                return pageReaders.get(descriptor);
+            }
+
+            @Override
+            public long getRowCount() {
+                return rowGroup.rowCount;
+            }
+        };
+        ColumnReadStore columnReadStore = ColumnValueReader.columnReadStore(pageReadStore, projection, createdBy);
+        for (ColumnValueReader column : columns) {
+            column.startRowGroup(columnReadStore);
+        }
+    }
+
+    /**
+     * Returns the pages which overlap the ranges, both are ordered by row.
+     */
+    private static List<PageIndex.Page> selectPages(PageIndex.Page[] pages, List<long[]> ranges) {
+        List<PageIndex.Page> selected = new ArrayList<>();
+        int r = 0;
+        for (PageIndex.Page page : pages) {
+            long end = page.firstRow + page.valueCount;
+            while (r < ranges.size() && ranges.get(r)[1] <= page.firstRow) {
+                r++;
+            }
+            if (r < ranges.size() && ranges.get(r)[0] < end) {
+                selected.add(page);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Read the dictionary page and the selected data pages of a column chunk, the pages are decompressed when the
+     * column reader reads them.
+     */
+    private PageReader readPages(ColumnChunkMetaData chunk, PageIndex.Column column, List<PageIndex.Page> pages) throws IOException {
+        DictionaryPage dictionaryPage = null;
+        if (column.dictionaryOffset >= 0) {
+            in.seek(column.dictionaryOffset);
+            PageHeader header = Util.readPageHeader(in);
+            dictionaryPage = new DictionaryPage(readBytes(header), header.getUncompressed_page_size(),
+                    header.getDictionary_page_header().getNum_values(),
+                    converter.getEncoding(header.getDictionary_page_header().getEncoding()));
+        }
+        PrimitiveType type = schema.getType(chunk.getPath().toArray()).asPrimitiveType();
+        Deque<DataPageV1> dataPages = new ArrayDeque<>();
+        long valueCount = 0;
+        for (PageIndex.Page page : pages) {
+            in.seek(page.offset);
+            PageHeader header = Util.readPageHeader(in);
+            DataPageHeader dataHeader = header.getData_page_header();
+            dataPages.add(new DataPageV1(readBytes(header), dataHeader.getNum_values(), header.getUncompressed_page_size(),
+                    Statistics.getBuilderForReading(type).build(),
+                    converter.getEncoding(dataHeader.getRepetition_level_encoding()),
+                    converter.getEncoding(dataHeader.getDefinition_level_encoding()),
+                    converter.getEncoding(dataHeader.getEncoding())));
+            valueCount += dataHeader.getNum_values();
+        }
+        return new SelectedPageReader(codecFactory.getDecompressor(chunk.getCodec()), dictionaryPage, dataPages, valueCount);
+    }
+
+    private BytesInput readBytes(PageHeader header) throws IOException {
+        byte[] bytes = new byte[header.getCompressed_page_size()];
+        in.readFully(bytes);
+        return BytesInput.from(bytes);
+    }
+
+    private static int indexOf(BlockMetaData block, ColumnPath path) {
+        List<ColumnChunkMetaData> chunks = block.getColumns();
+        for (int i = 0; i < chunks.size(); i++) {
+            if (chunks.get(i).getPath().equals(path)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Column " + path.toDotString() + " is not found.");
+    }
+
+    @Override
+    public void close() throws IOException {
+        codecFactory.release();
+        if (in != null) {
+            in.close();
+        }
+    }
+
+    /**
+     * The position of a column value reader in the selected pages of its column chunk.
+     */
+    private static final class ColumnCursor {
+        private final ColumnValueReader column;
+        private final List<PageIndex.Page> pages;
+        private int page;
+        // the row of the next value of the column value reader
+        private long row;
+
+        ColumnCursor(ColumnValueReader column, List<PageIndex.Page> pages) {
+            this.column = column;
+            this.pages = pages;
+            this.row = pages.get(0).firstRow;
+        }
+
+        /**
+         * Skip the values before the row, the row is in a selected page at or after the current one.
+         */
+        void moveTo(long target) {
+            while (true) {
+                PageIndex.Page current = pages.get(page);
+                long end = current.firstRow + current.valueCount;
+                if (row >= end && page + 1 < pages.size()) {
+                    // the next page follows or starts after a gap of pages which were not read
+                    page++;
+                    row = Math.max(row, pages.get(page).firstRow);
+                    continue;
+                }
+                if (row >= target) {
+                    return;
+                }
+                long n = Math.min(target, end) - row;
+                column.skip(n);
+                row += n;
+            }
+        }
+    }
+
+    /**
+     * Returns the pages of a column chunk in order, it is like the page reader of ParquetFileReader for a part of the
+     * pages.
+     */
+    private final class SelectedPageReader implements PageReader {
+        private final CodecFactory.BytesDecompressor decompressor;
+        private final DictionaryPage dictionaryPage;
+        private final Deque<DataPageV1> pages;
+        private final long valueCount;
+
+        SelectedPageReader(CodecFactory.BytesDecompressor decompressor, DictionaryPage dictionaryPage, Deque<DataPageV1> pages, long valueCount) {
+            this.decompressor = decompressor;
+            this.dictionaryPage = dictionaryPage;
+            this.pages = pages;
+            this.valueCount = valueCount;
+        }
+
+        @Override
+        public DictionaryPage readDictionaryPage() {
+            if (dictionaryPage == null) {
+                return null;
+            }
+            try {
+                return new DictionaryPage(decompressor.decompress(dictionaryPage.getBytes(), dictionaryPage.getUncompressedSize()),
+                        dictionaryPage.getDictionarySize(), dictionaryPage.getEncoding());
+            } catch (IOException e) {
+                throw new ParquetDecodingException("Could not decompress dictionary page of parquet file " + parquetPath, e);
+            }
+        }
+
+        @Override
+        public long getTotalValueCount() {
+            return valueCount;
+        }
+
+        @Override
+        public DataPage readPage() {
+            DataPageV1 page = pages.poll();
+            if (page == null) {
+                return null;
+            }
+            try {
+                return new DataPageV1(decompressor.decompress(page.getBytes(), page.getUncompressedSize()), page.getValueCount(),
+                        page.getUncompressedSize(), page.getStatistics(), page.getRlEncoding(), page.getDlEncoding(),
+                        page.getValueEncoding());
+            } catch (IOException e) {
+                throw new ParquetDecodingException("Could not decompress data page of parquet file " + parquetPath, e);
+            }
+        }
+    }
+
+    /**
+     * Returns the ranges of rows of a row group which may match a predicate, from the statistics of the pages of its
+     * columns. A predicate which the statistics cannot evaluate selects all rows.
+     */
+    private final class RangeVisitor implements FilterPredicate.Visitor<List<long[]>> {
+        private final BlockMetaData block;
+        private final PageIndex.RowGroup rowGroup;
+
+        RangeVisitor(BlockMetaData block, PageIndex.RowGroup rowGroup) {
+            this.block = block;
+            this.rowGroup = rowGroup;
+        }
+
+        private List<long[]> leaf(FilterPredicate predicate, ColumnPath path) {
+            int chunkIndex = indexOf(block, path);
+            ColumnChunkMetaData chunk = block.getColumns().get(chunkIndex);
+            PrimitiveType type = schema.getType(path.toArray()).asPrimitiveType();
+            List<long[]> ranges = new ArrayList<>();
+            for (PageIndex.Page page : rowGroup.columns[chunkIndex].pages) {
+                // the statistics filter of row groups evaluates the predicate on a page as on a column chunk
+                ColumnChunkMetaData pageMetaData = ColumnChunkMetaData.get(path, type, chunk.getCodec(), null,
+                        chunk.getEncodings(), page.getStatistics(type), page.offset, 0, page.valueCount, 0, 0);
+                if (!StatisticsFilter.canDrop(predicate, Collections.singletonList(pageMetaData))) {
+                    add(ranges, page.firstRow, page.firstRow + page.valueCount);
+                }
+            }
+            return ranges;
+        }
+
+        private List<long[]> allRows() {
+            List<long[]> ranges = new ArrayList<>();
+            add(ranges, 0, rowGroup.rowCount);
+            return ranges;
+        }
+
+        @Override
+        public <T extends Comparable<T>> List<long[]> visit(Operators.Eq<T> eq) {
+            return leaf(eq, eq.getColumn().getColumnPath());
+        }
+
+        @Override
+        public <T extends Comparable<T>> List<long[]> visit(Operators.NotEq<T> notEq) {
+            return leaf(notEq, notEq.getColumn().getColumnPath());
+        }
+
+        @Override
+        public <T extends Comparable<T>> List<long[]> visit(Operators.Lt<T> lt) {
+            return leaf(lt, lt.getColumn().getColumnPath());
+        }
+
+        @Override
+        public <T extends Comparable<T>> List<long[]> visit(Operators.LtEq<T> ltEq) {
+            return leaf(ltEq, ltEq.getColumn().getColumnPath());
+        }
+
+        @Override
+        public <T extends Comparable<T>> List<long[]> visit(Operators.Gt<T> gt) {
+            return leaf(gt, gt.getColumn().getColumnPath());
+        }
+
+        @Override
+        public <T extends Comparable<T>> List<long[]> visit(Operators.GtEq<T> gtEq) {
+            return leaf(gtEq, gtEq.getColumn().getColumnPath());
+        }
+
+        @Override
+        public List<long[]> visit(Operators.And and) {
+            return intersect(and.getLeft().accept(this), and.getRight().accept(this));
+        }
+
+        @Override
+        public List<long[]> visit(Operators.Or or) {
+            return union(or.getLeft().accept(this), or.getRight().accept(this));
+        }
+
+        @Override
+        public List<long[]> visit(Operators.Not not) {
+            return allRows();
+        }
+
+        @Override
+        public <T extends Comparable<T>, U extends UserDefinedPredicate<T>> List<long[]> visit(Operators.UserDefined<T, U> udp) {
+            return allRows();
+        }
+
+        @Override
+        public <T extends Comparable<T>, U extends UserDefinedPredicate<T>> List<long[]> visit(Operators.LogicalNotUserDefined<T, U> udp) {
+            return allRows();
+        }
+    }
+
+    /**
+     * Append a range to ordered ranges, it is merged with the last range if they are adjacent or overlap.
+     */
+    private static void add(List<long[]> ranges, long start, long end) {
+        if (start >= end) {
+            return;
+        }
+        if (!ranges.isEmpty()) {
+            long[] last = ranges.get(ranges.size() - 1);
+            if (start <= last[1]) {
+                last[1] = Math.max(last[1], end);
+                return;
+            }
+        }
+        ranges.add(new long[] { start, end });
+    }
+
+    private static List<long[]> intersect(List<long[]> left, List<long[]> right) {
+        List<long[]> ranges = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < left.size() && j < right.size()) {
+            long[] a = left.get(i);
+            long[] b = right.get(j);
+            add(ranges, Math.max(a[0], b[0]), Math.min(a[1], b[1]));
+            if (a[1] < b[1]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return ranges;
+    }
+
+    private static List<long[]> union(List<long[]> left, List<long[]> right) {
+        List<long[]> ranges = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < left.size() || j < right.size()) {
+            long[] next = j >= right.size() || (i < left.size() && left.get(i)[0] <= right.get(j)[0]) ? left.get(i++) : right.get(j++);
+            add(ranges, next[0], next[1]);
+        }
+        return ranges;
+    }
+}
@@ -0,0 +1,343 @@
+package com.fishblack.fastparquet.reader;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.format.DataPageHeader;
+import org.apache.parquet.format.PageHeader;
+import org.apache.parquet.format.PageType;
+import org.apache.parquet.format.Util;
+import org.apache.parquet.format.converter.ParquetMetadataConverter;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.apache.parquet.io.SeekableInputStream;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * The page index of a parquet file, it is a sidecar file next to the parquet file with the byte offset, first row,
+ * value count, null count and min/max statistics of each data page of each column chunk, and the offset of the
+ * dictionary page. parquet-hadoop 1.10.1 only writes the statistics of column chunks in the footer, the index lets a
+ * filtered reader seek to the pages which may have matching rows, see ParquetMultiColumnReaderImpl.
+ * The index is built from the page headers of the written file, it only supports the flat schema written by
+ * fastparquet, where a value is a row.
+ */
+public final class PageIndex {
+    private static final Logger logger = Logger.getLogger(PageIndex.class.getName());
+
+    public static final String FILE_SUFFIX = ".pageindex";
+
+    private static final int MAGIC = 0x46504958;
+    private static final int VERSION = 2;
+    private static final int FOOTER_TAIL_LENGTH = 8;
+
+    private final long fileLength;
+    // the CRC32 of the footer, with the file length it identifies the indexed content of the parquet file
+    private final long footerChecksum;
+    // the row groups by their starting position in the file
+    private final Map<Long, RowGroup> rowGroups;
+
+    private PageIndex(long fileLength, long footerChecksum, Map<Long, RowGroup> rowGroups) {
+        this.fileLength = fileLength;
+        this.footerChecksum = footerChecksum;
+        this.rowGroups = rowGroups;
+    }
+
+    /**
+     * Returns the index file of a parquet file.
+     */
+    public static File indexFile(String parquetPath) {
+        return new File(parquetPath + FILE_SUFFIX);
+    }
+
+    /**
+     * Read the page headers of a local parquet file and write its index file, an existing index file is replaced.
+     * @throws IOException If the file cannot be read, or it has pages which are not supported.
+     */
+    public static void write(String parquetPath) throws IOException {
+        build(parquetPath).write(indexFile(parquetPath));
+    }
+
+    static PageIndex build(String parquetPath) throws IOException {
+        Configuration conf = new Configuration();
+        HadoopInputFile inputFile = HadoopInputFile.fromPath(new Path(parquetPath), conf);
+        ParquetMetadata footer = ParquetFileReader.readFooter(inputFile, ParquetMetadataConverter.NO_FILTER);
+        String createdBy = footer.getFileMetaData().getCreatedBy();
+        MessageType schema = footer.getFileMetaData().getSchema();
+        ParquetMetadataConverter converter = new ParquetMetadataConverter();
+
+        Map<Long, RowGroup> rowGroups = new HashMap<>();
+        try (SeekableInputStream in = inputFile.newStream()) {
+            for (BlockMetaData block : footer.getBlocks()) {
+                List<ColumnChunkMetaData> chunks = block.getColumns();
+                Column[] columns = new Column[chunks.size()];
+                for (int i = 0; i < columns.length; i++) {
+                    ColumnChunkMetaData chunk = chunks.get(i);
+                    PrimitiveType type = schema.getType(chunk.getPath().toArray()).asPrimitiveType();
+                    columns[i] = readColumn(in, chunk, type, createdBy, converter, parquetPath);
+                }
+                rowGroups.put(block.getStartingPos(), new RowGroup(block.getRowCount(), columns));
+            }
+        }
+        return new PageIndex(inputFile.getLength(), footerChecksum(new File(parquetPath)), rowGroups);
+    }
+
+    /**
+     * Returns the CRC32 of the footer of a parquet file and of its length. The footer has the offsets, sizes and
+     * statistics of all column chunks and the key value metadata, so a rewritten file of the same length has another
+     * checksum.
+     * @throws IOException If the file is not a parquet file.
+     */
+    static long footerChecksum(File file) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            long length = in.length();
+            byte[] tail = new byte[FOOTER_TAIL_LENGTH];
+            if (length < ParquetFileWriter.MAGIC.length + FOOTER_TAIL_LENGTH) {
+                throw new IOException(file + " is not a parquet file, it is too short");
+            }
+            in.seek(length - FOOTER_TAIL_LENGTH);
+            in.readFully(tail);
+            if (!Arrays.equals(ParquetFileWriter.MAGIC, Arrays.copyOfRange(tail, 4, FOOTER_TAIL_LENGTH))) {
+                throw new IOException(file + " is not a parquet file, it has no magic number at the end");
+            }
+            // the footer length is a little endian int before the magic number
+            long footerLength = (tail[0] & 0xFF) | (tail[1] & 0xFF) << 8 | (tail[2] & 0xFF) << 16 | (long) (tail[3] & 0xFF) << 24;
+            long footerStart = length - FOOTER_TAIL_LENGTH - footerLength;
+            if (footerStart < ParquetFileWriter.MAGIC.length) {
+                throw new IOException(file + " is not a parquet file, its footer length " + footerLength + " is not valid");
+            }
+            CRC32 crc = new CRC32();
+            byte[] buffer = new byte[8192];
+            in.seek(footerStart);
+            for (long remaining = footerLength; remaining > 0; ) {
+                int n = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (n < 0) {
+                    throw new EOFException("Unexpected end of parquet file " + file);
+                }
+                crc.update(buffer, 0, n);
+                remaining -= n;
+            }
+            crc.update(tail, 0, 4);
+            return crc.getValue();
+        }
+    }
+
+    private static Column readColumn(SeekableInputStream in, ColumnChunkMetaData chunk, PrimitiveType type,
+            String createdBy, ParquetMetadataConverter converter, String parquetPath) throws IOException {
+        // the footer of parquet-hadoop 1.10.1 does not always record the dictionary page offset, the pages are
+        // found from the start of the column chunk
+        long end = chunk.getStartingPos() + chunk.getTotalSize();
+        long dictionaryOffset = -1;
+        List<Page> pages = new ArrayList<>();
+        long firstRow = 0;
+        in.seek(chunk.getStartingPos());
+        while (in.getPos() < end) {
+            long offset = in.getPos();
+            PageHeader header = Util.readPageHeader(in);
+            if (header.getType() == PageType.DICTIONARY_PAGE) {
+                dictionaryOffset = offset;
+            } else if (header.getType() == PageType.DATA_PAGE) {
+                DataPageHeader dataHeader = header.getData_page_header();
+                Page page = new Page(offset, firstRow, dataHeader.getNum_values());
+                if (dataHeader.isSetStatistics()) {
+                    Statistics<?> statistics = converter.fromParquetStatistics(createdBy, dataHeader.getStatistics(), type);
+                    page.nullCount = statistics.isNumNullsSet() ? statistics.getNumNulls() : -1;
+                    if (statistics.hasNonNullValue()) {
+                        page.min = statistics.getMinBytes();
+                        page.max = statistics.getMaxBytes();
+                    }
+                }
+                pages.add(page);
+                firstRow += page.valueCount;
+            } else {
+                String message = String.format("Page type %s of column %s is not supported by the page index of parquet file %s",
+                        header.getType(), chunk.getPath().toDotString(), parquetPath);
+                throw new IOException(message);
+            }
+            in.seek(in.getPos() + header.getCompressed_page_size());
+        }
+        return new Column(dictionaryOffset, pages.toArray(new Page[0]));
+    }
+
+    void write(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(fileLength);
+            out.writeLong(footerChecksum);
+            out.writeInt(rowGroups.size());
+            for (Map.Entry<Long, RowGroup> entry : rowGroups.entrySet()) {
+                RowGroup rowGroup = entry.getValue();
+                out.writeLong(entry.getKey());
+                out.writeLong(rowGroup.rowCount);
+                out.writeInt(rowGroup.columns.length);
+                for (Column column : rowGroup.columns) {
+                    out.writeLong(column.dictionaryOffset);
+                    out.writeInt(column.pages.length);
+                    for (Page page : column.pages) {
+                        out.writeLong(page.offset);
+                        out.writeLong(page.firstRow);
+                        out.writeInt(page.valueCount);
+                        out.writeLong(page.nullCount);
+                        writeBytes(out, page.min);
+                        writeBytes(out, page.max);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the index of a parquet file, or null if it has no index file, or the index file is not of the current
+     * parquet file, such as after the parquet file was rewritten without an index. The index is of the current file if
+     * the length of the file and the checksum of its footer are the ones of the indexed file.
+     */
+    static PageIndex read(String parquetPath) throws IOException {
+        File file = indexFile(parquetPath);
+        if (!file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                logger.log(Level.WARNING, "Page index {0} is not valid and is ignored", file);
+                return null;
+            }
+            long fileLength = in.readLong();
+            long footerChecksum = in.readLong();
+            File parquetFile = new File(parquetPath);
+            if (fileLength != parquetFile.length() || footerChecksum != footerChecksum(parquetFile)) {
+                logger.log(Level.WARNING, "Page index {0} is not of the current parquet file and is ignored", file);
+                return null;
+            }
+            int rowGroupCount = in.readInt();
+            Map<Long, RowGroup> rowGroups = new HashMap<>();
+            for (int i = 0; i < rowGroupCount; i++) {
+                long startingPos = in.readLong();
+                long rowCount = in.readLong();
+                Column[] columns = new Column[in.readInt()];
+                for (int j = 0; j < columns.length; j++) {
+                    long dictionaryOffset = in.readLong();
+                    Page[] pages = new Page[in.readInt()];
+                    for (int k = 0; k < pages.length; k++) {
+                        pages[k] = new Page(in.readLong(), in.readLong(), in.readInt());
+                        pages[k].nullCount = in.readLong();
+                        pages[k].min = readBytes(in);
+                        pages[k].max = readBytes(in);
+                    }
+                    columns[j] = new Column(dictionaryOffset, pages);
+                }
+                rowGroups.put(startingPos, new RowGroup(rowCount, columns));
+            }
+            return new PageIndex(fileLength, footerChecksum, rowGroups);
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * Returns the index of the row group of the footer, or null if the row group is not in the index.
+     */
+    RowGroup getRowGroup(BlockMetaData block) {
+        RowGroup rowGroup = rowGroups.get(block.getStartingPos());
+        if (rowGroup == null || rowGroup.rowCount != block.getRowCount() || rowGroup.columns.length != block.getColumns().size()) {
+            return null;
+        }
+        return rowGroup;
+    }
+
+    static class RowGroup {
+        final long rowCount;
+        // the columns in the order of the column chunks of the row group
+        final Column[] columns;
+
+        RowGroup(long rowCount, Column[] columns) {
+            this.rowCount = rowCount;
+            this.columns = columns;
+        }
+    }
+
+    static class Column {
+        // the offset of the dictionary page, or -1
+        final long dictionaryOffset;
+        final Page[] pages;
+
+        Column(long dictionaryOffset, Page[] pages) {
+            this.dictionaryOffset = dictionaryOffset;
+            this.pages = pages;
+        }
+    }
+
+    static class Page {
+        // the offset of the page header
+        final long offset;
+        // the row of the first value in the row group
+        final long firstRow;
+        final int valueCount;
+        // the number of nulls, or -1 if unknown
+        long nullCount = -1;
+        // the min and max values as in the statistics of the column chunk, null if the page has no non-null value
+        // or no statistics
+        byte[] min;
+        byte[] max;
+
+        Page(long offset, long firstRow, int valueCount) {
+            this.offset = offset;
+            this.firstRow = firstRow;
+            this.valueCount = valueCount;
+        }
+
+        /**
+         * Returns the statistics of the page in the form of column chunk statistics.
+         */
+        Statistics<?> getStatistics(PrimitiveType type) {
+            Statistics.Builder builder = Statistics.getBuilderForReading(type);
+            if (min != null) {
+                builder.withMin(min).withMax(max);
+            }
+            if (nullCount >= 0) {
+                builder.withNumNulls(nullCount);
+            }
+            return builder.build();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.fishblack.fastparquet.reader;
+
+import com.fishblack.fastparquet.utils.ParquetAvroUtils;
+import org.apache.avro.generic.GenericData;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.avro.AvroParquetReader;
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads the canonical rows of a parquet file by decoding row groups on a pool of worker threads.
+ * Each row group is read by its own parquet reader limited to the byte range of the row group, and its records are
+ * converted to canonical rows by the worker. The rows are returned in file order, at most readAhead row groups are
+ * decoded or waiting ahead of the row group being returned, so the memory used is bounded by about readAhead + 1
+ * row groups of canonical rows.
+ */
+class ParallelRowGroupReader implements Closeable {
+
+	private static final AtomicInteger POOL_NUMBER = new AtomicInteger(1);
+
+	private final String parquetPath;
+	private final GenericData model;
+	private final Configuration conf;
+	private final FilterPredicate filter;
+	private final List<BlockMetaData> rowGroups;
+	private final int readAhead;
+	private final ExecutorService executor;
+	private final Deque<Future<String[][]>> pending = new ArrayDeque<>();
+	private int nextRowGroup;
+	private String[][] rows;
+	private int position;
+
+	/**
+	 * @param filter The filter of the rows, or null to read all rows.
+	 */
+	ParallelRowGroupReader(String parquetPath, GenericData model, FilterPredicate filter, int parallelism, int readAhead) throws IOException {
+		this.parquetPath = parquetPath;
+		this.model = model;
+		this.conf = new Configuration();
+		this.filter = filter;
+		this.readAhead = readAhead;
+		//the row groups which cannot match the filter are not submitted
+		try (ParquetFileReader reader = ColumnValueReader.open(parquetPath, filter)) {
+			this.rowGroups = new ArrayList<>(reader.getRowGroups());
+		}
+		this.executor = Executors.newFixedThreadPool(parallelism, new DecoderThreadFactory());
+		submitAhead();
+	}
+
+	/**
+	 * Returns the next row, or null if all rows are read.
+	 */
+	String[] read() throws IOException {
+		while (rows == null || position >= rows.length) {
+			if (pending.isEmpty()) {
+				return null;
+			}
+			rows = takeNext();
+			position = 0;
+			submitAhead();
+		}
+		return rows[position++];
+	}
+
+	private void submitAhead() {
+		while (pending.size() < readAhead && nextRowGroup < rowGroups.size()) {
+			BlockMetaData rowGroup = rowGroups.get(nextRowGroup++);
+			pending.add(executor.submit(() -> decode(rowGroup)));
+		}
+	}
+
+	/**
+	 * Read the records of a row group and convert them to canonical rows.
+	 */
+	private String[][] decode(BlockMetaData rowGroup) throws IOException {
+		//withConf() resets the read options, so it comes first. The file range selects the row groups whose midpoint
+		//is in it, which is only this row group
+		AvroParquetReader.Builder<GenericData.Record> builder = AvroParquetReader.<GenericData.Record>builder(new Path(parquetPath));
+		builder.withDataModel(model).withConf(conf);
+		builder.withFileRange(rowGroup.getStartingPos(), rowGroup.getStartingPos() + rowGroup.getCompressedSize());
+		if (filter != null) {
+			builder.withFilter(FilterCompat.get(filter));
+		}
+		List<String[]> decoded = new ArrayList<>((int) Math.min(rowGroup.getRowCount(), Integer.MAX_VALUE - 8));
+		try (ParquetReader<GenericData.Record> reader = builder.build()) {
+			GenericData.Record record;
+			while ((record = reader.read()) != null) {
+				decoded.add(ParquetAvroUtils.toStringArray(record));
+			}
+		}
+		return decoded.toArray(new String[decoded.size()][]);
+	}
+
+	/**
+	 * Wait for the oldest submitted row group to be decoded.
+	 */
+	private String[][] takeNext() throws IOException {
+		try {
+			return pending.pop().get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while decoding row group", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			throw new IOException("Failed to decode row group of parquet file " + parquetPath, cause);
+		}
+	}
+
+	@Override
+	public void close() {
+		//the row groups decoded ahead are discarded
+		executor.shutdownNow();
+		pending.clear();
+		rows = null;
+	}
+
+	private static class DecoderThreadFactory implements ThreadFactory {
+		private final int poolNumber = POOL_NUMBER.getAndIncrement();
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "fastparquet-decoder-" + poolNumber + "-" + threadNumber.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -33,4 +33,16 @@ public interface ParquetColumnReader extends Closeable{
      */
     Object next() throws IOException;
 
+    /**
+     * Reads the next values of current column into the vector, replacing the values of the previous batch. It reads
+     * the values into reusable primitive arrays instead of an object per value, see ColumnVector for the arrays of the
+     * column types. Unlike next(), timestamp and time values keep their milliseconds.
+     * 
+     * @param vector the vector to fill
+     * @param maxRows the maximum number of values to read
+     * @return the number of values read, which is less than maxRows only at the end of the column, 0 at the end
+     * @throws IOException
+     */
+    int readBatch(ColumnVector vector, int maxRows) throws IOException;
+
 }
\ No newline at end of file
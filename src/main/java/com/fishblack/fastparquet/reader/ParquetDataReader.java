@@ -1,5 +1,6 @@
 package com.fishblack.fastparquet.reader;
 
+import com.fishblack.fastparquet.common.FieldMetadata;
 import com.fishblack.fastparquet.utils.ParquetAvroUtils;
 import org.apache.avro.Conversions;
 import org.apache.avro.data.TimeConversions;
@@ -7,6 +8,8 @@ import org.apache.avro.generic.GenericData;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.parquet.avro.AvroParquetReader;
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
 import org.apache.parquet.hadoop.ParquetReader;
 
 import java.io.Closeable;
@@ -19,12 +22,17 @@ import java.util.Map;
  * The parquet file needs to be in a local path which is readable by fastparquet first.
  * The clients can call next() to retrieve the amount of data they need.
  * The clients should call close() if read is finished.
+ * With a parallelism in ParquetReadOptions the row groups are decoded on worker threads, next() still returns the rows
+ * in file order.
  */
 public class ParquetDataReader implements Closeable{
 	
 	private final String parquetPath;
+	private final ParquetReadOptions options;
 	private ParquetReader<GenericData.Record> reader = null;
+	private ParallelRowGroupReader parallelReader = null;
 	private Map<String, String> keyValueMetadata = null;
+	private FilterPredicate filter = null;
 
 	/**
 	 * Constructs a ParquetDataReader
@@ -32,16 +40,60 @@ public class ParquetDataReader implements Closeable{
 	 * @throws IOException 
 	 */
 	public ParquetDataReader(String parquetPath) throws IOException {
+		this(parquetPath, new ParquetReadOptions());
+	}
+
+	/**
+	 * Constructs a ParquetDataReader with options.
+	 * @param parquetPath The parquet file to read data from.
+	 * @param options The reader options, such as the parallelism.
+	 * @throws IOException
+	 */
+	public ParquetDataReader(String parquetPath, ParquetReadOptions options) throws IOException {
 		this.parquetPath = parquetPath;
+		this.options = options == null ? new ParquetReadOptions() : options;
+		init();
+	}
+
+	/**
+	 * Constructs a ParquetDataReader which reads only the rows matching the filter. The row groups whose column
+	 * statistics show that no row matches are not read.
+	 * @param parquetPath The parquet file to read data from.
+	 * @param fields The fields the file was written with, the filter refers to their names.
+	 * @param filter The filter of the rows.
+	 * @throws IOException
+	 * @throws IllegalArgumentException If a field of the filter is not found, or a value is not valid for its type.
+	 */
+	public ParquetDataReader(String parquetPath, List<FieldMetadata> fields, RowFilter filter) throws IOException {
+		this(parquetPath, fields, filter, new ParquetReadOptions());
+	}
+
+	/**
+	 * Constructs a ParquetDataReader with options which reads only the rows matching the filter.
+	 * @param parquetPath The parquet file to read data from.
+	 * @param fields The fields the file was written with, the filter refers to their names.
+	 * @param filter The filter of the rows.
+	 * @param options The reader options, such as the parallelism.
+	 * @throws IOException
+	 * @throws IllegalArgumentException If a field of the filter is not found, or a value is not valid for its type.
+	 */
+	public ParquetDataReader(String parquetPath, List<FieldMetadata> fields, RowFilter filter, ParquetReadOptions options) throws IOException {
+		this.parquetPath = parquetPath;
+		this.options = options == null ? new ParquetReadOptions() : options;
+		this.filter = filter.toPredicate(fields);
 		init();
 	}
 	
 	private void init() throws IOException {
-		GenericData model = GenericData.get();
-		model.addLogicalTypeConversion(new Conversions.DecimalConversion());
-		model.addLogicalTypeConversion(new TimeConversions.DateConversion());//date
-		model.addLogicalTypeConversion(new TimeConversions.TimestampConversion());//timestamp
+		GenericData model = DataModelHolder.MODEL;
+		if (options.getParallelism() > 1) {
+			parallelReader = new ParallelRowGroupReader(parquetPath, model, filter, options.getParallelism(), options.getReadAhead());
+			return;
+		}
 		AvroParquetReader.Builder<GenericData.Record> builder = AvroParquetReader.<GenericData.Record>builder(new Path(parquetPath));
+		if (filter != null) {
+			builder.withFilter(FilterCompat.get(filter));
+		}
 		reader = builder.withDataModel(model).withConf(new Configuration()).build();
 	}
 	
@@ -54,6 +106,14 @@ public class ParquetDataReader implements Closeable{
 	 * @throws IOException
 	 */
 	public String[][] next(int rows) throws IOException {
+		if (parallelReader != null) {
+			List<String[]> rowsRead = new ArrayList<>();
+			String[] row;
+			while (rowsRead.size() < rows && (row = parallelReader.read()) != null) {
+				rowsRead.add(row);
+			}
+			return rowsRead.toArray(new String[rowsRead.size()][]);
+		}
 		List<String[]> rowsRead = new ArrayList<>();
 		int numRows = 0;
 		String[] currentRow;
@@ -74,10 +134,14 @@ public class ParquetDataReader implements Closeable{
 	}
 	
 	/**
-	 * Close the underlying parquet reader.
+	 * Close the underlying parquet reader, or stop the decoding threads of a parallel reader.
 	 */
 	public void close() throws IOException {
-		reader.close();
+		if (parallelReader != null) {
+			parallelReader.close();
+		} else {
+			reader.close();
+		}
 	}
 	
 	/**
@@ -92,4 +156,18 @@ public class ParquetDataReader implements Closeable{
 		}
 		return keyValueMetadata;
 	}
+
+	/**
+	 * The data model with the logical type conversions of the readers. It is initialized once and is not the shared
+	 * GenericData.get(), so it is not modified while the decoder threads of a parallel reader use it.
+	 */
+	private static class DataModelHolder {
+		private static final GenericData MODEL = new GenericData();
+
+		static {
+			MODEL.addLogicalTypeConversion(new Conversions.DecimalConversion());
+			MODEL.addLogicalTypeConversion(new TimeConversions.DateConversion());//date
+			MODEL.addLogicalTypeConversion(new TimeConversions.TimestampConversion());//timestamp
+		}
+	}
 }
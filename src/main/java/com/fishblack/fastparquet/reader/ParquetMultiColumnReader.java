@@ -0,0 +1,42 @@
+package com.fishblack.fastparquet.reader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A reader of several columns of a parquet file, it reads only the column chunks of the columns from each row group
+ * and advances the columns together, a row at a time or a batch at a time.
+ */
+public interface ParquetMultiColumnReader extends Closeable {
+
+    /**
+     * Returns the names of the columns in the order of the values.
+     */
+    List<String> getColumnNames();
+
+    /**
+     * Return true if there are still remaining rows to read.
+     */
+    boolean hasNext();
+
+    /**
+     * Returns the values of the next row, in the order of the column names. The value types are the ones of
+     * ParquetColumnReader#next().
+     * 
+     * @return a new array of the values of the row
+     * @throws IOException
+     */
+    Object[] next() throws IOException;
+
+    /**
+     * Reads the values of the next rows into a vector per column, see ParquetColumnReader#readBatch(ColumnVector, int).
+     * 
+     * @param vectors the vectors in the order of the column names
+     * @param maxRows the maximum number of rows to read
+     * @return the number of rows read, 0 at the end
+     * @throws IOException
+     */
+    int readBatch(ColumnVector[] vectors, int maxRows) throws IOException;
+
+}
@@ -0,0 +1,191 @@
+package com.fishblack.fastparquet.reader;
+
+import com.fishblack.fastparquet.common.FieldMetadata;
+import org.apache.parquet.column.ColumnReadStore;
+import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.schema.MessageType;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Implements ParquetMultiColumnReader. The file is opened and its footer is parsed once, the requested schema of the
+ * file reader is the projection of the columns, so a row group read only reads their column chunks.
+ */
+public class ParquetMultiColumnReaderImpl implements ParquetMultiColumnReader {
+    private static final Logger logger = Logger.getLogger(ParquetMultiColumnReaderImpl.class.getName());
+    private final String parquetPath;
+    private final List<String> columnNames;
+    private final ParquetFileReader reader;
+    private final ColumnValueReader[] columns;
+    private final MessageType projection;
+    private final String createdBy;
+    private final long totalRows;
+    // the scan of the pages which may match the filter, or null if the file has no page index
+    private final IndexedPageScan indexedScan;
+    private long rowsRead;
+    private PageReadStore currentRowGroup;
+    private long currentRowGroupPosition;
+
+    /**
+     * @param columnNames the names of the columns to read
+     * @throws IllegalArgumentException If a column is not found or is repeated.
+     */
+    public ParquetMultiColumnReaderImpl(String parquetPath, List<String> columnNames) throws IOException {
+        this(parquetPath, columnNames, null);
+    }
+
+    /**
+     * Read the columns of only the row groups which may have rows matching the filter, the rows of those row groups
+     * are not filtered. If the file has a PageIndex, only the rows of the pages which may match are read.
+     * @param fields The fields the file was written with, the filter refers to their names.
+     * @param filter The filter of the row groups.
+     * @throws IllegalArgumentException If a column is not found or is repeated, or if a field of the filter is not
+     * found, or a value is not valid for its type.
+     */
+    public ParquetMultiColumnReaderImpl(String parquetPath, List<String> columnNames, List<FieldMetadata> fields, RowFilter filter) throws IOException {
+        this(parquetPath, columnNames, filter.toPredicate(fields));
+    }
+
+    private ParquetMultiColumnReaderImpl(String parquetPath, List<String> columnNames, FilterPredicate filter) throws IOException {
+        if (columnNames.isEmpty()) {
+            throw new IllegalArgumentException("At least one column must be read.");
+        }
+        if (new HashSet<>(columnNames).size() != columnNames.size()) {
+            throw new IllegalArgumentException("Columns " + columnNames + " are repeated.");
+        }
+        logger.log(Level.FINE, "Read columns {0} from Parqeut file {1}", new Object[] { columnNames, parquetPath });
+
+        this.parquetPath = parquetPath;
+        this.columnNames = Collections.unmodifiableList(new ArrayList<>(columnNames));
+        this.reader = ColumnValueReader.open(parquetPath, filter);
+        try {
+            MessageType schema = reader.getFileMetaData().getSchema();
+            List<ColumnValueReader> columnList = new ArrayList<>();
+            for (String columnName : columnNames) {
+                columnList.add(new ColumnValueReader(parquetPath, schema, columnName));
+            }
+            this.columns = columnList.toArray(new ColumnValueReader[0]);
+            this.projection = ColumnValueReader.projection(schema, columnList);
+            this.createdBy = reader.getFooter().getFileMetaData().getCreatedBy();
+            this.indexedScan = filter == null ? null
+                    : IndexedPageScan.open(parquetPath, reader.getRowGroups(), schema, projection, createdBy, columns, filter);
+        } catch (IOException | RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+        reader.setRequestedSchema(projection);
+        this.totalRows = indexedScan != null ? indexedScan.getRowCount() : reader.getRecordCount();
+    }
+
+    /**
+     * @see ParquetMultiColumnReader#getColumnNames()
+     */
+    @Override
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    /**
+     * @see ParquetMultiColumnReader#hasNext()
+     */
+    @Override
+    public boolean hasNext() {
+        return rowsRead < totalRows;
+    }
+
+    /**
+     * @see ParquetMultiColumnReader#next()
+     */
+    @Override
+    public Object[] next() throws IOException {
+        if (rowsRead >= totalRows) {
+            throw new EOFException("End of file reached for parquet file " + parquetPath);
+        }
+        if (indexedScan != null) {
+            indexedScan.nextRun(1);
+        } else if (currentRowGroup == null || (currentRowGroupPosition >= currentRowGroup.getRowCount())) {
+            switchToNextRowGroup();
+        }
+        Object[] values = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = columns[i].next();
+        }
+        rowsRead++;
+        currentRowGroupPosition++;
+        return values;
+    }
+
+    /**
+     * @see ParquetMultiColumnReader#readBatch(ColumnVector[], int)
+     */
+    @Override
+    public int readBatch(ColumnVector[] vectors, int maxRows) throws IOException {
+        if (maxRows < 1) {
+            throw new IllegalArgumentException("maxRows must be positive: " + maxRows);
+        }
+        if (vectors.length != columns.length) {
+            throw new IllegalArgumentException("There are " + vectors.length + " vectors for " + columns.length + " columns.");
+        }
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].startBatch(vectors[i], maxRows);
+        }
+
+        int count = 0;
+        while (count < maxRows && rowsRead < totalRows) {
+            // each column reads the same run of the current row group
+            int n;
+            if (indexedScan != null) {
+                n = indexedScan.nextRun(maxRows - count);
+            } else {
+                if (currentRowGroup == null || (currentRowGroupPosition >= currentRowGroup.getRowCount())) {
+                    switchToNextRowGroup();
+                }
+                n = (int) Math.min(maxRows - count, currentRowGroup.getRowCount() - currentRowGroupPosition);
+            }
+            for (int i = 0; i < columns.length; i++) {
+                columns[i].readBatch(vectors[i], count, n);
+            }
+            count += n;
+            rowsRead += n;
+            currentRowGroupPosition += n;
+        }
+        for (ColumnVector vector : vectors) {
+            vector.setSize(count);
+        }
+        return count;
+    }
+
+    private void switchToNextRowGroup() throws IOException {
+        currentRowGroup = reader.readNextRowGroup();
+        currentRowGroupPosition = 0;
+        ColumnReadStore columnReadStore = ColumnValueReader.columnReadStore(currentRowGroup, projection, createdBy);
+        for (ColumnValueReader column : columns) {
+            column.startRowGroup(columnReadStore);
+        }
+        logger.log(Level.FINE, "{0} rows in row group for columns {1}", new Object[] { currentRowGroup.getRowCount(), columnNames });
+    }
+
+    /**
+     * @see ParquetMultiColumnReader#close()
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (indexedScan != null) {
+                indexedScan.close();
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+}
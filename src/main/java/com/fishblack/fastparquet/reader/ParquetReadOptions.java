@@ -0,0 +1,48 @@
+package com.fishblack.fastparquet.reader;
+
+/**
+ * Optional settings for a ParquetDataReader.
+ * A default instance gives the same behavior as the ParquetDataReader constructors without options.
+ */
+public class ParquetReadOptions {
+
+	private int parallelism = 1;
+	private int readAhead = 0;
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * The number of threads which decode row groups. Default is 1, which decodes on the reading thread.
+	 * With a larger value the next row groups are decoded into canonical rows on a worker pool while the current one
+	 * is returned by next(), the rows are still returned in file order.
+	 */
+	public ParquetReadOptions withParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+		}
+		this.parallelism = parallelism;
+		return this;
+	}
+
+	/**
+	 * Returns the number of row groups decoded ahead of the one returned by next(), see withReadAhead(int).
+	 */
+	public int getReadAhead() {
+		return readAhead > 0 ? readAhead : 2 * parallelism;
+	}
+
+	/**
+	 * The number of row groups which are decoded or held decoded ahead of the row group returned by next() with a
+	 * parallelism above 1. Default is twice the parallelism. It bounds the memory of the reader to about readAhead + 1
+	 * row groups of canonical rows, a value below the parallelism leaves threads idle.
+	 */
+	public ParquetReadOptions withReadAhead(int readAhead) {
+		if (readAhead < 1) {
+			throw new IllegalArgumentException("Read ahead must be at least 1: " + readAhead);
+		}
+		this.readAhead = readAhead;
+		return this;
+	}
+}
@@ -0,0 +1,231 @@
+package com.fishblack.fastparquet.reader;
+
+import com.fishblack.fastparquet.common.FieldMetadata;
+import com.fishblack.fastparquet.common.SchemaConverter;
+import com.fishblack.fastparquet.utils.ParquetAvroUtils;
+import org.apache.avro.LogicalType;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericFixed;
+import org.apache.parquet.filter2.predicate.FilterApi;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.filter2.predicate.Operators;
+import org.apache.parquet.io.api.Binary;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDate;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A filter of the rows of a parquet file written by fastparquet, on the values of its fields. The values are canonical
+ * strings, such as "2020-01-31" for a date field, and are converted to the stored values the same as written data,
+ * an empty value is null.
+ * The readers skip the row groups whose column statistics show that no row can match, so a selective filter on a
+ * sorted or clustered field reads a small part of the file, and the column readers also skip the pages which cannot
+ * match if the file has a PageIndex. A filter is immutable.
+ */
+public final class RowFilter {
+
+    private enum Operator {
+        EQ, RANGE, IN, IS_NULL, AND, OR
+    }
+
+    private enum Comparison {
+        EQ, GT_EQ, LT_EQ
+    }
+
+    private final Operator operator;
+    private final String fieldName;
+    private final String[] values;
+    private final RowFilter[] filters;
+
+    private RowFilter(Operator operator, String fieldName, String[] values, RowFilter[] filters) {
+        this.operator = operator;
+        this.fieldName = fieldName;
+        this.values = values;
+        this.filters = filters;
+    }
+
+    /**
+     * Rows whose field equals the value.
+     */
+    public static RowFilter eq(String fieldName, String value) {
+        return new RowFilter(Operator.EQ, fieldName, new String[] { value }, null);
+    }
+
+    /**
+     * Rows whose field is between min and max inclusive.
+     * @param min The lower bound, or null for no lower bound.
+     * @param max The upper bound, or null for no upper bound.
+     */
+    public static RowFilter between(String fieldName, String min, String max) {
+        if (min == null && max == null) {
+            throw new IllegalArgumentException("A range of field " + fieldName + " needs a bound.");
+        }
+        return new RowFilter(Operator.RANGE, fieldName, new String[] { min, max }, null);
+    }
+
+    /**
+     * Rows whose field equals one of the values.
+     */
+    public static RowFilter in(String fieldName, String... values) {
+        if (values.length == 0) {
+            throw new IllegalArgumentException("The values of field " + fieldName + " must not be empty.");
+        }
+        return new RowFilter(Operator.IN, fieldName, values.clone(), null);
+    }
+
+    /**
+     * Rows whose field is null.
+     */
+    public static RowFilter isNull(String fieldName) {
+        return new RowFilter(Operator.IS_NULL, fieldName, null, null);
+    }
+
+    /**
+     * Rows which match all filters.
+     */
+    public static RowFilter and(RowFilter... filters) {
+        return combine(Operator.AND, filters);
+    }
+
+    /**
+     * Rows which match any filter.
+     */
+    public static RowFilter or(RowFilter... filters) {
+        return combine(Operator.OR, filters);
+    }
+
+    private static RowFilter combine(Operator operator, RowFilter[] filters) {
+        if (filters.length == 0) {
+            throw new IllegalArgumentException("At least one filter must be combined.");
+        }
+        return new RowFilter(operator, null, null, filters.clone());
+    }
+
+    /**
+     * Returns the parquet predicate of the file written with the fields.
+     * @throws IllegalArgumentException If a field is not found, or a value is not valid for the field type.
+     */
+    FilterPredicate toPredicate(List<FieldMetadata> fields) {
+        return toPredicate(fields, SchemaConverter.toAvroSchema(fields));
+    }
+
+    private FilterPredicate toPredicate(List<FieldMetadata> fields, Schema schema) {
+        if (operator == Operator.AND || operator == Operator.OR) {
+            FilterPredicate predicate = filters[0].toPredicate(fields, schema);
+            for (int i = 1; i < filters.length; i++) {
+                FilterPredicate next = filters[i].toPredicate(fields, schema);
+                predicate = operator == Operator.AND ? FilterApi.and(predicate, next) : FilterApi.or(predicate, next);
+            }
+            return predicate;
+        }
+
+        // the parquet columns are named by the index of the field, see SchemaConverter
+        int index = indexOf(fields);
+        String columnPath = "f" + index;
+        Schema fieldSchema = nonNullSchema(schema.getFields().get(index).schema());
+        switch (operator) {
+            case IS_NULL:
+                return compare(Comparison.EQ, fieldSchema, columnPath, null);
+            case EQ:
+                return compare(Comparison.EQ, fieldSchema, columnPath, values[0]);
+            case IN:
+                FilterPredicate predicate = compare(Comparison.EQ, fieldSchema, columnPath, values[0]);
+                for (int i = 1; i < values.length; i++) {
+                    predicate = FilterApi.or(predicate, compare(Comparison.EQ, fieldSchema, columnPath, values[i]));
+                }
+                return predicate;
+            default:
+                if (values[0] == null) {
+                    return compare(Comparison.LT_EQ, fieldSchema, columnPath, values[1]);
+                }
+                if (values[1] == null) {
+                    return compare(Comparison.GT_EQ, fieldSchema, columnPath, values[0]);
+                }
+                return FilterApi.and(compare(Comparison.GT_EQ, fieldSchema, columnPath, values[0]),
+                        compare(Comparison.LT_EQ, fieldSchema, columnPath, values[1]));
+        }
+    }
+
+    private int indexOf(List<FieldMetadata> fields) {
+        for (int i = 0; i < fields.size(); i++) {
+            if (fields.get(i).getFieldName().equals(fieldName)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Field " + fieldName + " is not found.");
+    }
+
+    private static Schema nonNullSchema(Schema schema) {
+        if (schema.getType() == Schema.Type.UNION) {
+            for (Schema s : schema.getTypes()) {
+                if (s.getType() != Schema.Type.NULL) {
+                    return s;
+                }
+            }
+        }
+        return schema;
+    }
+
+    /**
+     * Returns the predicate on the stored value of the canonical value, a null value only compares equal.
+     */
+    private static FilterPredicate compare(Comparison comparison, Schema fieldSchema, String columnPath, String value) {
+        Object avroValue = value == null ? null : ParquetAvroUtils.toAvroFieldValue(fieldSchema, value);
+        if (avroValue == null && comparison != Comparison.EQ) {
+            throw new IllegalArgumentException("The bound of a range must not be empty.");
+        }
+        LogicalType logicalType = fieldSchema.getLogicalType();
+        if (logicalType != null && logicalType.getName().equals("date")) {
+            Integer days = avroValue == null ? null : (int) (((LocalDate) avroValue).toDateTimeAtStartOfDay(DateTimeZone.UTC).getMillis() / 86400000L);
+            return compare(comparison, FilterApi.intColumn(columnPath), days);
+        }
+        if (logicalType != null && logicalType.getName().equals("timestamp-millis")) {
+            Long millis = avroValue == null ? null : ((DateTime) avroValue).getMillis();
+            return compare(comparison, FilterApi.longColumn(columnPath), millis);
+        }
+        switch (fieldSchema.getType()) {
+            case INT:
+                return compare(comparison, FilterApi.intColumn(columnPath), (Integer) avroValue);
+            case DOUBLE:
+                return compare(comparison, FilterApi.doubleColumn(columnPath), (Double) avroValue);
+            case FIXED:
+                // a decimal is the fixed length two's complement of the unscaled value, compared as a signed integer
+                Binary fixed = avroValue == null ? null : Binary.fromConstantByteArray(((GenericFixed) avroValue).bytes());
+                return compare(comparison, FilterApi.binaryColumn(columnPath), fixed);
+            default:
+                Binary string = avroValue == null ? null : Binary.fromString((String) avroValue);
+                return compare(comparison, FilterApi.binaryColumn(columnPath), string);
+        }
+    }
+
+    private static FilterPredicate compare(Comparison comparison, Operators.IntColumn column, Integer value) {
+        return comparison == Comparison.EQ ? FilterApi.eq(column, value)
+                : comparison == Comparison.GT_EQ ? FilterApi.gtEq(column, value) : FilterApi.ltEq(column, value);
+    }
+
+    private static FilterPredicate compare(Comparison comparison, Operators.LongColumn column, Long value) {
+        return comparison == Comparison.EQ ? FilterApi.eq(column, value)
+                : comparison == Comparison.GT_EQ ? FilterApi.gtEq(column, value) : FilterApi.ltEq(column, value);
+    }
+
+    private static FilterPredicate compare(Comparison comparison, Operators.DoubleColumn column, Double value) {
+        return comparison == Comparison.EQ ? FilterApi.eq(column, value)
+                : comparison == Comparison.GT_EQ ? FilterApi.gtEq(column, value) : FilterApi.ltEq(column, value);
+    }
+
+    private static FilterPredicate compare(Comparison comparison, Operators.BinaryColumn column, Binary value) {
+        return comparison == Comparison.EQ ? FilterApi.eq(column, value)
+                : comparison == Comparison.GT_EQ ? FilterApi.gtEq(column, value) : FilterApi.ltEq(column, value);
+    }
+
+    @Override
+    public String toString() {
+        if (operator == Operator.AND || operator == Operator.OR) {
+            return operator + Arrays.toString(filters);
+        }
+        return operator + "(" + fieldName + (values == null ? "" : ", " + Arrays.toString(values)) + ")";
+    }
+}
@@ -0,0 +1,415 @@
+package com.fishblack.fastparquet.utils;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads the records of canonical CSV data straight from the UTF-8 bytes of the input. Only the bytes of a field are
+ * decoded into its String, there is no decoded copy of the line and no StringBuilder per field, a field without quotes
+ * is decoded from the input buffer in place.
+ * The records are the same as the ones of an opencsv CSVReader over an InputStreamReader, with the default separator
+ * and quote character and ESCAPE_CHARACTER as escape character, including its handling of a quote character in the
+ * middle of a field, of quoted line breaks which become "\n", and of an unterminated quoted field at the end of the data.
+ * The separator, quote, escape and line break characters are all ASCII, so they cannot be part of a multi-byte
+ * character and the bytes can be compared directly.
+ */
+public final class CanonicalCsvReader implements Closeable {
+
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	private static final byte SEPARATOR = ',';
+	private static final byte QUOTE = '"';
+	private static final byte ESCAPE = (byte) ParquetAvroUtils.ESCAPE_CHARACTER;
+	//the bytes before the current one which are kept in the buffer, to find the character index of a quote in its line
+	private static final int LOOK_BEHIND = 16;
+	private static final int MAX_ABBREVIATED_TEXT = 100;
+
+	//the classes of the bytes, every other byte is part of a field
+	private static final byte OTHER = 0;
+	private static final byte SPECIAL = 1;
+	private static final byte LINE_BREAK = 2;
+	private static final byte[] BYTE_CLASSES = new byte[256];
+
+	static {
+		BYTE_CLASSES[SEPARATOR & 0xFF] = SPECIAL;
+		BYTE_CLASSES[QUOTE & 0xFF] = SPECIAL;
+		BYTE_CLASSES[ESCAPE & 0xFF] = SPECIAL;
+		BYTE_CLASSES['\n'] = LINE_BREAK;
+		BYTE_CLASSES['\r'] = LINE_BREAK;
+	}
+
+	private final InputStream in;
+	private byte[] buffer;
+	private int position;
+	private int limit;
+	private boolean eof;
+
+	//the start of the current line in the buffer, it is negative when the start has been discarded
+	private int lineStart;
+	private boolean inQuotes;
+	private boolean inField;
+
+	//the value of the current field is the bytes in fieldBytes followed by the slice of the buffer
+	private byte[] fieldBytes = new byte[256];
+	private int fieldLength;
+	private int sliceStart = -1;
+	private int sliceEnd = -1;
+
+	private String[] fields = new String[16];
+	private int fieldCount;
+
+	public CanonicalCsvReader(InputStream in) {
+		this(in, DEFAULT_BUFFER_SIZE);
+	}
+
+	public CanonicalCsvReader(InputStream in, int bufferSize) {
+		this.in = in;
+		this.buffer = new byte[Math.max(bufferSize, 2 * LOOK_BEHIND)];
+	}
+
+	/**
+	 * Read the records of data[offset, offset + length) in place, the array must not be changed while it is read.
+	 */
+	public CanonicalCsvReader(byte[] data, int offset, int length) {
+		this.in = null;
+		this.buffer = data;
+		this.position = offset;
+		this.limit = offset + length;
+		this.eof = true;
+	}
+
+	/**
+	 * Read the next record.
+	 * @return The fields of the record, or null at the end of the data.
+	 * @throws IOException If the data ends in a quoted field, or the input cannot be read.
+	 */
+	public String[] readNext() throws IOException {
+		if (position == limit && !fill()) {
+			return null;
+		}
+		fieldCount = 0;
+		clearField();
+		lineStart = position;
+		inQuotes = false;
+		while (true) {
+			if (position == limit && !fill()) {
+				//the last line has no line break, a quoted field which is still open after it is unterminated
+				if (position != lineStart && endOfLine()) {
+					return takeRecord();
+				}
+				throw new IOException(String.format("Unterminated quoted field at end of CSV line. Beginning of lost text: [%s]",
+						StringUtils.abbreviate(peekField(), MAX_ABBREVIATED_TEXT)));
+			}
+			int current = position++;
+			byte b = buffer[current];
+			byte byteClass = BYTE_CLASSES[b & 0xFF];
+			if (byteClass == OTHER) {
+				//take the run of field bytes in the buffer at once
+				while (position < limit && BYTE_CLASSES[buffer[position] & 0xFF] == OTHER) {
+					position++;
+				}
+				append(current, position);
+				inField = true;
+			} else if (byteClass == LINE_BREAK) {
+				//a line ends at "\n", "\r" or "\r\n" like BufferedReader.readLine()
+				if (b == '\r' && peek() == '\n') {
+					position++;
+				}
+				if (endOfLine()) {
+					return takeRecord();
+				}
+				lineStart = position;
+			} else if (b == ESCAPE) {
+				handleEscape();
+			} else if (b == QUOTE) {
+				handleQuote();
+			} else if (inQuotes) {
+				appendByte(current);
+				inField = true;
+			} else {
+				addField();
+				inField = false;
+			}
+		}
+	}
+
+	private void handleEscape() throws IOException {
+		//an escape character is dropped, unless it escapes a quote or another escape character
+		if (inQuotes || inField) {
+			int next = peekInLine();
+			if (next == QUOTE || next == ESCAPE) {
+				appendByte(position++);
+			}
+		}
+	}
+
+	/**
+	 * Handle the quote before the current position, the buffer may be compacted by a peek so its index is not kept.
+	 */
+	private void handleQuote() throws IOException {
+		int next = peekInLine();
+		if ((inQuotes || inField) && next == QUOTE) {
+			//a doubled quote is an escaped quote
+			appendByte(position++);
+		} else {
+			inQuotes = !inQuotes;
+			//a quote in the middle of a field, not next to a separator, is kept, unless the field so far is whitespace
+			int current = position - 1;
+			if (isAtLeastThirdCharacter(current) && buffer[current - 1] != SEPARATOR && next >= 0 && next != SEPARATOR) {
+				if (!isFieldEmpty() && StringUtils.isWhitespace(peekField())) {
+					clearField();
+				} else {
+					appendByte(current);
+				}
+			}
+		}
+		inField = !inField;
+	}
+
+	/**
+	 * Returns whether at least 3 characters of the line come before the byte, a character has 1 to 3 bytes per char.
+	 */
+	private boolean isAtLeastThirdCharacter(int index) {
+		if (index - lineStart >= 9) {
+			return true;
+		}
+		int chars = 0;
+		for (int i = lineStart; i < index; i++) {
+			int b = buffer[i] & 0xFF;
+			if ((b & 0xC0) != 0x80) {
+				//a 4 byte character is a surrogate pair
+				chars += b >= 0xF0 ? 2 : 1;
+			}
+		}
+		return chars >= 3;
+	}
+
+	/**
+	 * The line ended, a quoted field continues with "\n" on the next line.
+	 * @return true if the record is complete.
+	 */
+	private boolean endOfLine() {
+		if (inQuotes) {
+			flushSlice();
+			ensureFieldCapacity(1);
+			fieldBytes[fieldLength++] = '\n';
+			return false;
+		}
+		inField = false;
+		addField();
+		return true;
+	}
+
+	/**
+	 * Returns the next byte if it is in the same line, or -1.
+	 */
+	private int peekInLine() throws IOException {
+		int next = peek();
+		return next == '\n' || next == '\r' ? -1 : next;
+	}
+
+	private int peek() throws IOException {
+		if (position == limit && !fill()) {
+			return -1;
+		}
+		return buffer[position] & 0xFF;
+	}
+
+	private void appendByte(int index) {
+		append(index, index + 1);
+	}
+
+	/**
+	 * Append the bytes buffer[start, end) to the field, they extend the slice if they follow it.
+	 */
+	private void append(int start, int end) {
+		if (sliceStart >= 0 && sliceEnd == start) {
+			sliceEnd = end;
+			return;
+		}
+		flushSlice();
+		sliceStart = start;
+		sliceEnd = end;
+	}
+
+	private void flushSlice() {
+		if (sliceStart >= 0) {
+			int length = sliceEnd - sliceStart;
+			ensureFieldCapacity(length);
+			System.arraycopy(buffer, sliceStart, fieldBytes, fieldLength, length);
+			fieldLength += length;
+			sliceStart = -1;
+			sliceEnd = -1;
+		}
+	}
+
+	private void ensureFieldCapacity(int length) {
+		if (fieldLength + length > fieldBytes.length) {
+			fieldBytes = Arrays.copyOf(fieldBytes, Math.max(fieldBytes.length * 2, fieldLength + length));
+		}
+	}
+
+	private boolean isFieldEmpty() {
+		return fieldLength == 0 && sliceStart < 0;
+	}
+
+	private void clearField() {
+		fieldLength = 0;
+		sliceStart = -1;
+		sliceEnd = -1;
+	}
+
+	private String peekField() {
+		if (fieldLength == 0) {
+			return sliceStart < 0 ? "" : new String(buffer, sliceStart, sliceEnd - sliceStart, StandardCharsets.UTF_8);
+		}
+		flushSlice();
+		return new String(fieldBytes, 0, fieldLength, StandardCharsets.UTF_8);
+	}
+
+	private void addField() {
+		if (fieldCount == fields.length) {
+			fields = Arrays.copyOf(fields, fieldCount * 2);
+		}
+		fields[fieldCount++] = peekField();
+		clearField();
+	}
+
+	private String[] takeRecord() {
+		String[] record = Arrays.copyOf(fields, fieldCount);
+		Arrays.fill(fields, 0, fieldCount, null);
+		return record;
+	}
+
+	/**
+	 * Read more bytes into the buffer, the bytes before the current field and the look behind are discarded first,
+	 * the buffer grows when a field does not fit.
+	 * @return false at the end of the data.
+	 */
+	private boolean fill() throws IOException {
+		if (eof) {
+			return false;
+		}
+		int keep = Math.max(0, position - LOOK_BEHIND);
+		if (sliceStart >= 0) {
+			keep = Math.min(keep, sliceStart);
+		}
+		if (keep > 0) {
+			System.arraycopy(buffer, keep, buffer, 0, limit - keep);
+			position -= keep;
+			limit -= keep;
+			lineStart -= keep;
+			if (sliceStart >= 0) {
+				sliceStart -= keep;
+				sliceEnd -= keep;
+			}
+		}
+		if (limit == buffer.length) {
+			buffer = Arrays.copyOf(buffer, buffer.length * 2);
+		}
+		int read;
+		do {
+			read = in.read(buffer, limit, buffer.length - limit);
+		} while (read == 0);
+		if (read < 0) {
+			eof = true;
+			return false;
+		}
+		limit += read;
+		return true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (in != null) {
+			in.close();
+		}
+	}
+
+	/**
+	 * Finds the ends of the records in CSV data which is scanned in pieces, with the same quoting rules as readNext(),
+	 * so a quoted line break does not end a record. Only the state of the quotes is followed, the fields are not built.
+	 * The data after a record end can be read by a new CanonicalCsvReader, which gives the same records as one reader of
+	 * the whole data.
+	 */
+	public static final class BoundaryScanner {
+		//the decision which waits for the next byte
+		private static final int NONE = 0;
+		private static final int QUOTE_PENDING = 1;
+		private static final int ESCAPE_PENDING = 2;
+		private static final int CR_IN_RECORD = 3;
+		private static final int CR_END_OF_RECORD = 4;
+
+		private boolean inQuotes;
+		private boolean inField;
+		private int pending = NONE;
+
+		/**
+		 * Scan data[from, to), which follows the data scanned before.
+		 * @return The index after the last record end in the data, or -1 if no record ends in it. The end of a record
+		 * which ends with "\r" is only known when the next byte is scanned.
+		 */
+		public int scan(byte[] data, int from, int to) {
+			int boundary = -1;
+			for (int i = from; i < to; i++) {
+				byte b = data[i];
+				if (pending != NONE) {
+					int decision = pending;
+					pending = NONE;
+					if (decision == QUOTE_PENDING) {
+						inField = !inField;
+						if (b == QUOTE) {
+							//an escaped quote
+							continue;
+						}
+						inQuotes = !inQuotes;
+					} else if (decision == ESCAPE_PENDING) {
+						if (b == QUOTE || b == ESCAPE) {
+							continue;
+						}
+					} else {
+						if (decision == CR_END_OF_RECORD) {
+							boundary = b == '\n' ? i + 1 : i;
+						}
+						if (b == '\n') {
+							continue;
+						}
+					}
+				}
+				byte byteClass = BYTE_CLASSES[b & 0xFF];
+				if (byteClass == OTHER) {
+					inField = true;
+				} else if (byteClass == LINE_BREAK) {
+					boolean endOfRecord = !inQuotes;
+					if (endOfRecord) {
+						inField = false;
+					}
+					if (b == '\r') {
+						pending = endOfRecord ? CR_END_OF_RECORD : CR_IN_RECORD;
+					} else if (endOfRecord) {
+						boundary = i + 1;
+					}
+				} else if (b == ESCAPE) {
+					if (inQuotes || inField) {
+						pending = ESCAPE_PENDING;
+					}
+				} else if (b == QUOTE) {
+					if (inQuotes || inField) {
+						pending = QUOTE_PENDING;
+					} else {
+						inQuotes = true;
+						inField = true;
+					}
+				} else {
+					inField = inQuotes;
+				}
+			}
+			return boundary;
+		}
+	}
+}
@@ -0,0 +1,400 @@
+package com.fishblack.fastparquet.utils;
+
+import com.fishblack.fastparquet.common.FieldMetadata;
+import com.fishblack.fastparquet.common.ParquetConversionException;
+import org.apache.poi.ooxml.util.SAXHelper;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Reads the rows of a sheet of an Excel .xlsx file as records of canonical values, streaming the sheet XML with a SAX
+ * parser instead of loading the workbook, so the memory does not grow with the number of rows. Only the shared strings
+ * table, which holds each distinct string once, and the cell styles are kept in memory.
+ * Cell values are turned into the canonical values of the field types: a date, timestamp or time field gets the date
+ * serial number of a numeric cell formatted like the canonical CSV data, a number field gets the numeric value as it
+ * is stored, and a varchar field gets a numeric cell as a plain number, or formatted as a date, timestamp or time when
+ * the cell has a date format. Missing cells are null and rows without any value are skipped.
+ */
+final class ExcelSheetReader implements Closeable {
+
+	/**
+	 * Receives the records of the sheet, the record array is reused for the next row.
+	 */
+	interface RowHandler {
+		long handle(String[] record) throws IOException, ParquetConversionException;
+	}
+
+	private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormat.forPattern("HH:mm:ss.SSS").withZoneUTC();
+	private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+	private enum ColumnKind {
+		TEXT, NUMBER, DATE, TIMESTAMP, TIME
+	}
+
+	private final OPCPackage pkg;
+	private final ColumnKind[] columnKinds;
+	private final ReadOnlySharedStringsTable sharedStrings;
+	private final StylesTable styles;
+	private final boolean date1904;
+	private final InputStream sheet;
+	private final Map<Integer, Boolean> dateStyles = new HashMap<>();
+
+	/**
+	 * Open the sheet of the file.
+	 * @param sheetName The name of the sheet, or null for the first sheet.
+	 * @param fields The fields of the columns of the sheet.
+	 * @throws IllegalArgumentException If there is no sheet of the name.
+	 */
+	ExcelSheetReader(File file, String sheetName, List<FieldMetadata> fields) throws IOException {
+		columnKinds = new ColumnKind[fields.size()];
+		for (int i = 0; i < columnKinds.length; i++) {
+			columnKinds[i] = kindOf(fields.get(i).getFieldType());
+		}
+		try {
+			pkg = OPCPackage.open(file, PackageAccess.READ);
+		} catch (OpenXML4JException | RuntimeException e) {
+			throw new IOException("Failed to open the Excel file " + file.getPath(), e);
+		}
+		try {
+			XSSFReader reader = new XSSFReader(pkg);
+			sharedStrings = new ReadOnlySharedStringsTable(pkg, false);
+			styles = reader.getStylesTable();
+			date1904 = isDate1904(reader);
+			sheet = openSheet(reader, sheetName);
+		} catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+			pkg.revert();
+			throw new IOException("Failed to read the Excel file " + file.getPath(), e);
+		} catch (IOException | RuntimeException e) {
+			pkg.revert();
+			throw e;
+		}
+	}
+
+	private static ColumnKind kindOf(String fieldType) {
+		if (fieldType.startsWith("varchar") || fieldType.startsWith("geometry")) {
+			return ColumnKind.TEXT;
+		}
+		switch (fieldType) {
+			case "date":
+				return ColumnKind.DATE;
+			case "timestamp":
+				return ColumnKind.TIMESTAMP;
+			case "time":
+				return ColumnKind.TIME;
+			default:
+				return ColumnKind.NUMBER;
+		}
+	}
+
+	private static InputStream openSheet(XSSFReader reader, String sheetName) throws IOException, OpenXML4JException {
+		XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+		while (sheets.hasNext()) {
+			InputStream sheet = sheets.next();
+			if (sheetName == null || sheetName.equals(sheets.getSheetName())) {
+				return sheet;
+			}
+			sheet.close();
+		}
+		throw new IllegalArgumentException(sheetName == null ? "The Excel file has no sheet." : "Sheet " + sheetName + " is not found.");
+	}
+
+	/**
+	 * Returns whether the workbook counts dates from 1904 instead of 1900.
+	 */
+	private static boolean isDate1904(XSSFReader reader) throws IOException, OpenXML4JException, SAXException, ParserConfigurationException {
+		boolean[] date1904 = new boolean[1];
+		try (InputStream workbook = reader.getWorkbookData()) {
+			XMLReader parser = SAXHelper.newXMLReader();
+			parser.setContentHandler(new DefaultHandler() {
+				@Override
+				public void startElement(String uri, String localName, String qName, Attributes attributes) {
+					if ("workbookPr".equals(localName)) {
+						String value = attributes.getValue("date1904");
+						date1904[0] = "1".equals(value) || "true".equals(value);
+					}
+				}
+			});
+			parser.parse(new InputSource(workbook));
+		}
+		return date1904[0];
+	}
+
+	/**
+	 * Read the rows of the sheet into the handler.
+	 * @param hasHeader Whether the first row with a value is a header, it is skipped.
+	 * @return The sum of the results of the handler.
+	 * @throws ParquetConversionException If a row has a value after the last field, or the handler throws it.
+	 */
+	long read(boolean hasHeader, RowHandler handler) throws IOException, ParquetConversionException {
+		SheetHandler sheetHandler = new SheetHandler(hasHeader, handler);
+		try {
+			XMLReader parser = SAXHelper.newXMLReader();
+			parser.setContentHandler(sheetHandler);
+			parser.parse(new InputSource(sheet));
+		} catch (SAXException e) {
+			if (e.getException() instanceof ParquetConversionException) {
+				throw (ParquetConversionException) e.getException();
+			}
+			if (e.getException() instanceof IOException) {
+				throw (IOException) e.getException();
+			}
+			throw new IOException("Failed to read the Excel sheet", e);
+		} catch (ParserConfigurationException e) {
+			throw new IOException("Failed to read the Excel sheet", e);
+		}
+		return sheetHandler.result;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			sheet.close();
+		} finally {
+			//the package is opened to read, revert closes it without saving
+			pkg.revert();
+		}
+	}
+
+	/**
+	 * Returns the canonical value of a numeric cell for its column.
+	 */
+	private String numericValue(String text, int column, int style) {
+		ColumnKind kind = columnKinds[column];
+		if (kind == ColumnKind.NUMBER) {
+			//Excel stores whole numbers without a fraction, other writers store the text of a Java double, such as 1.0 or 1.0E10
+			if (text.endsWith(".0") || text.indexOf('E') >= 0) {
+				try {
+					return new BigDecimal(text).stripTrailingZeros().toPlainString();
+				} catch (NumberFormatException e) {
+					return text;
+				}
+			}
+			return text;
+		}
+		double number;
+		try {
+			number = Double.parseDouble(text);
+		} catch (NumberFormatException e) {
+			return text;
+		}
+		if (kind == ColumnKind.TEXT) {
+			if (!isDateStyle(style)) {
+				return BigDecimal.valueOf(number).stripTrailingZeros().toPlainString();
+			}
+			//a date format without a date part is a time, a whole day is a date
+			kind = number < 1 ? ColumnKind.TIME : number == Math.rint(number) ? ColumnKind.DATE : ColumnKind.TIMESTAMP;
+		}
+		Date date = DateUtil.isValidExcelDate(number) ? DateUtil.getJavaDate(number, date1904, UTC, false) : null;
+		if (date == null) {
+			return text;
+		}
+		switch (kind) {
+			case DATE:
+				return ParquetAvroUtils.dateFormatter.print(date.getTime());
+			case TIME:
+				return TIME_FORMATTER.print(date.getTime());
+			default:
+				return ParquetAvroUtils.timestampFormatter.print(date.getTime());
+		}
+	}
+
+	private boolean isDateStyle(int style) {
+		if (styles == null || style < 0 || style >= styles.getNumCellStyles()) {
+			return false;
+		}
+		Boolean isDate = dateStyles.get(style);
+		if (isDate == null) {
+			XSSFCellStyle cellStyle = styles.getStyleAt(style);
+			isDate = cellStyle != null && DateUtil.isADateFormat(cellStyle.getDataFormat(), cellStyle.getDataFormatString());
+			dateStyles.put(style, isDate);
+		}
+		return isDate;
+	}
+
+	/**
+	 * Returns the index of the column of a cell reference such as "AB12", or -1 if it has no column.
+	 */
+	private static int columnOf(String reference) {
+		int column = 0;
+		int i = 0;
+		for (; i < reference.length(); i++) {
+			char c = reference.charAt(i);
+			if (c < 'A' || c > 'Z') {
+				break;
+			}
+			column = column * 26 + (c - 'A' + 1);
+		}
+		return i == 0 ? -1 : column - 1;
+	}
+
+	private class SheetHandler extends DefaultHandler {
+		private final RowHandler handler;
+		private boolean skipHeader;
+		private final String[] record = new String[columnKinds.length];
+		private boolean rowHasValue;
+		private long result;
+
+		//the state of the current cell
+		private int column = -1;
+		private String type;
+		private int style;
+		private boolean inValue;
+		private boolean inInlineString;
+		private boolean inPhonetic;
+		private final StringBuilder text = new StringBuilder();
+
+		SheetHandler(boolean hasHeader, RowHandler handler) {
+			this.skipHeader = hasHeader;
+			this.handler = handler;
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes attributes) {
+			switch (localName) {
+				case "row":
+					Arrays.fill(record, null);
+					rowHasValue = false;
+					column = -1;
+					break;
+				case "c":
+					String reference = attributes.getValue("r");
+					int referencedColumn = reference == null ? -1 : columnOf(reference);
+					column = referencedColumn < 0 ? column + 1 : referencedColumn;
+					type = attributes.getValue("t");
+					String styleIndex = attributes.getValue("s");
+					style = styleIndex == null ? 0 : Integer.parseInt(styleIndex);
+					text.setLength(0);
+					break;
+				case "v":
+					inValue = true;
+					break;
+				case "is":
+					inInlineString = true;
+					break;
+				case "rPh":
+					inPhonetic = true;
+					break;
+				case "t":
+					inValue = inInlineString && !inPhonetic;
+					break;
+				default:
+					break;
+			}
+		}
+
+		@Override
+		public void characters(char[] ch, int start, int length) {
+			if (inValue) {
+				text.append(ch, start, length);
+			}
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String qName) throws SAXException {
+			switch (localName) {
+				case "v":
+				case "t":
+					inValue = false;
+					break;
+				case "is":
+					inInlineString = false;
+					break;
+				case "rPh":
+					inPhonetic = false;
+					break;
+				case "c":
+					endCell();
+					break;
+				case "row":
+					endRow();
+					break;
+				default:
+					break;
+			}
+		}
+
+		private void endCell() throws SAXException {
+			String value = cellValue();
+			if (value == null) {
+				return;
+			}
+			if (column >= record.length) {
+				if (value.isEmpty()) {
+					return;
+				}
+				throw new SAXException(new ParquetConversionException("Data columns do not match the field metadata columns.", ParquetConversionException.ErrorCode.DATA_LENGTH_ERROR));
+			}
+			record[column] = value;
+			rowHasValue = true;
+		}
+
+		/**
+		 * Returns the canonical value of the current cell, or null if the cell has no value, such as a styled empty cell.
+		 */
+		private String cellValue() {
+			if (type == null || "n".equals(type)) {
+				if (text.length() == 0) {
+					return null;
+				}
+				return column < record.length ? numericValue(text.toString(), column, style) : text.toString();
+			}
+			switch (type) {
+				case "s":
+					if (text.length() == 0) {
+						return null;
+					}
+					return sharedStrings.getItemAt(Integer.parseInt(text.toString().trim())).getString();
+				case "b":
+					if (text.length() == 0) {
+						return null;
+					}
+					boolean value = "1".equals(text.toString());
+					return column < record.length && columnKinds[column] == ColumnKind.TEXT ? (value ? "TRUE" : "FALSE") : (value ? "1" : "0");
+				default:
+					//inline strings, formula strings and errors are kept as they are
+					return text.toString();
+			}
+		}
+
+		private void endRow() throws SAXException {
+			if (!rowHasValue) {
+				return;
+			}
+			if (skipHeader) {
+				skipHeader = false;
+				return;
+			}
+			try {
+				result += handler.handle(record);
+			} catch (IOException | ParquetConversionException e) {
+				throw new SAXException(e);
+			}
+		}
+	}
+}
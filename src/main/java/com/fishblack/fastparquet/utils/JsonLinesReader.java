@@ -0,0 +1,142 @@
+package com.fishblack.fastparquet.utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fishblack.fastparquet.common.FieldMetadata;
+import com.fishblack.fastparquet.writer.ParquetDataWriter;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a JSON Lines file, one JSON object per line, with the streaming Jackson parser and sets the values of each
+ * object into a typed row of a ParquetDataWriter, without building a tree of the object or a record of strings.
+ * The keys of an object are the field names, keys of no field are skipped and fields without a key are null.
+ * A JSON integer of an integer field and a JSON number of a double field are set as typed values, any other value is
+ * set by its text and converted like a canonical value, so a string such as "2020-01-31" fills a date field.
+ * A nested object or array is set as its JSON text, which only a varchar field accepts.
+ */
+final class JsonLinesReader implements Closeable {
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	private enum ColumnKind {
+		INTEGER, DOUBLE, OTHER
+	}
+
+	private final JsonParser parser;
+	private final ColumnKind[] columnKinds;
+	private final Map<String, Integer> columns = new HashMap<>();
+
+	JsonLinesReader(File file, List<FieldMetadata> fields) throws IOException {
+		columnKinds = new ColumnKind[fields.size()];
+		for (int i = 0; i < columnKinds.length; i++) {
+			FieldMetadata field = fields.get(i);
+			columnKinds[i] = kindOf(field.getFieldType());
+			columns.put(field.getFieldName(), i);
+		}
+		parser = JSON_FACTORY.createParser(file);
+	}
+
+	private static ColumnKind kindOf(String fieldType) {
+		if (fieldType.equals("double")) {
+			return ColumnKind.DOUBLE;
+		}
+		//the types of SchemaConverter which are not an int are named, see SchemaConverter
+		if (fieldType.startsWith("varchar") || fieldType.startsWith("geometry") || fieldType.startsWith("number")
+				|| fieldType.equals("date") || fieldType.equals("time") || fieldType.equals("timestamp")) {
+			return ColumnKind.OTHER;
+		}
+		return ColumnKind.INTEGER;
+	}
+
+	/**
+	 * Write the objects of the file as rows of the writer.
+	 * @return number of rows actually written
+	 * @throws IllegalArgumentException If a line is not a JSON object, the rows before it are written.
+	 */
+	long read(ParquetDataWriter writer) throws IOException {
+		long rows = 0;
+		JsonToken token;
+		while ((token = parser.nextToken()) != null) {
+			if (token != JsonToken.START_OBJECT) {
+				throw new IllegalArgumentException("The value at line " + parser.getCurrentLocation().getLineNr() + " is not a JSON object.");
+			}
+			String name;
+			while ((name = parser.nextFieldName()) != null) {
+				JsonToken valueToken = parser.nextToken();
+				Integer column = columns.get(name);
+				if (column == null) {
+					parser.skipChildren();
+				} else {
+					setValue(writer, column, valueToken);
+				}
+			}
+			rows += writer.endRow();
+		}
+		return rows;
+	}
+
+	private void setValue(ParquetDataWriter writer, int column, JsonToken token) throws IOException {
+		switch (token) {
+			case VALUE_NULL:
+				writer.setNull(column);
+				return;
+			case VALUE_NUMBER_INT:
+				if (columnKinds[column] == ColumnKind.INTEGER && parser.getNumberType() == JsonParser.NumberType.INT) {
+					writer.setInt(column, parser.getIntValue());
+					return;
+				}
+				//a double field takes an integer as well
+				setNumber(writer, column);
+				return;
+			case VALUE_NUMBER_FLOAT:
+				setNumber(writer, column);
+				return;
+			case START_OBJECT:
+			case START_ARRAY:
+				writer.setString(column, structureText());
+				return;
+			default:
+				writer.setString(column, parser.getText());
+		}
+	}
+
+	/**
+	 * Set the number at the current token as a double for a double field, otherwise as its text for the converter.
+	 */
+	private void setNumber(ParquetDataWriter writer, int column) throws IOException {
+		if (columnKinds[column] == ColumnKind.DOUBLE) {
+			double value = parser.getDoubleValue();
+			//an out of range value is left to the converter to reject
+			if (!Double.isInfinite(value)) {
+				writer.setDouble(column, value);
+				return;
+			}
+		}
+		writer.setString(column, parser.getText());
+	}
+
+	/**
+	 * Returns the JSON text of the nested object or array at the current token, the parser is moved to its end.
+	 */
+	private String structureText() throws IOException {
+		StringWriter text = new StringWriter();
+		try (JsonGenerator generator = JSON_FACTORY.createGenerator(text)) {
+			generator.copyCurrentStructure(parser);
+		}
+		return text.toString();
+	}
+
+	@Override
+	public void close() throws IOException {
+		parser.close();
+	}
+}
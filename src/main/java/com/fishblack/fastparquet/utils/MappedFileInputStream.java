@@ -0,0 +1,116 @@
+package com.fishblack.fastparquet.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a local file through read-only memory mappings of consecutive windows of the file, the bytes are copied
+ * straight from the page cache into the caller's array, without a read system call and the intermediate native buffer
+ * of a FileInputStream. The windows are mapped strictly in file order, so the kernel sees sequential page faults and
+ * reads ahead. Java has no call to unmap a window, the window before is dropped when the next one is mapped and the
+ * garbage collector unmaps it. A read never spans two windows, a reader which needs more bytes, such as for a record
+ * which crosses the end of a window, reads again.
+ * The length of the file is taken when it is opened, bytes appended later are not read.
+ */
+public class MappedFileInputStream extends InputStream {
+
+	public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+	private final FileChannel channel;
+	private final long size;
+	private final int windowSize;
+	//the file position of the start of the next window
+	private long nextWindow;
+	private MappedByteBuffer window;
+
+	public MappedFileInputStream(File file) throws IOException {
+		this(file, DEFAULT_WINDOW_SIZE);
+	}
+
+	public MappedFileInputStream(File file, int windowSize) throws IOException {
+		if (windowSize < 1) {
+			throw new IllegalArgumentException("Window size must be positive: " + windowSize);
+		}
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		try {
+			this.size = channel.size();
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		this.windowSize = windowSize;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (!hasRemaining()) {
+			return -1;
+		}
+		return window.get() & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (off < 0 || len < 0 || len > b.length - off) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (len == 0) {
+			return 0;
+		}
+		if (!hasRemaining()) {
+			return -1;
+		}
+		int count = Math.min(len, window.remaining());
+		window.get(b, off, count);
+		return count;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		if (n <= 0) {
+			return 0;
+		}
+		long remaining = window == null ? 0 : window.remaining();
+		if (n <= remaining) {
+			window.position(window.position() + (int) n);
+			return n;
+		}
+		//skip the rest of the window and start the next window at the new position
+		long skipped = Math.min(n, remaining + size - nextWindow);
+		nextWindow += skipped - remaining;
+		window = null;
+		return skipped;
+	}
+
+	@Override
+	public int available() throws IOException {
+		long remaining = (window == null ? 0 : window.remaining()) + size - nextWindow;
+		return (int) Math.min(remaining, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public void close() throws IOException {
+		window = null;
+		channel.close();
+	}
+
+	/**
+	 * Map the next window when the current one is read, returns false at the end of the file.
+	 */
+	private boolean hasRemaining() throws IOException {
+		if (window != null && window.hasRemaining()) {
+			return true;
+		}
+		if (nextWindow >= size) {
+			return false;
+		}
+		int length = (int) Math.min(windowSize, size - nextWindow);
+		window = channel.map(FileChannel.MapMode.READ_ONLY, nextWindow, length);
+		nextWindow += length;
+		return true;
+	}
+}
@@ -49,6 +49,9 @@ public class ParquetAvroUtils {
 	//used for formatting, remove the scientific notation
 	public static final NumberFormat numberFormatter = new DecimalFormat();
 	
+	//DecimalFormat is not thread safe, each thread formats doubles with its own copy of numberFormatter
+	private static final ThreadLocal<NumberFormat> threadNumberFormatter = ThreadLocal.withInitial(() -> (NumberFormat) numberFormatter.clone());
+	
 	//used for parsing double, handles both with or without comma
 	public static final NumberFormat numberParser = new DecimalFormat();
 	
@@ -158,7 +161,7 @@ public class ParquetAvroUtils {
 			String val;
 			if(type.equals(Schema.Type.DOUBLE)) {
 				Double dval = (Double)fieldValue;
-				val = numberFormatter.format(dval);
+				val = threadNumberFormatter.get().format(dval);
 				
 				//a workaround to remove the trailing ".0" when the actual data is an integer or long but data type is double in type-options
 				val = POINT_ZERO_PATTERN.matcher(val).replaceAll(EMPTY_STRING);
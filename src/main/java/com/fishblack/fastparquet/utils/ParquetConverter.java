@@ -3,10 +3,7 @@ package com.fishblack.fastparquet.utils;
 import com.fishblack.fastparquet.common.FieldMetadata;
 import com.fishblack.fastparquet.common.ParquetConversionException;
 import com.fishblack.fastparquet.writer.ParquetDataWriter;
-import com.opencsv.CSVParserBuilder;
-import com.opencsv.CSVReader;
-import com.opencsv.CSVReaderBuilder;
-import com.opencsv.exceptions.CsvValidationException;
+import com.fishblack.fastparquet.writer.ParquetWriteOptions;
 import org.apache.avro.Conversions;
 import org.apache.avro.data.TimeConversions;
 import org.apache.avro.generic.GenericData;
@@ -21,7 +18,6 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.util.List;
@@ -42,18 +38,95 @@ public class ParquetConverter {
 		}
 	}
 
+	/**
+	 * Convert the canonical CSV file into a parquet file, parsing and converting ranges of the file on parallelism threads.
+	 * The rows are written in the order of the file and the convert result is the same as of a sequential conversion.
+	 * @param options The writer options, the asynchronous writer cannot be used with a parallelism above 1.
+	 * @param parallelism The number of threads which parse and convert the file, 1 converts it on the calling thread.
+	 */
+	public static long canonicalToParquet(File file, List<FieldMetadata> fields, boolean hasHeader, String parquetPath, Map<String, String> extraMetadata,
+	                                      ParquetWriteOptions options, int parallelism) throws ParquetConversionException, FileNotFoundException {
+		return canonicalToParquet(file, fields, hasHeader, parquetPath, extraMetadata, options, parallelism, false);
+	}
+
+	/**
+	 * Convert the canonical CSV file into a parquet file like the method above.
+	 * @param memoryMapped Whether the file is read through memory mapped windows, see MappedFileInputStream, which
+	 *                     saves the read system calls and a copy of the data on large local files.
+	 */
+	public static long canonicalToParquet(File file, List<FieldMetadata> fields, boolean hasHeader, String parquetPath, Map<String, String> extraMetadata,
+	                                      ParquetWriteOptions options, int parallelism, boolean memoryMapped) throws ParquetConversionException, FileNotFoundException {
+		if (parallelism <= 1) {
+			InputStream is = null;
+			try {
+				is = openFile(file, memoryMapped);
+				return canonicalToParquet(is, hasHeader, () -> new ParquetDataWriter(fields, parquetPath, extraMetadata, options));
+			} finally {
+				close(is);
+			}
+		}
+		if (!file.isFile()) {
+			throw new FileNotFoundException(file.getPath());
+		}
+		ParquetDataWriter writer = null;
+		try {
+			writer = new ParquetDataWriter(fields, parquetPath, extraMetadata, options);
+			long rows = writer.writeCanonicalFile(file, hasHeader, parallelism, memoryMapped);
+			//the rows buffered by the parallel writer, the footer and the page index are written by close(), so its
+			//error fails the conversion, the writer is not closed again in finally
+			ParquetDataWriter written = writer;
+			writer = null;
+			written.close();
+			return rows;
+		}
+		catch (IOException ex) {
+			logger.log(Level.SEVERE, ex.getMessage(), ex);
+			throw new ParquetConversionException("Error occurs when converting to parquet file", ParquetConversionException.ErrorCode.IO_EXCEPTION, ex);
+		}
+		finally {
+			close(writer);
+		}
+	}
+
+	private static InputStream openFile(File file, boolean memoryMapped) throws ParquetConversionException, FileNotFoundException {
+		if (!memoryMapped) {
+			return new FileInputStream(file);
+		}
+		if (!file.isFile()) {
+			throw new FileNotFoundException(file.getPath());
+		}
+		try {
+			return new MappedFileInputStream(file);
+		}
+		catch (IOException ex) {
+			logger.log(Level.SEVERE, ex.getMessage(), ex);
+			throw new ParquetConversionException("Error occurs when converting to parquet file", ParquetConversionException.ErrorCode.IO_EXCEPTION, ex);
+		}
+	}
+
 	public static long canonicalToParquet(InputStream in, List<FieldMetadata> fields, String parquetPath, Map<String, String> extraMetadata) throws ParquetConversionException {
 		return canonicalToParquet(in, fields,  false, parquetPath, extraMetadata);
 	}
 
 	public static long canonicalToParquet(InputStream in, List<FieldMetadata> fields, boolean hasHeader, String parquetPath, Map<String, String> extraMetadata ) throws ParquetConversionException  {
+		return canonicalToParquet(in, hasHeader, () -> new ParquetDataWriter(fields, parquetPath, extraMetadata));
+	}
+
+	/**
+	 * Convert the canonical CSV data into parquet data written to the output stream, without a local file.
+	 * The output stream is flushed but not closed.
+	 */
+	public static long canonicalToParquet(InputStream in, List<FieldMetadata> fields, boolean hasHeader, OutputStream out, Map<String, String> extraMetadata) throws ParquetConversionException {
+		return canonicalToParquet(in, hasHeader, () -> new ParquetDataWriter(fields, out, extraMetadata, new ParquetWriteOptions()));
+	}
+
+	private static long canonicalToParquet(InputStream in, boolean hasHeader, WriterFactory writerFactory) throws ParquetConversionException {
         long rows = 0;
         ParquetDataWriter writer = null;
-        CSVReader reader = null;
+        CanonicalCsvReader reader = null;
         try {
-            writer = new ParquetDataWriter(fields, parquetPath, extraMetadata);
-            reader = new CSVReaderBuilder(new InputStreamReader(in, ParquetAvroUtils.DEFAULT_ENCODING))
-                    .withCSVParser(new CSVParserBuilder().withEscapeChar(ParquetAvroUtils.ESCAPE_CHARACTER).build()).build();
+            writer = writerFactory.open();
+            reader = new CanonicalCsvReader(in);
 
 			String[] nextLine = reader.readNext();
 			if (hasHeader) {
@@ -68,8 +141,13 @@ public class ParquetConverter {
                 rows = rows + writer.write(nextLine);
 				nextLine = reader.readNext();
 			}
+			//the rows buffered by an asynchronous writer, the footer and the page index are written by close(), so its
+			//error fails the conversion, the writer is not closed again in finally
+			ParquetDataWriter written = writer;
+			writer = null;
+			written.close();
 		}
-		catch (IOException | CsvValidationException ex) {
+		catch (IOException ex) {
 			logger.log(Level.SEVERE, ex.getMessage(), ex);
 			throw new ParquetConversionException("Error occurs when converting to parquet file", ParquetConversionException.ErrorCode.IO_EXCEPTION, ex);
 		}
@@ -79,6 +157,99 @@ public class ParquetConverter {
 		return rows;
 	}
 
+	/**
+	 * Convert the first sheet of the Excel .xlsx file into a parquet file.
+	 * @see #excelToParquet(File, String, List, boolean, String, Map, ParquetWriteOptions)
+	 */
+	public static long excelToParquet(File file, List<FieldMetadata> fields, boolean hasHeader, String parquetPath, Map<String, String> extraMetadata) throws ParquetConversionException, FileNotFoundException {
+		return excelToParquet(file, null, fields, hasHeader, parquetPath, extraMetadata, new ParquetWriteOptions());
+	}
+
+	/**
+	 * Convert a sheet of the Excel .xlsx file into a parquet file. The sheet is streamed row by row into the writer,
+	 * so the memory does not depend on the size of the sheet. The columns of the sheet are the fields in order, the cell
+	 * values are converted to the field types like canonical CSV values, and rows without any value are skipped.
+	 * @param sheetName The name of the sheet, or null for the first sheet.
+	 * @param hasHeader Whether the first row with a value is a header.
+	 * @return number of rows actually written
+	 * @throws ParquetConversionException If a row has a value after the last field, the rows before it are written.
+	 */
+	public static long excelToParquet(File file, String sheetName, List<FieldMetadata> fields, boolean hasHeader, String parquetPath, Map<String, String> extraMetadata,
+	                                  ParquetWriteOptions options) throws ParquetConversionException, FileNotFoundException {
+		if (!file.isFile()) {
+			throw new FileNotFoundException(file.getPath());
+		}
+		ParquetDataWriter writer = null;
+		ExcelSheetReader reader = null;
+		try {
+			reader = new ExcelSheetReader(file, sheetName, fields);
+			writer = new ParquetDataWriter(fields, parquetPath, extraMetadata, options);
+			long rows = reader.read(hasHeader, writer::write);
+			//the footer and the page index are written by close(), so its error fails the conversion
+			ParquetDataWriter written = writer;
+			writer = null;
+			written.close();
+			return rows;
+		}
+		catch (IllegalArgumentException ex) {
+			throw new ParquetConversionException(ex.getMessage(), ParquetConversionException.ErrorCode.ILLEGAL_ARGUMENT, ex);
+		}
+		catch (IOException ex) {
+			logger.log(Level.SEVERE, ex.getMessage(), ex);
+			throw new ParquetConversionException("Error occurs when converting to parquet file", ParquetConversionException.ErrorCode.IO_EXCEPTION, ex);
+		}
+		finally {
+			close(reader, writer);
+		}
+	}
+
+	/**
+	 * Convert a JSON Lines file into a parquet file with the default write options.
+	 * @see #jsonLinesToParquet(File, List, String, Map, ParquetWriteOptions)
+	 */
+	public static long jsonLinesToParquet(File file, List<FieldMetadata> fields, String parquetPath, Map<String, String> extraMetadata) throws ParquetConversionException, FileNotFoundException {
+		return jsonLinesToParquet(file, fields, parquetPath, extraMetadata, new ParquetWriteOptions());
+	}
+
+	/**
+	 * Convert a JSON Lines file, one JSON object per line, into a parquet file. The objects are streamed token by token
+	 * into the typed rows of the writer, the keys are the field names and fields without a key are null.
+	 * @return number of rows actually written
+	 * @throws ParquetConversionException If a line is not a JSON object, the rows before it are written. The typed rows
+	 * are not available with an asynchronous writer, see ParquetWriteOptions.withAsyncBufferSize().
+	 */
+	public static long jsonLinesToParquet(File file, List<FieldMetadata> fields, String parquetPath, Map<String, String> extraMetadata,
+	                                      ParquetWriteOptions options) throws ParquetConversionException, FileNotFoundException {
+		if (!file.isFile()) {
+			throw new FileNotFoundException(file.getPath());
+		}
+		if (options.getAsyncBufferSize() > 0) {
+			throw new ParquetConversionException("JSON Lines cannot be converted by an asynchronous writer.", ParquetConversionException.ErrorCode.ILLEGAL_ARGUMENT);
+		}
+		ParquetDataWriter writer = null;
+		JsonLinesReader reader = null;
+		try {
+			reader = new JsonLinesReader(file, fields);
+			writer = new ParquetDataWriter(fields, parquetPath, extraMetadata, options);
+			long rows = reader.read(writer);
+			//the footer and the page index are written by close(), so its error fails the conversion
+			ParquetDataWriter written = writer;
+			writer = null;
+			written.close();
+			return rows;
+		}
+		catch (IllegalArgumentException ex) {
+			throw new ParquetConversionException(ex.getMessage(), ParquetConversionException.ErrorCode.ILLEGAL_ARGUMENT, ex);
+		}
+		catch (IOException ex) {
+			logger.log(Level.SEVERE, ex.getMessage(), ex);
+			throw new ParquetConversionException("Error occurs when converting to parquet file", ParquetConversionException.ErrorCode.IO_EXCEPTION, ex);
+		}
+		finally {
+			close(reader, writer);
+		}
+	}
+
 	public static long parquetToCanonical(String parquetPath, OutputStream os, long maxRows) throws IOException {
 		return parquetToCanonical(parquetPath, os, maxRows, -1);
 	}
@@ -119,6 +290,10 @@ public class ParquetConverter {
 		}
 	}
 
+	/**
+	 * Close the closeables and log their errors, it is only for the resources of a failed conversion, or ones whose
+	 * errors do not affect the result.
+	 */
 	static void close(Closeable... closeables) {
 		if (closeables != null) {
 			for (Closeable c : closeables) {
@@ -133,4 +308,7 @@ public class ParquetConverter {
 		}
 	}
 
+	private interface WriterFactory {
+		ParquetDataWriter open() throws IOException;
+	}
 }
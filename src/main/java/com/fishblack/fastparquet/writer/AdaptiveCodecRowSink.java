@@ -0,0 +1,204 @@
+package com.fishblack.fastparquet.writer;
+
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.page.DataPage;
+import org.apache.parquet.column.page.DataPageV1;
+import org.apache.parquet.column.page.DataPageV2;
+import org.apache.parquet.column.page.DictionaryPage;
+import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.column.page.PageReader;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.OutputFile;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A RowSink which picks the compression codec of the output file from a sample of the data.
+ * The first rows, up to the sample size, are buffered and trial-encoded into in-memory parquet files with each
+ * candidate codec. The codec which best meets the compression goal is used to open the sink of the output file, the
+ * sampled rows are then replayed into it and all further rows are passed through.
+ * A candidate which cannot be used, such as a codec which needs a native library that is not loaded, is skipped.
+ */
+class AdaptiveCodecRowSink implements RowSink {
+	private static final Logger logger = Logger.getLogger(AdaptiveCodecRowSink.class.getName());
+
+	/**
+	 * Decode timings of the sample are noisy, the best of a few runs is taken.
+	 */
+	private static final int DECODE_RUNS = 3;
+
+	/**
+	 * Candidates which decode within this ratio of the fastest one are considered as fast, the smaller one wins.
+	 */
+	private static final double DECODE_TIME_TOLERANCE = 1.1;
+
+	private final RowSink.Factory trialSinkFactory;
+	private final RowSink.Factory outputSinkFactory;
+	private final OutputFile outputFile;
+	private final ParquetWriteOptions.CompressionGoal goal;
+	private final List<CompressionCodecName> candidates;
+	private final long sampleSize;
+	private RowBatch sample;
+	private RowSink delegate;
+	private Map<String, String> extraMetaData;
+
+	AdaptiveCodecRowSink(RowSink.Factory trialSinkFactory, RowSink.Factory outputSinkFactory, OutputFile outputFile, int columnCount,
+	                     ParquetWriteOptions.CompressionGoal goal, List<CompressionCodecName> candidates, long sampleSize) {
+		this.trialSinkFactory = trialSinkFactory;
+		this.outputSinkFactory = outputSinkFactory;
+		this.outputFile = outputFile;
+		this.goal = goal;
+		this.candidates = candidates;
+		this.sampleSize = sampleSize;
+		this.sample = new RowBatch(columnCount);
+	}
+
+	@Override
+	public void write(ParquetRow row) throws IOException {
+		if (delegate != null) {
+			delegate.write(row);
+			return;
+		}
+		sample.add(row);
+		if (sample.getEstimatedSize() >= sampleSize) {
+			openDelegate();
+		}
+	}
+
+	@Override
+	public void setExtraMetaData(Map<String, String> extraMetaData) {
+		this.extraMetaData = extraMetaData;
+		if (delegate != null) {
+			delegate.setExtraMetaData(extraMetaData);
+		}
+	}
+
+	@Override
+	public long getDataSize() {
+		return delegate == null ? sample.getEstimatedSize() : delegate.getDataSize();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (delegate == null) {
+			openDelegate();
+		}
+		if (extraMetaData != null) {
+			delegate.setExtraMetaData(extraMetaData);
+		}
+		delegate.close();
+	}
+
+	private void openDelegate() throws IOException {
+		delegate = outputSinkFactory.open(outputFile, selectCodec());
+		for (int i = 0; i < sample.size(); i++) {
+			delegate.write(sample.get(i));
+		}
+		sample = null;
+	}
+
+	private CompressionCodecName selectCodec() throws IOException {
+		CompressionCodecName best = null;
+		long bestSize = Long.MAX_VALUE;
+		long bestDecodeNanos = Long.MAX_VALUE;
+		for (CompressionCodecName codec : candidates) {
+			InMemoryOutputFile file = new InMemoryOutputFile((int) Math.min(sample.getEstimatedSize() + 1024, Integer.MAX_VALUE - 8));
+			long decodeNanos = Long.MAX_VALUE;
+			try {
+				try (RowSink trialSink = trialSinkFactory.open(file, codec)) {
+					for (int i = 0; i < sample.size(); i++) {
+						trialSink.write(sample.get(i));
+					}
+				}
+				if (goal == ParquetWriteOptions.CompressionGoal.FASTEST_DECODE) {
+					for (int run = 0; run < DECODE_RUNS; run++) {
+						decodeNanos = Math.min(decodeNanos, decode(file.toInputFile()));
+					}
+				}
+			} catch (IOException | RuntimeException e) {
+				logger.log(Level.FINE, "Compression codec " + codec + " is not available, skip it.", e);
+				continue;
+			}
+			long size = file.size();
+			logger.fine("Compression codec " + codec + " encodes the sample into " + size + " bytes, decodes it in " + decodeNanos + " ns.");
+
+			boolean isBetter;
+			if (goal == ParquetWriteOptions.CompressionGoal.FASTEST_DECODE) {
+				if (decodeNanos * DECODE_TIME_TOLERANCE < bestDecodeNanos) {
+					isBetter = true;
+				} else {
+					isBetter = decodeNanos < bestDecodeNanos * DECODE_TIME_TOLERANCE && size < bestSize;
+				}
+			} else {
+				isBetter = size < bestSize;
+			}
+			if (isBetter) {
+				best = codec;
+				bestSize = size;
+				bestDecodeNanos = decodeNanos;
+			}
+		}
+		if (best == null) {
+			throw new IOException("None of the compression codecs " + candidates + " is available.");
+		}
+		logger.fine("Compression codec " + best + " is selected for goal " + goal + ".");
+		return best;
+	}
+
+	/**
+	 * Read and decompress all pages of the trial file.
+	 * @return The time spent in nanoseconds.
+	 */
+	private static long decode(InputFile file) throws IOException {
+		long start = System.nanoTime();
+		try (ParquetFileReader reader = ParquetFileReader.open(file)) {
+			List<ColumnDescriptor> columns = reader.getFileMetaData().getSchema().getColumns();
+			PageReadStore rowGroup;
+			while ((rowGroup = reader.readNextRowGroup()) != null) {
+				for (ColumnDescriptor column : columns) {
+					PageReader pageReader = rowGroup.getPageReader(column);
+					DictionaryPage dictionaryPage = pageReader.readDictionaryPage();
+					if (dictionaryPage != null) {
+						dictionaryPage.getBytes().toByteArray();
+					}
+					DataPage page;
+					while ((page = pageReader.readPage()) != null) {
+						page.accept(PAGE_DECOMPRESSOR);
+					}
+				}
+			}
+		}
+		return System.nanoTime() - start;
+	}
+
+	/**
+	 * Pages are decompressed lazily, reading out their bytes forces the decompression.
+	 */
+	private static final DataPage.Visitor<Void> PAGE_DECOMPRESSOR = new DataPage.Visitor<Void>() {
+		@Override
+		public Void visit(DataPageV1 page) {
+			try {
+				page.getBytes().toByteArray();
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+			return null;
+		}
+
+		@Override
+		public Void visit(DataPageV2 page) {
+			try {
+				page.getData().toByteArray();
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+			return null;
+		}
+	};
+}
@@ -0,0 +1,162 @@
+package com.fishblack.fastparquet.writer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded ring buffer of rows which are handed from the producer to a background thread.
+ * The slots are allocated once and the field values of a row are copied into a free slot, so the producer may reuse
+ * its array when put() returns. The background thread takes all rows available at a time and passes them to the
+ * handler, the handled slots are released to the producer in steps of an eighth of the capacity.
+ * An error of the handler stops the background thread, it is rethrown to the producer by the next put() or by close().
+ */
+class AsyncRowQueue implements Closeable {
+
+	private static final AtomicInteger THREAD_NUMBER = new AtomicInteger(1);
+
+	/**
+	 * Processes one row on the background thread.
+	 */
+	interface RowHandler {
+		void handle(String[] data) throws Exception;
+	}
+
+	private final String[][] slots;
+	private final int releaseInterval;
+	private final RowHandler handler;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+	private final Condition notFull = lock.newCondition();
+	private final Thread thread;
+	private long head;
+	private long tail;
+	private boolean closed;
+	private Throwable error;
+
+	AsyncRowQueue(int capacity, int columnCount, RowHandler handler) {
+		this.slots = new String[capacity][columnCount];
+		//handled slots are released in steps, so a full buffer does not wait for the whole batch to be handled
+		this.releaseInterval = Math.max(1, capacity / 8);
+		this.handler = handler;
+		this.thread = new Thread(this::drain, "fastparquet-async-writer-" + THREAD_NUMBER.getAndIncrement());
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * Copy the row into the buffer, waits while the buffer is full.
+	 * @throws IOException If the background thread failed to handle a row, or the wait is interrupted.
+	 */
+	void put(String[] data) throws IOException {
+		lock.lock();
+		try {
+			while (tail - head == slots.length && error == null) {
+				notFull.await();
+			}
+			checkError();
+			System.arraycopy(data, 0, slots[(int) (tail % slots.length)], 0, data.length);
+			tail++;
+			notEmpty.signal();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for the asynchronous writer", e);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Wait until all rows in the buffer are handled and stop the background thread.
+	 * @throws IOException If the background thread failed to handle a row, or the wait is interrupted.
+	 */
+	@Override
+	public void close() throws IOException {
+		lock.lock();
+		try {
+			closed = true;
+			notEmpty.signal();
+		} finally {
+			lock.unlock();
+		}
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for the asynchronous writer", e);
+		}
+		lock.lock();
+		try {
+			checkError();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Give the handled slots back to the producer.
+	 */
+	private void release(long newHead) {
+		lock.lock();
+		try {
+			head = newHead;
+			notFull.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void checkError() throws IOException {
+		if (error != null) {
+			if (error instanceof IOException) {
+				throw new IOException(error.getMessage(), error);
+			}
+			throw new IOException("Asynchronous write failed: " + error, error);
+		}
+	}
+
+	private void drain() {
+		try {
+			while (true) {
+				long first;
+				long last;
+				lock.lock();
+				try {
+					while (head == tail && !closed) {
+						notEmpty.await();
+					}
+					if (head == tail) {
+						return;
+					}
+					first = head;
+					last = tail;
+				} finally {
+					lock.unlock();
+				}
+
+				//the slots between head and tail are not touched by the producer until head moves past them
+				long released = first;
+				for (long i = first; i < last; i++) {
+					String[] slot = slots[(int) (i % slots.length)];
+					handler.handle(slot);
+					Arrays.fill(slot, null);
+					if (i + 1 - released >= releaseInterval || i + 1 == last) {
+						released = i + 1;
+						release(released);
+					}
+				}
+			}
+		} catch (Throwable t) {
+			lock.lock();
+			try {
+				error = t;
+				notFull.signal();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+}
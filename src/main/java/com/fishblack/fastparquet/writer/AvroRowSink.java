@@ -0,0 +1,51 @@
+package com.fishblack.fastparquet.writer;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.parquet.hadoop.ParquetWriter;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Writes converted rows as Avro GenericData.Record through FastAvroWriteSupport.
+ */
+class AvroRowSink implements RowSink {
+
+	private final ParquetWriter<GenericData.Record> writer;
+	private final FastAvroWriteSupport<GenericData.Record> writeSupport;
+	private final ColumnConverter[] converters;
+	private final GenericData.Record avroRecord;
+
+	AvroRowSink(ParquetWriter<GenericData.Record> writer, FastAvroWriteSupport<GenericData.Record> writeSupport,
+	            Schema schema, ColumnConverter[] converters) {
+		this.writer = writer;
+		this.writeSupport = writeSupport;
+		this.converters = converters;
+		//AvroWriteSupport consumes the record before write returns, so one record is reused for all rows
+		this.avroRecord = new GenericData.Record(schema);
+	}
+
+	@Override
+	public void write(ParquetRow row) throws IOException {
+		for (int j = 0; j < converters.length; j++) {
+			avroRecord.put(j, converters[j].toAvroValue(row, j));
+		}
+		writer.write(avroRecord);
+	}
+
+	@Override
+	public void setExtraMetaData(Map<String, String> extraMetaData) {
+		writeSupport.setExtraMetaData(extraMetaData);
+	}
+
+	@Override
+	public long getDataSize() {
+		return writer.getDataSize();
+	}
+
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+}
@@ -0,0 +1,128 @@
+package com.fishblack.fastparquet.writer;
+
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.PositionOutputStream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * An OutputFile which keeps the written parquet data in a growable ByteBuffer, on the heap or off-heap in a direct buffer.
+ * After the parquet writer is closed the data is available through getByteBuffer() without a copy, or through toByteArray().
+ * The buffer is limited to 2GB.
+ */
+public class BufferOutputFile implements OutputFile {
+
+	/**
+	 * The default initial capacity of the buffer.
+	 */
+	public static final int DEFAULT_INITIAL_CAPACITY = 1024 * 1024;
+
+	private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+	private final boolean direct;
+	private ByteBuffer buffer;
+
+	public BufferOutputFile() {
+		this(DEFAULT_INITIAL_CAPACITY, false);
+	}
+
+	/**
+	 * @param initialCapacity The initial capacity of the buffer, it is doubled when it is full.
+	 * @param direct Allocate the buffer off-heap.
+	 */
+	public BufferOutputFile(int initialCapacity, boolean direct) {
+		if (initialCapacity < 1) {
+			throw new IllegalArgumentException("Initial capacity must be positive: " + initialCapacity);
+		}
+		this.direct = direct;
+		this.buffer = allocate(initialCapacity);
+	}
+
+	@Override
+	public PositionOutputStream create(long blockSizeHint) throws IOException {
+		if (buffer.position() > 0) {
+			throw new IOException("The buffer has already been written");
+		}
+		return new BufferOutputStream();
+	}
+
+	@Override
+	public PositionOutputStream createOrOverwrite(long blockSizeHint) throws IOException {
+		buffer.clear();
+		return new BufferOutputStream();
+	}
+
+	@Override
+	public boolean supportsBlockSize() {
+		return false;
+	}
+
+	@Override
+	public long defaultBlockSize() {
+		return 0;
+	}
+
+	/**
+	 * Returns the number of bytes written.
+	 */
+	public int size() {
+		return buffer.position();
+	}
+
+	/**
+	 * Returns a read-only view of the written bytes, from position 0 to size().
+	 */
+	public ByteBuffer getByteBuffer() {
+		ByteBuffer view = buffer.asReadOnlyBuffer();
+		view.flip();
+		return view;
+	}
+
+	/**
+	 * Returns a copy of the written bytes.
+	 */
+	public byte[] toByteArray() {
+		byte[] bytes = new byte[buffer.position()];
+		getByteBuffer().get(bytes);
+		return bytes;
+	}
+
+	private ByteBuffer allocate(int capacity) {
+		return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+	}
+
+	private void ensureRemaining(int length) throws IOException {
+		if (buffer.remaining() >= length) {
+			return;
+		}
+		long required = (long) buffer.position() + length;
+		if (required > MAX_CAPACITY) {
+			throw new IOException("The parquet data exceeds the maximum buffer size of " + MAX_CAPACITY + " bytes");
+		}
+		int capacity = (int) Math.min(MAX_CAPACITY, Math.max(required, (long) buffer.capacity() * 2));
+		ByteBuffer grown = allocate(capacity);
+		buffer.flip();
+		grown.put(buffer);
+		buffer = grown;
+	}
+
+	private class BufferOutputStream extends PositionOutputStream {
+		@Override
+		public long getPos() {
+			return buffer.position();
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			ensureRemaining(1);
+			buffer.put((byte) b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			ensureRemaining(len);
+			buffer.put(b, off, len);
+		}
+	}
+}
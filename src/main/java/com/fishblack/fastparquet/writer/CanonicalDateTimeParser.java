@@ -0,0 +1,176 @@
+package com.fishblack.fastparquet.writer;
+
+/**
+ * Parses the canonical date and timestamp forms in a single pass over the characters, without a DateTimeFormatter,
+ * and returns the value as epoch days or epoch milliseconds in UTC. Nothing is allocated and nothing is thrown.
+ * Only the exact forms with ASCII digits are recognized, any other value returns NO_MATCH, the caller then parses it
+ * with the Joda formatters which define the accepted values and the error messages. A value in the exact form with a
+ * field out of range, such as 2020-02-30, returns INVALID, as the formatters reject it as well.
+ */
+final class CanonicalDateTimeParser {
+
+	/**
+	 * Returned when the value is not in the expected form.
+	 */
+	static final long NO_MATCH = Long.MIN_VALUE;
+
+	/**
+	 * Returned when the value is in the expected form but a field value is out of range.
+	 */
+	static final long INVALID = Long.MIN_VALUE + 1;
+
+	static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+	private static final int DATE_LENGTH = 10;
+	private static final int TIME_LENGTH = 8;
+
+	private CanonicalDateTimeParser() {
+	}
+
+	/**
+	 * Parse yyyy-MM-dd in value[start, end).
+	 * @return The days since 1970-01-01, NO_MATCH or INVALID.
+	 */
+	static long parseDate(String value, int start, int end) {
+		if (end - start != DATE_LENGTH) {
+			return NO_MATCH;
+		}
+		return parseDatePart(value, start);
+	}
+
+	/**
+	 * Parse yyyy-MM-dd HH:mm:ss with an optional fraction of 1 to 3 digits in value[start, end).
+	 * @return The milliseconds since 1970-01-01T00:00:00Z, NO_MATCH or INVALID.
+	 */
+	static long parseTimestamp(String value, int start, int end) {
+		if (end - start < DATE_LENGTH + 1 + TIME_LENGTH || value.charAt(start + DATE_LENGTH) != ' ') {
+			return NO_MATCH;
+		}
+		return toMillis(parseDatePart(value, start), parseTimePart(value, start + DATE_LENGTH + 1, end));
+	}
+
+	/**
+	 * Parse the published form yyyy-MM-dd'T'HH:mm:ss.SSS'Z' with a fraction of 1 to 3 digits in value[start, end).
+	 * @return The milliseconds since 1970-01-01T00:00:00Z, NO_MATCH or INVALID.
+	 */
+	static long parsePublishedTimestamp(String value, int start, int end) {
+		if (end - start < DATE_LENGTH + 1 + TIME_LENGTH + 3 || value.charAt(start + DATE_LENGTH) != 'T'
+				|| value.charAt(end - 1) != 'Z' || value.charAt(start + DATE_LENGTH + 1 + TIME_LENGTH) != '.') {
+			return NO_MATCH;
+		}
+		return toMillis(parseDatePart(value, start), parseTimePart(value, start + DATE_LENGTH + 1, end - 1));
+	}
+
+	/**
+	 * Parse HH:mm:ss with an optional fraction of 1 to 3 digits in value[start, end).
+	 * @return The milliseconds of the day, NO_MATCH or INVALID.
+	 */
+	static long parseTime(String value, int start, int end) {
+		return parseTimePart(value, start, end);
+	}
+
+	/**
+	 * Returns the days since 1970-01-01 of a date in the proleptic Gregorian calendar.
+	 */
+	static long epochDay(int year, int month, int day) {
+		//count the years from March, so the leap day is the last day of the year
+		long y = month <= 2 ? year - 1 : year;
+		long era = Math.floorDiv(y, 400);
+		long yearOfEra = y - era * 400;
+		int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+		long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097 + dayOfEra - 719468;
+	}
+
+	private static long toMillis(long epochDay, long millisOfDay) {
+		if (epochDay == NO_MATCH || millisOfDay == NO_MATCH) {
+			return NO_MATCH;
+		}
+		if (epochDay == INVALID || millisOfDay == INVALID) {
+			return INVALID;
+		}
+		return epochDay * MILLIS_PER_DAY + millisOfDay;
+	}
+
+	/**
+	 * Parse yyyy-MM-dd at pos, the caller checks that there are enough characters.
+	 */
+	private static long parseDatePart(String value, int pos) {
+		int year = parseDigits(value, pos, 4);
+		int month = parseDigits(value, pos + 5, 2);
+		int day = parseDigits(value, pos + 8, 2);
+		if (year < 0 || month < 0 || day < 0 || value.charAt(pos + 4) != '-' || value.charAt(pos + 7) != '-') {
+			return NO_MATCH;
+		}
+		if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+			return INVALID;
+		}
+		return epochDay(year, month, day);
+	}
+
+	/**
+	 * Parse HH:mm:ss[.S{1,3}] in value[pos, end).
+	 */
+	private static long parseTimePart(String value, int pos, int end) {
+		if (end - pos < TIME_LENGTH || value.charAt(pos + 2) != ':' || value.charAt(pos + 5) != ':') {
+			return NO_MATCH;
+		}
+		int hour = parseDigits(value, pos, 2);
+		int minute = parseDigits(value, pos + 3, 2);
+		int second = parseDigits(value, pos + 6, 2);
+		if (hour < 0 || minute < 0 || second < 0) {
+			return NO_MATCH;
+		}
+		int fraction = 0;
+		int fractionDigits = 3;
+		int fractionStart = pos + TIME_LENGTH;
+		if (fractionStart < end) {
+			fractionDigits = end - fractionStart - 1;
+			if (value.charAt(fractionStart) != '.' || fractionDigits < 1 || fractionDigits > 3) {
+				return NO_MATCH;
+			}
+			fraction = parseDigits(value, fractionStart + 1, fractionDigits);
+			if (fraction < 0) {
+				return NO_MATCH;
+			}
+		}
+		if (hour > 23 || minute > 59 || second > 59) {
+			return INVALID;
+		}
+		long millis = ((hour * 60L + minute) * 60 + second) * 1000;
+		//".8" is 800 milliseconds
+		for (int i = fractionDigits; i < 3; i++) {
+			fraction *= 10;
+		}
+		return millis + fraction;
+	}
+
+	/**
+	 * Returns the value of count ASCII digits at pos, or -1 if there is another character.
+	 */
+	private static int parseDigits(String value, int pos, int count) {
+		int result = 0;
+		for (int i = pos; i < pos + count; i++) {
+			int digit = value.charAt(i) - '0';
+			if (digit < 0 || digit > 9) {
+				return -1;
+			}
+			result = result * 10 + digit;
+		}
+		return result;
+	}
+
+	private static int lengthOfMonth(int year, int month) {
+		switch (month) {
+			case 2:
+				return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+			case 4:
+			case 6:
+			case 9:
+			case 11:
+				return 30;
+			default:
+				return 31;
+		}
+	}
+}
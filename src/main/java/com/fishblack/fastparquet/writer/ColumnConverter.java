@@ -0,0 +1,705 @@
+package com.fishblack.fastparquet.writer;
+
+import com.fishblack.fastparquet.utils.ParquetAvroUtils;
+import org.apache.avro.LogicalType;
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.commons.lang.StringUtils;
+import org.apache.parquet.io.api.Binary;
+import org.joda.time.chrono.ISOChronology;
+import org.joda.time.format.DateTimeFormatter;
+import org.joda.time.format.DateTimeParserBucket;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * Converts field values in canonical format into one column of a ParquetRow.
+ * A converter is compiled once per field from the field's Avro schema, so the union type, the logical type and the
+ * custom schema properties are resolved up front instead of for every value. The conversion rules and the error
+ * messages are the same as ParquetAvroUtils.toAvroFieldValue.
+ * An invalid value is reported by the status of tryConvert() without an exception, the error message is only built
+ * when it is asked for, so dirty input costs about the same as clean input.
+ */
+public abstract class ColumnConverter {
+
+	/**
+	 * Convert the canonical value and set it into the column of the row.
+	 * @param value The field value in canonical format, not null.
+	 * @param row The row to set the converted value into.
+	 * @param column The column index in the row.
+	 * @throws IllegalArgumentException If the value is not valid for the column type.
+	 */
+	public void convert(String value, ParquetRow row, int column) {
+		if (!tryConvert(value, row, column)) {
+			throw new IllegalArgumentException(getErrorMessage(value));
+		}
+	}
+
+	/**
+	 * Convert the canonical value and set it into the column of the row, without throwing for an invalid value.
+	 * @param value The field value in canonical format, not null.
+	 * @param row The row to set the converted value into.
+	 * @param column The column index in the row.
+	 * @return true if the value is converted, false if it is not valid for the column type and the column is left unchanged.
+	 */
+	public abstract boolean tryConvert(String value, ParquetRow row, int column);
+
+	/**
+	 * Returns the error message of a value which tryConvert() rejected, the same message convert() throws.
+	 * @param value The field value in canonical format.
+	 */
+	public String getErrorMessage(String value) {
+		return "Input data " + value + " is not valid";
+	}
+
+	/**
+	 * Returns the converted value of the column in the form the Avro data model writes without logical type conversion.
+	 * @param row The row holding the converted value.
+	 * @param column The column index in the row.
+	 * @return The Avro field value, or null if the column is null.
+	 */
+	public abstract Object toAvroValue(ParquetRow row, int column);
+
+	/**
+	 * Compile the converter of a field.
+	 * @param fieldSchema The Avro schema of the field, as created by SchemaConverter.
+	 * @return The converter for the field.
+	 */
+	public static ColumnConverter create(Schema fieldSchema) {
+		Schema schema = fieldSchema;
+
+		//optional field is handled as union in Avro, such as ["null", "string"], we need to find out the actual type which is not null in the union
+		if(schema.getType() == Schema.Type.UNION) {
+			List<Schema> types = schema.getTypes();
+			for(Schema s : types) {
+				if(s.getType() != Schema.Type.NULL) {
+					schema = s;
+					break;
+				}
+			}
+		}
+
+		LogicalType logicType = schema.getLogicalType();
+		if(logicType == null) {
+			switch (schema.getType()) {
+				case INT:
+					return new IntConverter();
+				case LONG:
+					return new LongConverter();
+				case DOUBLE:
+					return new DoubleConverter();
+				case STRING:
+					return new StringConverter();
+				default:
+					break;
+			}
+		} else {
+			switch (logicType.getName()) {
+				case "decimal":
+					return new DecimalConverter(schema, (LogicalTypes.Decimal) logicType);
+				case "date":
+					return new DateConverter();
+				case "timestamp-millis":
+					return new TimestampConverter("time".equals(schema.getProp("actualType")));
+				default:
+					break;
+			}
+		}
+		throw new IllegalArgumentException("Unsupported field schema " + fieldSchema);
+	}
+
+	/**
+	 * Returns the index of the first character which String.trim() keeps.
+	 */
+	static int trimStart(String value) {
+		int start = 0;
+		int length = value.length();
+		while (start < length && value.charAt(start) <= ' ') {
+			start++;
+		}
+		return start;
+	}
+
+	/**
+	 * Returns the index after the last character which String.trim() keeps.
+	 */
+	static int trimEnd(String value, int start) {
+		int end = value.length();
+		while (end > start && value.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		return end;
+	}
+
+	/**
+	 * Trim the value like String.trim(), but return null instead of an empty string.
+	 * The value itself is returned when there is nothing to trim, so clean values are not copied.
+	 */
+	static String trim(String value) {
+		int start = trimStart(value);
+		int end = trimEnd(value, start);
+		if (start == end) {
+			return null;
+		}
+		return start == 0 && end == value.length() ? value : value.substring(start, end);
+	}
+
+	/**
+	 * Parse the decimal integer in value[start, end) with the same rules as Long.parseLong, limited to [min, max], and set
+	 * it into the column of the row. The characters do not need to be copied into a new string first, and an invalid
+	 * value is reported without an exception.
+	 * @return true if the characters are a valid integer in the range, otherwise the row is left unchanged.
+	 */
+	static boolean parseLong(String value, int start, int end, long min, long max, ParquetRow row, int column) {
+		if (start >= end) {
+			return false;
+		}
+		boolean negative = false;
+		long limit = -max;
+		int i = start;
+		char firstChar = value.charAt(i);
+		if (firstChar < '0') {
+			if (firstChar == '-') {
+				negative = true;
+				limit = min;
+			} else if (firstChar != '+') {
+				return false;
+			}
+			if (end - start == 1) {
+				return false;
+			}
+			i++;
+		}
+		//accumulate negatively like Long.parseLong, as the negative range is larger than the positive one
+		long multmin = limit / 10;
+		long result = 0;
+		while (i < end) {
+			int digit = Character.digit(value.charAt(i++), 10);
+			if (digit < 0 || result < multmin) {
+				return false;
+			}
+			result *= 10;
+			if (result < limit + digit) {
+				return false;
+			}
+			result -= digit;
+		}
+		row.setLong(column, negative ? result : -result);
+		return true;
+	}
+
+	/**
+	 * Check the syntax of Double.parseDouble: after trimming, an optional sign followed by NaN, Infinity, a hexadecimal
+	 * float or decimal digits with an optional point, exponent and type suffix. The value may still have whitespace
+	 * around it when it is trimmed before the group characters are removed, such as ", 5".
+	 * The check is conservative, it only returns false for a value which Double.parseDouble rejects.
+	 */
+	static boolean isDoubleSyntax(String value) {
+		int i = trimStart(value);
+		int length = trimEnd(value, i);
+		if (i < length && (value.charAt(i) == '+' || value.charAt(i) == '-')) {
+			i++;
+		}
+		if (i == length) {
+			return false;
+		}
+		char c = value.charAt(i);
+		if (c == 'N') {
+			return value.regionMatches(i, "NaN", 0, 3) && i + 3 == length;
+		}
+		if (c == 'I') {
+			return value.regionMatches(i, "Infinity", 0, 8) && i + 8 == length;
+		}
+		if (c == '0' && i + 1 < length && (value.charAt(i + 1) == 'x' || value.charAt(i + 1) == 'X')) {
+			//hexadecimal floats are left to Double.parseDouble
+			return true;
+		}
+		int digits = 0;
+		boolean point = false;
+		for (; i < length; i++) {
+			c = value.charAt(i);
+			if (c >= '0' && c <= '9') {
+				digits++;
+			} else if (c == '.' && !point) {
+				point = true;
+			} else {
+				break;
+			}
+		}
+		if (digits == 0) {
+			return false;
+		}
+		if (i < length && (value.charAt(i) == 'e' || value.charAt(i) == 'E')) {
+			i++;
+			if (i < length && (value.charAt(i) == '+' || value.charAt(i) == '-')) {
+				i++;
+			}
+			int exponentStart = i;
+			while (i < length && value.charAt(i) >= '0' && value.charAt(i) <= '9') {
+				i++;
+			}
+			if (i == exponentStart) {
+				return false;
+			}
+		}
+		if (i == length - 1) {
+			c = value.charAt(i);
+			return c == 'f' || c == 'F' || c == 'd' || c == 'D';
+		}
+		return i == length;
+	}
+
+	/**
+	 * Check the syntax of new BigDecimal(String): an optional sign, digits with an optional point and an optional exponent.
+	 * The check is conservative, it only returns false for a value which BigDecimal rejects.
+	 */
+	static boolean isDecimalSyntax(String value) {
+		int length = value.length();
+		int i = 0;
+		if (i < length && (value.charAt(i) == '+' || value.charAt(i) == '-')) {
+			i++;
+		}
+		int digits = 0;
+		boolean point = false;
+		for (; i < length; i++) {
+			char c = value.charAt(i);
+			if (Character.isDigit(c)) {
+				digits++;
+			} else if (c == '.' && !point) {
+				point = true;
+			} else {
+				break;
+			}
+		}
+		if (digits == 0) {
+			return false;
+		}
+		if (i < length && (value.charAt(i) == 'e' || value.charAt(i) == 'E')) {
+			i++;
+			if (i < length && (value.charAt(i) == '+' || value.charAt(i) == '-')) {
+				i++;
+			}
+			int exponentStart = i;
+			while (i < length && Character.isDigit(value.charAt(i))) {
+				i++;
+			}
+			if (i == exponentStart) {
+				return false;
+			}
+		}
+		return i == length;
+	}
+
+	/**
+	 * Parse the whole text with a formatter of a UTC pattern without a zone, the same as parseDateTime() does, but
+	 * report a text which does not match the pattern without an exception.
+	 * @return The milliseconds since 1970-01-01T00:00:00Z, or CanonicalDateTimeParser.NO_MATCH.
+	 */
+	static long parseMillis(DateTimeFormatter formatter, String text) {
+		DateTimeParserBucket bucket = new DateTimeParserBucket(0, ISOChronology.getInstanceUTC(), formatter.getLocale(),
+				formatter.getPivotYear(), formatter.getDefaultYear());
+		int position = formatter.getParser().parseInto(bucket, text, 0);
+		if (position < text.length()) {
+			return CanonicalDateTimeParser.NO_MATCH;
+		}
+		try {
+			return bucket.computeMillis(true, text);
+		} catch (IllegalArgumentException ex) {
+			//a field value out of range, such as month 13
+			return CanonicalDateTimeParser.NO_MATCH;
+		}
+	}
+
+	/**
+	 * Returns the index after the single quotes at the start of value[start, end).
+	 */
+	static int skipStartQuotes(String value, int start, int end) {
+		while (start < end && value.charAt(start) == '\'') {
+			start++;
+		}
+		return start;
+	}
+
+	/**
+	 * Returns the index of the single quotes at the end of value[start, end).
+	 */
+	static int skipEndQuotes(String value, int start, int end) {
+		while (end > start && value.charAt(end - 1) == '\'') {
+			end--;
+		}
+		return end;
+	}
+
+	static final class IntConverter extends ColumnConverter {
+		@Override
+		public boolean tryConvert(String value, ParquetRow row, int column) {
+			int start = trimStart(value);
+			int end = trimEnd(value, start);
+			if(start == end) {
+				row.setNull(column);
+				return true;
+			}
+			return parseLong(value, start, end, Integer.MIN_VALUE, Integer.MAX_VALUE, row, column);
+		}
+
+		@Override
+		public String getErrorMessage(String value) {
+			return "Input data "+ value.trim() +" is not a valid integer data";
+		}
+
+		@Override
+		public Object toAvroValue(ParquetRow row, int column) {
+			return row.isNull(column) ? null : row.getInt(column);
+		}
+	}
+
+	static final class LongConverter extends ColumnConverter {
+		@Override
+		public boolean tryConvert(String value, ParquetRow row, int column) {
+			int start = trimStart(value);
+			int end = trimEnd(value, start);
+			if(start == end) {
+				row.setNull(column);
+				return true;
+			}
+			return parseLong(value, start, end, Long.MIN_VALUE, Long.MAX_VALUE, row, column);
+		}
+
+		@Override
+		public String getErrorMessage(String value) {
+			return "Input data "+ value.trim() +" is not a valid long data";
+		}
+
+		@Override
+		public Object toAvroValue(ParquetRow row, int column) {
+			return row.isNull(column) ? null : row.getLong(column);
+		}
+	}
+
+	static final class DoubleConverter extends ColumnConverter {
+		@Override
+		public boolean tryConvert(String value, ParquetRow row, int column) {
+			int start = trimStart(value);
+			int end = trimEnd(value, start);
+			if(start == end) {
+				row.setNull(column);
+				return true;
+			}
+			double parsed = FastDoubleParser.parseDouble(value, start, end);
+			if (!Double.isNaN(parsed)) {
+				row.setDouble(column, parsed);
+				return true;
+			}
+			//remove the group character "," before parsing
+			String trimmedVal = ParquetAvroUtils.removeComma(value.substring(start, end));
+			if (!isDoubleSyntax(trimmedVal)) {
+				return false;
+			}
+			try {
+				row.setDouble(column, Double.parseDouble(trimmedVal));
+			}
+			catch(NumberFormatException ex) {
+				return false;
+			}
+			return true;
+		}
+
+		@Override
+		public String getErrorMessage(String value) {
+			return "Input data "+ ParquetAvroUtils.removeComma(value.trim()) +" is not a valid double data";
+		}
+
+		@Override
+		public Object toAvroValue(ParquetRow row, int column) {
+			return row.isNull(column) ? null : row.getDouble(column);
+		}
+	}
+
+	static final class StringConverter extends ColumnConverter {
+		@Override
+		public boolean tryConvert(String value, ParquetRow row, int column) {
+			//strings are kept as they are, only an empty string is treated as null
+			row.setString(column, StringUtils.isEmpty(value) ? null : value);
+			return true;
+		}
+
+		@Override
+		public Object toAvroValue(ParquetRow row, int column) {
+			return row.getString(column);
+		}
+	}
+
+	static final class DecimalConverter extends ColumnConverter {
+		//an unscaled value with up to 18 digits always fits in a long
+		private static final int MAX_LONG_DIGITS = 18;
+
+		private final Schema fixedSchema;
+		private final int scale;
+		//the fixed value of the last converted decimal, the parquet column writers copy the values they keep
+		private final byte[] fixedBuffer;
+		private long unscaled;
+
+		DecimalConverter(Schema fixedSchema, LogicalTypes.Decimal decimalType) {
+			this.fixedSchema = fixedSchema;
+			this.scale = decimalType.getScale();
+			this.fixedBuffer = new byte[fixedSchema.getFixedSize()];
+		}
+
+		@Override
+		public boolean tryConvert(String value, ParquetRow row, int column) {
+			int start = trimStart(value);
+			int end = trimEnd(value, start);
+			if(start == end) {
+				row.setNull(column);
+				return true;
+			}
+			if (parseUnscaled(value, start, end)) {
+				setUnscaled(unscaled, row, column);
+				return true;
+			}
+			//other forms, such as an exponent, and values with more digits are parsed by BigDecimal
+			//remove the group character "," before parsing
+			String trimmedVal = ParquetAvroUtils.removeComma(value.substring(start, end));
+			if (!isDecimalSyntax(trimmedVal)) {
+				return false;
+			}
+			BigDecimal dec;
+			try {
+				dec = new BigDecimal(trimmedVal);
+			}
+			catch(NumberFormatException ex) {
+				//such as an exponent out of the int range
+				return false;
+			}
+			dec = dec.setScale(scale, BigDecimal.ROUND_DOWN);
+			setUnscaled(dec.unscaledValue(), row, column);
+			return true;
+		}
+
+		/**
+		 * Parse ASCII digits with an optional sign, decimal point and group commas in value[start, end) into the unscaled
+		 * value at the scale of the column, extra fraction digits are truncated like setScale(scale, ROUND_DOWN).
+		 * @return true if the value is parsed into the unscaled field, false if the value has another form or the unscaled
+		 * value has more than 18 digits.
+		 */
+		private boolean parseUnscaled(String value, int start, int end) {
+			int i = start;
+			while (i < end && value.charAt(i) == ',') {
+				i++;
+			}
+			boolean negative = false;
+			if (i < end && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+				negative = value.charAt(i) == '-';
+				i++;
+			}
+			long result = 0;
+			int digits = 0;
+			int significantDigits = 0;
+			//-1 before the decimal point
+			int fractionDigits = -1;
+			for (; i < end; i++) {
+				char c = value.charAt(i);
+				if (c >= '0' && c <= '9') {
+					digits++;
+					if (fractionDigits == scale) {
+						continue;
+					}
+					if (fractionDigits >= 0) {
+						fractionDigits++;
+					}
+					if ((result != 0 || c != '0') && ++significantDigits > MAX_LONG_DIGITS) {
+						return false;
+					}
+					result = result * 10 + (c - '0');
+				} else if (c == '.' && fractionDigits < 0) {
+					fractionDigits = 0;
+				} else if (c != ',') {
+					return false;
+				}
+			}
+			if (digits == 0) {
+				return false;
+			}
+			for (int f = Math.max(fractionDigits, 0); f < scale; f++) {
+				if (result != 0 && ++significantDigits > MAX_LONG_DIGITS) {
+					return false;
+				}
+				result *= 10;
+			}
+			unscaled = negative ? -result : result;
+			return true;
+		}
+
+		/**
+		 * Set the unscaled value of a decimal at the scale of the column, as a sign extended big-endian fixed value.
+		 */
+		void setUnscaled(long unscaledValue, ParquetRow row, int column) {
+			long value = unscaledValue;
+			for (int i = fixedBuffer.length - 1; i >= 0; i--) {
+				fixedBuffer[i] = (byte) value;
+				value >>= 8;
+			}
+			row.setBinary(column, Binary.fromReusedByteArray(fixedBuffer));
+		}
+
+		/**
+		 * Set an unscaled value the same as Conversions.DecimalConversion.toFixed() does, the low order bytes of a value
+		 * longer than the fixed size are kept.
+		 */
+		private void setUnscaled(BigInteger unscaledValue, ParquetRow row, int column) {
+			byte fillByte = (byte) (unscaledValue.signum() < 0 ? 0xFF : 0x00);
+			byte[] unscaledBytes = unscaledValue.toByteArray();
+			int offset = fixedBuffer.length - unscaledBytes.length;
+			for (int i = 0; i < fixedBuffer.length; i++) {
+				fixedBuffer[i] = i < offset ? fillByte : unscaledBytes[i - offset];
+			}
+			row.setBinary(column, Binary.fromReusedByteArray(fixedBuffer));
+		}
+
+		@Override
+		public String getErrorMessage(String value) {
+			return "Input data "+ ParquetAvroUtils.removeComma(value.trim()) +" is not a valid decimal";
+		}
+
+		@Override
+		public Object toAvroValue(ParquetRow row, int column) {
+			return row.isNull(column) ? null : new GenericData.Fixed(fixedSchema, row.getBinary(column).getBytes());
+		}
+	}
+
+	static final class DateConverter extends ColumnConverter {
+		//the form of the last parsed value is tried first, as a column normally has all values in the same form
+		private boolean publishedFirst;
+
+		@Override
+		public boolean tryConvert(String value, ParquetRow row, int column) {
+			int start = trimStart(value);
+			int end = trimEnd(value, start);
+			if(start == end) {
+				row.setNull(column);
+				return true;
+			}
+			int valueStart = skipStartQuotes(value, start, end);
+			int valueEnd = skipEndQuotes(value, valueStart, end);
+			long days = publishedFirst ? parsePublishedDate(value, valueStart, valueEnd) : CanonicalDateTimeParser.parseDate(value, valueStart, valueEnd);
+			if (days == CanonicalDateTimeParser.NO_MATCH) {
+				publishedFirst = !publishedFirst;
+				days = publishedFirst ? parsePublishedDate(value, valueStart, valueEnd) : CanonicalDateTimeParser.parseDate(value, valueStart, valueEnd);
+			}
+			if (days == CanonicalDateTimeParser.NO_MATCH) {
+				//other forms are left to the formatters
+				days = parseWithFormatter(value.substring(start, end));
+			}
+			if (days == CanonicalDateTimeParser.NO_MATCH || days == CanonicalDateTimeParser.INVALID) {
+				return false;
+			}
+			row.setInt(column, (int) days);
+			return true;
+		}
+
+		private static long parsePublishedDate(String value, int start, int end) {
+			long millis = CanonicalDateTimeParser.parsePublishedTimestamp(value, start, end);
+			return millis == CanonicalDateTimeParser.NO_MATCH || millis == CanonicalDateTimeParser.INVALID
+					? millis : Math.floorDiv(millis, CanonicalDateTimeParser.MILLIS_PER_DAY);
+		}
+
+		private static long parseWithFormatter(String trimmedVal) {
+			String val = ParquetAvroUtils.removeStartEndSingleQuotation(trimmedVal);
+			long millis = parseMillis(ParquetAvroUtils.dateFormatter, val);
+			if (millis == CanonicalDateTimeParser.NO_MATCH) {
+				//if parsing with date format failed, try it again with published timetamp format, this is a workaround for the format issue in published data
+				millis = parseMillis(ParquetAvroUtils.timestampFormatterPublished, val);
+			}
+			return millis == CanonicalDateTimeParser.NO_MATCH ? millis : Math.floorDiv(millis, CanonicalDateTimeParser.MILLIS_PER_DAY);
+		}
+
+		@Override
+		public String getErrorMessage(String value) {
+			return "Input data "+ ParquetAvroUtils.removeStartEndSingleQuotation(value.trim()) +" is not in date format";
+		}
+
+		@Override
+		public Object toAvroValue(ParquetRow row, int column) {
+			return row.isNull(column) ? null : row.getInt(column);
+		}
+	}
+
+	static final class TimestampConverter extends ColumnConverter {
+		private final boolean isTime;
+		//the form of the last parsed value is tried first, as a column normally has all values in the same form
+		private boolean publishedFirst;
+
+		TimestampConverter(boolean isTime) {
+			this.isTime = isTime;
+		}
+
+		@Override
+		public boolean tryConvert(String value, ParquetRow row, int column) {
+			int start = trimStart(value);
+			int end = trimEnd(value, start);
+			if(start == end) {
+				row.setNull(column);
+				return true;
+			}
+			int valueStart = skipStartQuotes(value, start, end);
+			int valueEnd = skipEndQuotes(value, valueStart, end);
+			long millis = parse(value, valueStart, valueEnd, publishedFirst);
+			if (millis == CanonicalDateTimeParser.NO_MATCH) {
+				publishedFirst = !publishedFirst;
+				millis = parse(value, valueStart, valueEnd, publishedFirst);
+			}
+			if (millis == CanonicalDateTimeParser.NO_MATCH) {
+				//other forms are left to the formatters
+				millis = parseWithFormatter(value.substring(start, end));
+			}
+			if (millis == CanonicalDateTimeParser.NO_MATCH || millis == CanonicalDateTimeParser.INVALID) {
+				return false;
+			}
+			row.setLong(column, millis);
+			return true;
+		}
+
+		private long parse(String value, int start, int end, boolean published) {
+			if (published) {
+				return CanonicalDateTimeParser.parsePublishedTimestamp(value, start, end);
+			}
+			//a time is the time of day on 1970-01-01
+			return isTime ? CanonicalDateTimeParser.parseTime(value, start, end) : CanonicalDateTimeParser.parseTimestamp(value, start, end);
+		}
+
+		private long parseWithFormatter(String trimmedVal) {
+			String val = ParquetAvroUtils.removeStartEndSingleQuotation(trimmedVal);
+
+			//if it doesn't have fractional seconds, set it to ".000" to avoid parsing error
+			if(!val.contains(".")) {
+				val = val + ".000";
+			}
+
+			//spark doesn't support time, we treat time as timestamp and use fixed date "1970-01-01"
+			//in addition, published data from data prep ends with 'Z' and already has date in it, we skip adding "1970-01-01" for it.
+			if(isTime && !val.endsWith("Z")) {
+				val = "1970-01-01 " + val;
+			}
+
+			long millis = parseMillis(ParquetAvroUtils.timestampFormatter, val);
+			if (millis == CanonicalDateTimeParser.NO_MATCH) {
+				//if parsing with timestamp format failed, try it again with published timetamp format, this is a workaround for the format issue in published data
+				millis = parseMillis(ParquetAvroUtils.timestampFormatterPublished, val);
+			}
+			return millis;
+		}
+
+		@Override
+		public String getErrorMessage(String value) {
+			return "Input data "+ value.trim() +" is not in timestamp format";
+		}
+
+		@Override
+		public Object toAvroValue(ParquetRow row, int column) {
+			return row.isNull(column) ? null : row.getLong(column);
+		}
+	}
+}
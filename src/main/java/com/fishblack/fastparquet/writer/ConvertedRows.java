@@ -0,0 +1,60 @@
+package com.fishblack.fastparquet.writer;
+
+import com.fishblack.fastparquet.common.ParquetConversionException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rows which are converted ahead of the writer, such as on a worker thread, with the conversion errors of each row.
+ * The rows are converted by converters of their own, so several instances can be filled at the same time.
+ */
+class ConvertedRows {
+
+	private final ColumnConverter[] converters;
+	private final String[] fieldNames;
+	private final ParquetRow row;
+	private final RowBatch rows;
+	private final Map<Integer, Map<String, String>> errors = new HashMap<>();
+
+	ConvertedRows(ColumnConverter[] converters, String[] fieldNames) {
+		this.converters = converters;
+		this.fieldNames = fieldNames;
+		this.row = new ParquetRow(converters.length);
+		this.rows = new RowBatch(converters.length);
+	}
+
+	/**
+	 * Convert a record of canonical values and add it as the next row.
+	 * @throws ParquetConversionException If data length does not match fields length
+	 */
+	void add(String[] data) throws ParquetConversionException {
+		if (data.length != converters.length) {
+			throw new ParquetConversionException("Data columns do not match the field metadata columns.", ParquetConversionException.ErrorCode.DATA_LENGTH_ERROR);
+		}
+		Map<String, String> rowErrors = ParquetDataWriter.convertRow(converters, fieldNames, row, data);
+		if (rowErrors != null) {
+			errors.put(rows.size(), rowErrors);
+		}
+		rows.add(row);
+	}
+
+	ParquetRow get(int index) {
+		return rows.get(index);
+	}
+
+	/**
+	 * Returns the error map of the row, or null if all its values are converted.
+	 */
+	Map<String, String> getErrors(int index) {
+		return errors.isEmpty() ? null : errors.get(index);
+	}
+
+	ColumnConverter[] getConverters() {
+		return converters;
+	}
+
+	int size() {
+		return rows.size();
+	}
+}
@@ -0,0 +1,40 @@
+package com.fishblack.fastparquet.writer;
+
+import org.apache.parquet.hadoop.ParquetWriter;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Writes converted rows straight to the column writers through FastRowWriteSupport.
+ */
+class DirectRowSink implements RowSink {
+
+	private final ParquetWriter<ParquetRow> writer;
+	private final FastRowWriteSupport writeSupport;
+
+	DirectRowSink(ParquetWriter<ParquetRow> writer, FastRowWriteSupport writeSupport) {
+		this.writer = writer;
+		this.writeSupport = writeSupport;
+	}
+
+	@Override
+	public void write(ParquetRow row) throws IOException {
+		writer.write(row);
+	}
+
+	@Override
+	public void setExtraMetaData(Map<String, String> extraMetaData) {
+		writeSupport.setExtraMetaData(extraMetaData);
+	}
+
+	@Override
+	public long getDataSize() {
+		return writer.getDataSize();
+	}
+
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+}
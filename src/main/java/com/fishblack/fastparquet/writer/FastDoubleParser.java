@@ -0,0 +1,245 @@
+package com.fishblack.fastparquet.writer;
+
+import java.math.BigInteger;
+
+/**
+ * Parses plain decimal floating point values in a single pass over the characters, skipping the group character ","
+ * like ParquetAvroUtils.removeComma, and returns the same double as Double.parseDouble. Nothing is allocated and
+ * nothing is thrown.
+ * The decimal significand of up to 19 digits is converted with the exact fast path of Clinger when the significand and
+ * the power of ten are both exact doubles, otherwise with the algorithm of Eisel and Lemire, which multiplies the
+ * significand by a 128-bit approximation of the power of five and only needs the result to be rounded once.
+ * Any other value, such as one with more digits, a type suffix, NaN, Infinity, a hexadecimal value, an invalid value,
+ * a subnormal result or one of the rare products the algorithm cannot round exactly, returns NO_MATCH, the caller
+ * then parses it with Double.parseDouble.
+ */
+final class FastDoubleParser {
+
+	/**
+	 * Returned when the value is not parsed, a parsed value is never NaN.
+	 */
+	static final double NO_MATCH = Double.NaN;
+
+	private static final int MAX_DIGITS = 19;
+	//exponents beyond these give zero or infinity for every significand of up to 19 digits
+	private static final int SMALLEST_POWER_OF_TEN = -342;
+	private static final int LARGEST_POWER_OF_TEN = 308;
+	private static final int MAX_EXPONENT = 9999;
+
+	private static final int MANTISSA_EXPLICIT_BITS = 52;
+	private static final int MINIMUM_EXPONENT = -1023;
+	private static final int INFINITE_POWER = 0x7FF;
+	//the range of powers of ten where a product can be exactly halfway between two doubles
+	private static final int MIN_EXPONENT_ROUND_TO_EVEN = -4;
+	private static final int MAX_EXPONENT_ROUND_TO_EVEN = 23;
+	private static final long PRECISION_MASK = 0xFFFFFFFFFFFFFFFFL >>> (MANTISSA_EXPLICIT_BITS + 3);
+
+	//the powers of ten which are exact doubles, for the fast path of Clinger
+	private static final double[] EXACT_POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+	private static final long MAX_EXACT_SIGNIFICAND = 1L << 53;
+
+	/**
+	 * The high and low 64 bits of 5^q for q from SMALLEST_POWER_OF_TEN to LARGEST_POWER_OF_TEN, normalized so the most
+	 * significant bit is set. The powers of five with more than 128 bits are truncated, the negative powers are rounded up.
+	 */
+	private static final long[] POWERS_OF_FIVE = powersOfFive();
+
+	private FastDoubleParser() {
+	}
+
+	/**
+	 * Parse [sign] digits [. digits] [(e|E) [sign] digits] in value[start, end), the group character "," is skipped
+	 * anywhere in the value.
+	 * @return The parsed value or NO_MATCH.
+	 */
+	static double parseDouble(String value, int start, int end) {
+		int i = skipCommas(value, start, end);
+		boolean negative = false;
+		if (i < end && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+			negative = value.charAt(i) == '-';
+			i++;
+		}
+		long significand = 0;
+		int digits = 0;
+		int significantDigits = 0;
+		//the decimal exponent of the last digit in the significand
+		int exponent = 0;
+		boolean point = false;
+		for (; i < end; i++) {
+			char c = value.charAt(i);
+			if (c >= '0' && c <= '9') {
+				digits++;
+				if (significand != 0 || c != '0') {
+					if (++significantDigits > MAX_DIGITS) {
+						return NO_MATCH;
+					}
+				}
+				significand = significand * 10 + (c - '0');
+				if (point) {
+					exponent--;
+				}
+			} else if (c == '.' && !point) {
+				point = true;
+			} else if (c != ',') {
+				break;
+			}
+		}
+		if (digits == 0) {
+			return NO_MATCH;
+		}
+		if (i < end && (value.charAt(i) == 'e' || value.charAt(i) == 'E')) {
+			i = skipCommas(value, i + 1, end);
+			boolean negativeExponent = false;
+			if (i < end && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+				negativeExponent = value.charAt(i) == '-';
+				i++;
+			}
+			int exponentDigits = 0;
+			int explicitExponent = 0;
+			for (; i < end; i++) {
+				char c = value.charAt(i);
+				if (c >= '0' && c <= '9') {
+					exponentDigits++;
+					if (explicitExponent < MAX_EXPONENT) {
+						explicitExponent = explicitExponent * 10 + (c - '0');
+					}
+				} else if (c != ',') {
+					break;
+				}
+			}
+			if (exponentDigits == 0) {
+				return NO_MATCH;
+			}
+			exponent += negativeExponent ? -explicitExponent : explicitExponent;
+		}
+		if (i != end) {
+			return NO_MATCH;
+		}
+		double result = toDouble(significand, exponent);
+		return negative ? -result : result;
+	}
+
+	private static int skipCommas(String value, int pos, int end) {
+		while (pos < end && value.charAt(pos) == ',') {
+			pos++;
+		}
+		return pos;
+	}
+
+	/**
+	 * Returns significand * 10^exponent rounded to the nearest double, or NO_MATCH.
+	 * @param significand An unsigned significand of up to 19 digits.
+	 */
+	private static double toDouble(long significand, int exponent) {
+		if (significand == 0 || exponent < SMALLEST_POWER_OF_TEN) {
+			return 0d;
+		}
+		if (exponent > LARGEST_POWER_OF_TEN) {
+			return Double.POSITIVE_INFINITY;
+		}
+		if (significand >= 0 && significand <= MAX_EXACT_SIGNIFICAND
+				&& exponent >= -EXACT_POWERS_OF_TEN.length + 1 && exponent < EXACT_POWERS_OF_TEN.length) {
+			//both operands are exact, so the result is rounded once
+			return exponent >= 0 ? significand * EXACT_POWERS_OF_TEN[exponent] : significand / EXACT_POWERS_OF_TEN[-exponent];
+		}
+		return eiselLemire(significand, exponent);
+	}
+
+	private static double eiselLemire(long significand, int exponent) {
+		int leadingZeros = Long.numberOfLeadingZeros(significand);
+		long w = significand << leadingZeros;
+		int index = 2 * (exponent - SMALLEST_POWER_OF_TEN);
+		long powerHigh = POWERS_OF_FIVE[index];
+		long powerLow = POWERS_OF_FIVE[index + 1];
+
+		long productHigh = multiplyHigh(w, powerHigh);
+		long productLow = w * powerHigh;
+		if ((productHigh & PRECISION_MASK) == PRECISION_MASK) {
+			//the truncated bits may carry into the bits of the result, add the product with the low half of the power
+			long secondHigh = multiplyHigh(w, powerLow);
+			productLow += secondHigh;
+			if (Long.compareUnsigned(secondHigh, productLow) > 0) {
+				productHigh++;
+			}
+			if ((productHigh & PRECISION_MASK) == PRECISION_MASK && productLow == -1L) {
+				//still too close to a rounding boundary to tell which double is nearest
+				return NO_MATCH;
+			}
+		}
+
+		int upperBit = (int) (productHigh >>> 63);
+		int shift = upperBit + 64 - MANTISSA_EXPLICIT_BITS - 3;
+		long mantissa = productHigh >>> shift;
+		int power2 = power(exponent) + upperBit - leadingZeros - MINIMUM_EXPONENT;
+		if (power2 <= 0) {
+			//subnormal results are left to Double.parseDouble
+			return NO_MATCH;
+		}
+		if (Long.compareUnsigned(productLow, 1L) <= 0 && exponent >= MIN_EXPONENT_ROUND_TO_EVEN
+				&& exponent <= MAX_EXPONENT_ROUND_TO_EVEN && (mantissa & 3) == 1 && (mantissa << shift) == productHigh) {
+			//exactly halfway between two doubles, round to even
+			mantissa &= ~1L;
+		}
+		mantissa += mantissa & 1;
+		mantissa >>>= 1;
+		if (mantissa >= (2L << MANTISSA_EXPLICIT_BITS)) {
+			mantissa = 1L << MANTISSA_EXPLICIT_BITS;
+			power2++;
+		}
+		mantissa &= ~(1L << MANTISSA_EXPLICIT_BITS);
+		if (power2 >= INFINITE_POWER) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return Double.longBitsToDouble(((long) power2 << MANTISSA_EXPLICIT_BITS) | mantissa);
+	}
+
+	/**
+	 * Returns floor(log2(10^q)) + 63 for q in [-342, 308].
+	 */
+	private static int power(int q) {
+		return (((152170 + 65536) * q) >> 16) + 63;
+	}
+
+	/**
+	 * Returns the high 64 bits of the unsigned 128-bit product of x and y.
+	 */
+	private static long multiplyHigh(long x, long y) {
+		long x0 = x & 0xFFFFFFFFL;
+		long x1 = x >>> 32;
+		long y0 = y & 0xFFFFFFFFL;
+		long y1 = y >>> 32;
+		long p01 = x0 * y1;
+		long middle = x1 * y0 + ((x0 * y0) >>> 32) + (p01 & 0xFFFFFFFFL);
+		return x1 * y1 + (middle >>> 32) + (p01 >>> 32);
+	}
+
+	private static long[] powersOfFive() {
+		BigInteger two128 = BigInteger.ONE.shiftLeft(128);
+		long[] powers = new long[2 * (LARGEST_POWER_OF_TEN - SMALLEST_POWER_OF_TEN + 1)];
+		int index = 0;
+		for (int q = SMALLEST_POWER_OF_TEN; q <= LARGEST_POWER_OF_TEN; q++) {
+			BigInteger power;
+			if (q < 0) {
+				BigInteger power5 = BigInteger.valueOf(5).pow(-q);
+				//the smallest z with 2^z >= 5^-q
+				int z = power5.bitLength();
+				if (BigInteger.ONE.shiftLeft(z - 1).equals(power5)) {
+					z--;
+				}
+				int b = q >= -27 ? z + 127 : 2 * z + 128;
+				power = BigInteger.ONE.shiftLeft(b).divide(power5).add(BigInteger.ONE);
+				if (power.compareTo(two128) >= 0) {
+					power = power.shiftRight(power.bitLength() - 128);
+				}
+			} else {
+				power = BigInteger.valueOf(5).pow(q);
+				power = power.bitLength() <= 128 ? power.shiftLeft(128 - power.bitLength()) : power.shiftRight(power.bitLength() - 128);
+			}
+			powers[index++] = power.shiftRight(64).longValue();
+			powers[index++] = power.longValue();
+		}
+		return powers;
+	}
+}
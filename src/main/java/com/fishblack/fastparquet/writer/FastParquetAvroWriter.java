@@ -9,6 +9,7 @@ import org.apache.hadoop.fs.Path;
 import org.apache.parquet.avro.AvroSchemaConverter;
 import org.apache.parquet.hadoop.ParquetWriter;
 import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.io.OutputFile;
 
 import java.io.IOException;
 import java.util.Map;
@@ -31,6 +32,11 @@ public class FastParquetAvroWriter<T> extends org.apache.parquet.avro.AvroParque
 			this.extraMetadata = metadata;
 		}
 
+		public Builder(OutputFile file, Map<String, String> metadata) {
+			super(file);
+			this.extraMetadata = metadata;
+		}
+
 		public Builder<T> withSchema(Schema schema) {
 			this.schema = schema;
 			return this;
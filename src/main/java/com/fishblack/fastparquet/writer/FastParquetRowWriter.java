@@ -0,0 +1,51 @@
+package com.fishblack.fastparquet.writer;
+
+import org.apache.avro.Schema;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.avro.AvroSchemaConverter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.io.OutputFile;
+
+import java.util.Map;
+
+/**
+ * Builds a ParquetWriter which writes ParquetRow records through FastRowWriteSupport.
+ */
+public class FastParquetRowWriter {
+
+	public static class Builder extends ParquetWriter.Builder<ParquetRow, Builder> {
+		private Schema schema = null;
+		private Map<String, String> extraMetadata;
+		private FastRowWriteSupport writeSupport;
+
+		public Builder(Path file, Map<String, String> metadata) {
+			super(file);
+			this.extraMetadata = metadata;
+		}
+
+		public Builder(OutputFile file, Map<String, String> metadata) {
+			super(file);
+			this.extraMetadata = metadata;
+		}
+
+		public Builder withSchema(Schema schema) {
+			this.schema = schema;
+			return this;
+		}
+
+		protected Builder self() {
+			return this;
+		}
+
+		protected WriteSupport<ParquetRow> getWriteSupport(Configuration conf) {
+			writeSupport = new FastRowWriteSupport(new AvroSchemaConverter(conf).convert(schema), schema, extraMetadata);
+			return writeSupport;
+		}
+
+		protected FastRowWriteSupport getWriteSupport() {
+			return this.writeSupport;
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package com.fishblack.fastparquet.writer;
+
+import org.apache.avro.Schema;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.RecordConsumer;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Type;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.fishblack.fastparquet.common.FastParquetConstants.AVRO_SCHEMA_METADATA_KEY;
+import static com.fishblack.fastparquet.common.FastParquetConstants.AVRO_WRITER_MODEL_NAME;
+
+/**
+ * A WriteSupport which emits the values of a ParquetRow straight to the parquet RecordConsumer.
+ * The parquet schema is the one AvroSchemaConverter derives from the fastparquet Avro schema, and the Avro schema is
+ * still stored in the footer, so the files are the same as the ones written through FastAvroWriteSupport.
+ */
+public class FastRowWriteSupport extends WriteSupport<ParquetRow> {
+
+	private final MessageType schema;
+	private final Schema avroSchema;
+	private final String[] fieldNames;
+	private final PrimitiveTypeName[] fieldTypes;
+	private Map<String, String> extraMetaData;
+	private RecordConsumer recordConsumer;
+	private byte[] utf8Buffer = new byte[256];
+
+	public FastRowWriteSupport(MessageType schema, Schema avroSchema, Map<String, String> extraMetadata) {
+		this.schema = schema;
+		this.avroSchema = avroSchema;
+		this.extraMetaData = extraMetadata;
+
+		List<Type> fields = schema.getFields();
+		this.fieldNames = new String[fields.size()];
+		this.fieldTypes = new PrimitiveTypeName[fields.size()];
+		for (int i = 0; i < fields.size(); i++) {
+			fieldNames[i] = fields.get(i).getName();
+			fieldTypes[i] = fields.get(i).asPrimitiveType().getPrimitiveTypeName();
+		}
+	}
+
+	@Override
+	public WriteContext init(Configuration configuration) {
+		Map<String, String> metadata = new HashMap<>();
+		metadata.put(AVRO_SCHEMA_METADATA_KEY, avroSchema.toString());
+		if(extraMetaData != null) {
+			metadata.putAll(extraMetaData);
+		}
+		return new WriteContext(schema, metadata);
+	}
+
+	@Override
+	public void prepareForWrite(RecordConsumer recordConsumer) {
+		this.recordConsumer = recordConsumer;
+	}
+
+	@Override
+	public void write(ParquetRow row) {
+		recordConsumer.startMessage();
+		for (int i = 0; i < fieldNames.length; i++) {
+			if (row.isNull(i)) {
+				continue;
+			}
+			recordConsumer.startField(fieldNames[i], i);
+			switch (fieldTypes[i]) {
+				case INT32:
+					recordConsumer.addInteger(row.getInt(i));
+					break;
+				case INT64:
+					recordConsumer.addLong(row.getLong(i));
+					break;
+				case DOUBLE:
+					recordConsumer.addDouble(row.getDouble(i));
+					break;
+				case BINARY:
+				case FIXED_LEN_BYTE_ARRAY:
+					String stringValue = row.getUnencodedString(i);
+					recordConsumer.addBinary(stringValue != null ? encodeUtf8(stringValue) : row.getBinary(i));
+					break;
+				default:
+					throw new UnsupportedOperationException("Unsupported parquet type " + fieldTypes[i] + " for field " + fieldNames[i]);
+			}
+			recordConsumer.endField(fieldNames[i], i);
+		}
+		recordConsumer.endMessage();
+	}
+
+	/**
+	 * Encode the string to UTF-8 into the reused buffer, the same as String.getBytes with UTF-8 which replaces an unpaired
+	 * surrogate by '?'. The column writers copy the bytes they keep, such as dictionary entries and statistics.
+	 */
+	private Binary encodeUtf8(String value) {
+		int length = value.length();
+		if (utf8Buffer.length < length * 3) {
+			utf8Buffer = new byte[Math.max(length * 3, utf8Buffer.length * 2)];
+		}
+		byte[] buffer = utf8Buffer;
+		int pos = 0;
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c < 0x80) {
+				buffer[pos++] = (byte) c;
+			} else if (c < 0x800) {
+				buffer[pos++] = (byte) (0xC0 | (c >> 6));
+				buffer[pos++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+					int codePoint = Character.toCodePoint(c, value.charAt(++i));
+					buffer[pos++] = (byte) (0xF0 | (codePoint >> 18));
+					buffer[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+					buffer[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+					buffer[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+				} else {
+					buffer[pos++] = (byte) '?';
+				}
+			} else {
+				buffer[pos++] = (byte) (0xE0 | (c >> 12));
+				buffer[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				buffer[pos++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+		return Binary.fromReusedByteArray(buffer, 0, pos);
+	}
+
+	/**
+	 * The files keep the Avro schema in the footer and are read back through parquet-avro, so report the same model name
+	 * as AvroWriteSupport.
+	 */
+	@Override
+	public String getName() {
+		return AVRO_WRITER_MODEL_NAME;
+	}
+
+	@Override
+	public FinalizedWriteContext finalizeWrite() {
+		return new FinalizedWriteContext(this.extraMetaData == null ? new HashMap<>() : this.extraMetaData);
+	}
+
+	public void setExtraMetaData(Map<String, String> extraMetaData) {
+		this.extraMetaData = extraMetaData;
+	}
+}
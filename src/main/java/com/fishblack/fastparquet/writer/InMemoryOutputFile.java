@@ -0,0 +1,115 @@
+package com.fishblack.fastparquet.writer;
+
+import org.apache.parquet.io.DelegatingSeekableInputStream;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.PositionOutputStream;
+import org.apache.parquet.io.SeekableInputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * An OutputFile which keeps the written parquet data in a growable heap buffer, the data can be read back
+ * through toInputFile() without copying.
+ */
+class InMemoryOutputFile implements OutputFile {
+
+	private final Buffer buffer;
+
+	InMemoryOutputFile(int initialCapacity) {
+		this.buffer = new Buffer(initialCapacity);
+	}
+
+	@Override
+	public PositionOutputStream create(long blockSizeHint) throws IOException {
+		return new PositionOutputStream() {
+			@Override
+			public long getPos() {
+				return buffer.size();
+			}
+
+			@Override
+			public void write(int b) {
+				buffer.write(b);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) {
+				buffer.write(b, off, len);
+			}
+		};
+	}
+
+	@Override
+	public PositionOutputStream createOrOverwrite(long blockSizeHint) throws IOException {
+		buffer.reset();
+		return create(blockSizeHint);
+	}
+
+	@Override
+	public boolean supportsBlockSize() {
+		return false;
+	}
+
+	@Override
+	public long defaultBlockSize() {
+		return 0;
+	}
+
+	int size() {
+		return buffer.size();
+	}
+
+	InputFile toInputFile() {
+		final byte[] data = buffer.array();
+		final int length = buffer.size();
+		return new InputFile() {
+			@Override
+			public long getLength() {
+				return length;
+			}
+
+			@Override
+			public SeekableInputStream newStream() {
+				final SeekableByteArrayInputStream in = new SeekableByteArrayInputStream(data, length);
+				return new DelegatingSeekableInputStream(in) {
+					@Override
+					public long getPos() {
+						return in.getPos();
+					}
+
+					@Override
+					public void seek(long newPos) {
+						in.seek(newPos);
+					}
+				};
+			}
+		};
+	}
+
+	private static class Buffer extends ByteArrayOutputStream {
+		Buffer(int initialCapacity) {
+			super(initialCapacity);
+		}
+
+		byte[] array() {
+			return buf;
+		}
+	}
+
+	private static class SeekableByteArrayInputStream extends ByteArrayInputStream {
+		SeekableByteArrayInputStream(byte[] data, int length) {
+			super(data, 0, length);
+		}
+
+		long getPos() {
+			return pos;
+		}
+
+		void seek(long newPos) {
+			pos = (int) newPos;
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package com.fishblack.fastparquet.writer;
+
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.PositionOutputStream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An OutputFile which writes a local file through a FileChannel, without the Hadoop FileSystem.
+ * The data is collected in a direct buffer of the configured size and written to the channel when the buffer is full,
+ * so the file is written in large blocks and no checksum file is created.
+ */
+public class LocalOutputFile implements OutputFile {
+
+	/**
+	 * The default size of the write buffer.
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+	private final Path path;
+	private final int bufferSize;
+
+	public LocalOutputFile(Path path) {
+		this(path, DEFAULT_BUFFER_SIZE);
+	}
+
+	public LocalOutputFile(Path path, int bufferSize) {
+		if (bufferSize < 1) {
+			throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+		}
+		this.path = path;
+		this.bufferSize = bufferSize;
+	}
+
+	@Override
+	public PositionOutputStream create(long blockSizeHint) throws IOException {
+		return new ChannelOutputStream(FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE), bufferSize);
+	}
+
+	@Override
+	public PositionOutputStream createOrOverwrite(long blockSizeHint) throws IOException {
+		return new ChannelOutputStream(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.WRITE), bufferSize);
+	}
+
+	@Override
+	public boolean supportsBlockSize() {
+		return false;
+	}
+
+	@Override
+	public long defaultBlockSize() {
+		return 0;
+	}
+
+	@Override
+	public String toString() {
+		return path.toString();
+	}
+
+	private static class ChannelOutputStream extends PositionOutputStream {
+		private final FileChannel channel;
+		private final ByteBuffer buffer;
+		private long position;
+		private boolean closed;
+
+		ChannelOutputStream(FileChannel channel, int bufferSize) {
+			this.channel = channel;
+			//a direct buffer is written to the channel without another copy into a temporary direct buffer
+			this.buffer = ByteBuffer.allocateDirect(bufferSize);
+		}
+
+		@Override
+		public long getPos() {
+			return position;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if (!buffer.hasRemaining()) {
+				flushBuffer();
+			}
+			buffer.put((byte) b);
+			position++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			position += len;
+			while (len > 0) {
+				if (!buffer.hasRemaining()) {
+					flushBuffer();
+				}
+				int chunk = Math.min(len, buffer.remaining());
+				buffer.put(b, off, chunk);
+				off += chunk;
+				len -= chunk;
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			flushBuffer();
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			try {
+				flushBuffer();
+			} finally {
+				channel.close();
+			}
+		}
+
+		private void flushBuffer() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			buffer.clear();
+		}
+	}
+}
@@ -0,0 +1,188 @@
+package com.fishblack.fastparquet.writer;
+
+import org.apache.parquet.io.api.Binary;
+
+/**
+ * Remembers the converted values of the most recent distinct raw values of a column, so a value which repeats, such
+ * as a date, a timestamp or a price, is parsed once. The table is an open addressing table of two slot buckets, the
+ * hash of the raw value selects a bucket and a miss in a full bucket replaces its older entry, so the memory is bounded
+ * by the capacity. An invalid value is remembered as well, its error message is still built by the wrapped converter.
+ * The hit rate is checked every SAMPLE_SIZE lookups, a column whose values do not repeat enough turns the cache off
+ * for good and converts every value with the wrapped converter, which costs a counter check per value.
+ * A converter is used by one thread at a time, like the converters it wraps.
+ */
+final class MemoizingConverter extends ColumnConverter {
+
+	static final int SAMPLE_SIZE = 4096;
+	//below this hit rate the hash and the comparison of the raw value cost more than the conversions they save
+	static final double MIN_HIT_RATE = 0.25;
+
+	private static final byte EMPTY = 0;
+	private static final byte NULL = 1;
+	private static final byte VALUE = 2;
+	private static final byte INVALID = 3;
+
+	private static final int LONG_VALUE = 0;
+	private static final int DOUBLE_VALUE = 1;
+	private static final int BINARY_VALUE = 2;
+
+	private final ColumnConverter delegate;
+	private final int valueType;
+	//the number of bits of the hash which select a bucket
+	private final int shift;
+	private String[] keys;
+	private byte[] states;
+	//long values, or the bits of double values
+	private long[] longValues;
+	private Binary[] binaryValues;
+
+	private boolean enabled = true;
+	private long lookups;
+	private long hits;
+	private int sampleLookups;
+	private int sampleHits;
+
+	private MemoizingConverter(ColumnConverter delegate, int capacity) {
+		this.delegate = delegate;
+		this.valueType = delegate instanceof DoubleConverter ? DOUBLE_VALUE : delegate instanceof DecimalConverter ? BINARY_VALUE : LONG_VALUE;
+		int size = Math.max(Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1, 4);
+		this.shift = Integer.numberOfLeadingZeros(size - 1) + 1;
+		this.keys = new String[size];
+		this.states = new byte[size];
+		if (valueType == BINARY_VALUE) {
+			this.binaryValues = new Binary[size];
+		} else {
+			this.longValues = new long[size];
+		}
+	}
+
+	/**
+	 * Wrap the converter of a column whose values are parsed, the converters of strings and of integers, which are
+	 * cheaper to convert than to look up, are returned as they are.
+	 * @param capacity The number of distinct values remembered, rounded up to a power of two, 0 returns the converter.
+	 */
+	static ColumnConverter memoize(ColumnConverter converter, int capacity) {
+		if (capacity <= 0 || !(converter instanceof DoubleConverter || converter instanceof DecimalConverter
+				|| converter instanceof DateConverter || converter instanceof TimestampConverter)) {
+			return converter;
+		}
+		return new MemoizingConverter(converter, capacity);
+	}
+
+	@Override
+	public boolean tryConvert(String value, ParquetRow row, int column) {
+		if (!enabled) {
+			return delegate.tryConvert(value, row, column);
+		}
+		//the multiplication spreads the hashes of similar values, which differ in their last characters, over the buckets
+		int slot = ((value.hashCode() * 0x9E3779B9) >>> shift) << 1;
+		lookups++;
+		sampleLookups++;
+		boolean converted;
+		if (states[slot] != EMPTY && value.equals(keys[slot])) {
+			converted = hit(slot, row, column);
+		} else if (states[slot + 1] != EMPTY && value.equals(keys[slot + 1])) {
+			converted = hit(slot + 1, row, column);
+		} else {
+			converted = delegate.tryConvert(value, row, column);
+			//the newest entry of a bucket is in its first slot
+			if (states[slot] != EMPTY) {
+				move(slot, slot + 1);
+			}
+			remember(slot, value, converted, row, column);
+		}
+		if (sampleLookups == SAMPLE_SIZE) {
+			checkHitRate();
+		}
+		return converted;
+	}
+
+	private boolean hit(int slot, ParquetRow row, int column) {
+		hits++;
+		sampleHits++;
+		return restore(slot, row, column);
+	}
+
+	private void move(int from, int to) {
+		keys[to] = keys[from];
+		states[to] = states[from];
+		if (valueType == BINARY_VALUE) {
+			binaryValues[to] = binaryValues[from];
+		} else {
+			longValues[to] = longValues[from];
+		}
+	}
+
+	private boolean restore(int slot, ParquetRow row, int column) {
+		switch (states[slot]) {
+			case NULL:
+				row.setNull(column);
+				return true;
+			case INVALID:
+				return false;
+			default:
+				break;
+		}
+		if (valueType == BINARY_VALUE) {
+			row.setBinary(column, binaryValues[slot]);
+		} else if (valueType == DOUBLE_VALUE) {
+			row.setDouble(column, Double.longBitsToDouble(longValues[slot]));
+		} else {
+			row.setLong(column, longValues[slot]);
+		}
+		return true;
+	}
+
+	private void remember(int slot, String value, boolean converted, ParquetRow row, int column) {
+		keys[slot] = value;
+		if (!converted) {
+			states[slot] = INVALID;
+		} else if (row.isNull(column)) {
+			states[slot] = NULL;
+		} else {
+			states[slot] = VALUE;
+			if (valueType == BINARY_VALUE) {
+				//the converter may set a binary of a reused buffer
+				binaryValues[slot] = row.getBinary(column).copy();
+			} else if (valueType == DOUBLE_VALUE) {
+				longValues[slot] = Double.doubleToRawLongBits(row.getDouble(column));
+			} else {
+				longValues[slot] = row.getLong(column);
+			}
+		}
+	}
+
+	private void checkHitRate() {
+		if (sampleHits < SAMPLE_SIZE * MIN_HIT_RATE) {
+			enabled = false;
+			keys = null;
+			states = null;
+			longValues = null;
+			binaryValues = null;
+		}
+		sampleLookups = 0;
+		sampleHits = 0;
+	}
+
+	@Override
+	public String getErrorMessage(String value) {
+		return delegate.getErrorMessage(value);
+	}
+
+	@Override
+	public Object toAvroValue(ParquetRow row, int column) {
+		return delegate.toAvroValue(row, column);
+	}
+
+	boolean isEnabled() {
+		return enabled;
+	}
+
+	long getLookups() {
+		return lookups;
+	}
+
+	long getHits() {
+		return hits;
+	}
+}
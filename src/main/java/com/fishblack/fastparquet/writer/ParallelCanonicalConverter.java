@@ -0,0 +1,188 @@
+package com.fishblack.fastparquet.writer;
+
+import com.fishblack.fastparquet.common.ParquetConversionException;
+import com.fishblack.fastparquet.utils.CanonicalCsvReader;
+import com.fishblack.fastparquet.utils.MappedFileInputStream;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Converts a canonical CSV file into a ParquetDataWriter on a fork-join pool.
+ * The calling thread reads the file in ranges of about rangeSize bytes and cuts each range after its last complete
+ * record, which a BoundaryScanner finds with the quoting rules of the CSV reader, so a quoted line break never splits a
+ * record. The pool parses and converts the ranges, and the calling thread writes their rows to the writer in the order
+ * of the file, the row numbers of the conversion errors are counted from the rows of the ranges before.
+ * At most twice parallelism ranges are read ahead of the writer, which bounds the memory of the converted rows.
+ */
+class ParallelCanonicalConverter {
+
+	static final int DEFAULT_RANGE_SIZE = 4 * 1024 * 1024;
+
+	private static final AtomicInteger POOL_NUMBER = new AtomicInteger(1);
+
+	private final ParquetDataWriter writer;
+	private final int parallelism;
+	private final int rangeSize;
+
+	ParallelCanonicalConverter(ParquetDataWriter writer, int parallelism, int rangeSize) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+		}
+		if (rangeSize < 1) {
+			throw new IllegalArgumentException("Range size must be positive: " + rangeSize);
+		}
+		this.writer = writer;
+		this.parallelism = parallelism;
+		this.rangeSize = rangeSize;
+	}
+
+	/**
+	 * Convert the file, a header is skipped and records with a single field are ignored.
+	 * @param memoryMapped Whether the ranges are copied from memory mapped windows of the file instead of read.
+	 * @return number of rows actually written
+	 */
+	long convert(File file, boolean hasHeader, boolean memoryMapped) throws IOException, ParquetConversionException {
+		ForkJoinPool pool = new ForkJoinPool(parallelism, new ConverterThreadFactory(), null, false);
+		Deque<Future<Range>> pending = new ArrayDeque<>();
+		long rows = 0;
+		try (InputStream in = memoryMapped ? new MappedFileInputStream(file)
+				: Channels.newInputStream(FileChannel.open(file.toPath(), StandardOpenOption.READ))) {
+			CanonicalCsvReader.BoundaryScanner scanner = new CanonicalCsvReader.BoundaryScanner();
+			byte[] previous = new byte[0];
+			int carryStart = 0;
+			int carryEnd = 0;
+			boolean first = true;
+			boolean eof = false;
+			while (!eof) {
+				//the bytes after the last record end of the previous range start the next one
+				int carryLength = carryEnd - carryStart;
+				//a record longer than the range size doubles the next range, so it is not copied again for every range
+				byte[] data = new byte[carryLength + Math.max(rangeSize, carryLength)];
+				System.arraycopy(previous, carryStart, data, 0, carryLength);
+				int length = carryLength + readFully(in, data, carryLength);
+				eof = length < data.length;
+				int end = eof ? length : scanner.scan(data, carryLength, length);
+				if (end < 0) {
+					//no record ends in the range, such as in a long quoted field, read on
+					end = 0;
+				}
+				if (end > 0) {
+					boolean skipHeader = first && hasHeader;
+					first = false;
+					int rangeLength = end;
+					pending.add(pool.submit(() -> convertRange(data, rangeLength, skipHeader)));
+				}
+				previous = data;
+				carryStart = end;
+				carryEnd = length;
+				while (pending.size() >= 2 * parallelism) {
+					rows += writeNext(pending);
+				}
+			}
+			while (!pending.isEmpty()) {
+				rows += writeNext(pending);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		return rows;
+	}
+
+	private static int readFully(InputStream in, byte[] data, int offset) throws IOException {
+		int position = offset;
+		while (position < data.length) {
+			int read = in.read(data, position, data.length - position);
+			if (read < 0) {
+				break;
+			}
+			position += read;
+		}
+		return position - offset;
+	}
+
+	/**
+	 * Parse and convert the records of data[0, length) on a worker thread. An error stops the range, the rows before
+	 * it are kept so they are written before the error is thrown, like a sequential conversion does.
+	 */
+	private Range convertRange(byte[] data, int length, boolean skipHeader) {
+		ConvertedRows rows = writer.newConvertedRows();
+		Exception error = null;
+		try (CanonicalCsvReader reader = new CanonicalCsvReader(data, 0, length)) {
+			String[] record = reader.readNext();
+			if (skipHeader) {
+				record = reader.readNext();
+			}
+			while (record != null) {
+				if (record.length != 1) {
+					rows.add(record);
+				}
+				record = reader.readNext();
+			}
+		} catch (IOException | ParquetConversionException e) {
+			error = e;
+		}
+		return new Range(rows, error);
+	}
+
+	/**
+	 * Wait for the oldest range to be converted and write its rows.
+	 * @return number of rows written
+	 */
+	private long writeNext(Deque<Future<Range>> pending) throws IOException, ParquetConversionException {
+		Range range;
+		try {
+			range = pending.pop().get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while converting canonical data", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IOException("Failed to convert canonical data", cause);
+		}
+		long rows = writer.writeConverted(range.rows);
+		if (range.error instanceof ParquetConversionException) {
+			throw (ParquetConversionException) range.error;
+		}
+		if (range.error != null) {
+			throw (IOException) range.error;
+		}
+		return rows;
+	}
+
+	private static class Range {
+		private final ConvertedRows rows;
+		private final Exception error;
+
+		Range(ConvertedRows rows, Exception error) {
+			this.rows = rows;
+			this.error = error;
+		}
+	}
+
+	private static class ConverterThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+		private final int poolNumber = POOL_NUMBER.getAndIncrement();
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+		@Override
+		public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName("fastparquet-converter-" + poolNumber + "-" + threadNumber.getAndIncrement());
+			return thread;
+		}
+	}
+}
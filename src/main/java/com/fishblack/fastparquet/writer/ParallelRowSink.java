@@ -0,0 +1,258 @@
+package com.fishblack.fastparquet.writer;
+
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.hadoop.metadata.FileMetaData;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.PositionOutputStream;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A RowSink which encodes row groups on a pool of worker threads.
+ * Converted rows are buffered until a batch reaches the row group size, the batch is then encoded and compressed into
+ * an in-memory parquet file by a worker, and the column chunks of the finished batches are appended to the output file
+ * in the order the rows were written. The last batch is encoded when the sink is closed, its footer provides the key
+ * value metadata of the output file.
+ * At most parallelism batches are encoded or waiting to be appended at a time, so the memory used is bounded by about
+ * twice parallelism times the row group size.
+ * When appending a batch or ending the file fails, the pending batches are cancelled and the output stream is closed,
+ * the sink cannot be used anymore.
+ */
+class ParallelRowSink implements RowSink {
+
+	private static final AtomicInteger POOL_NUMBER = new AtomicInteger(1);
+
+	private final RowSink.Factory sinkFactory;
+	private final CompressionCodecName codec;
+	private final OutputFile outputFile;
+	private final int rowGroupSize;
+	private final int parallelism;
+	private final int columnCount;
+	private final ExecutorService executor;
+	private final Deque<Future<Chunk>> pending = new ArrayDeque<>();
+	private final Deque<RowBatch> freeBatches = new ArrayDeque<>();
+	private RowBatch batch;
+	private long pendingSize;
+	private ParquetFileWriter fileWriter;
+	// the stream of the output file created by the file writer, it is closed by end() or by abort()
+	private PositionOutputStream out;
+	private Map<String, String> extraMetaData;
+	private boolean failed;
+
+	ParallelRowSink(RowSink.Factory sinkFactory, CompressionCodecName codec, OutputFile outputFile, int columnCount,
+	                int rowGroupSize, int parallelism) {
+		this.sinkFactory = sinkFactory;
+		this.codec = codec;
+		this.outputFile = new TrackingOutputFile(outputFile);
+		this.columnCount = columnCount;
+		this.rowGroupSize = rowGroupSize;
+		this.parallelism = parallelism;
+		this.executor = Executors.newFixedThreadPool(parallelism, new EncoderThreadFactory());
+		this.batch = new RowBatch(columnCount);
+	}
+
+	@Override
+	public void write(ParquetRow row) throws IOException {
+		checkNotFailed();
+		batch.add(row);
+		if (batch.getEstimatedSize() >= rowGroupSize) {
+			try {
+				submit(batch, null);
+			} catch (IOException | RuntimeException e) {
+				abort(e);
+				throw e;
+			}
+			batch = freeBatches.isEmpty() ? new RowBatch(columnCount) : freeBatches.pop();
+		}
+	}
+
+	@Override
+	public void setExtraMetaData(Map<String, String> extraMetaData) {
+		this.extraMetaData = extraMetaData;
+	}
+
+	@Override
+	public long getDataSize() {
+		long size = pendingSize + batch.getEstimatedSize();
+		if (fileWriter != null) {
+			try {
+				size += fileWriter.getPos();
+			} catch (IOException e) {
+				//the position is only used as an estimate
+			}
+		}
+		return size;
+	}
+
+	@Override
+	public void close() throws IOException {
+		checkNotFailed();
+		try {
+			//the last batch, even if it is empty, carries the final key value metadata into the footer
+			submit(batch, extraMetaData);
+			FileMetaData lastMetaData = null;
+			while (!pending.isEmpty()) {
+				lastMetaData = appendNext();
+			}
+			fileWriter.end(lastMetaData.getKeyValueMetaData());
+		} catch (IOException | RuntimeException e) {
+			abort(e);
+			throw e;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void checkNotFailed() throws IOException {
+		if (failed) {
+			throw new IOException("The parallel writer has failed and is closed");
+		}
+	}
+
+	/**
+	 * Cancel the pending batches and close the output stream which end() did not reach.
+	 */
+	private void abort(Exception e) {
+		failed = true;
+		for (Future<Chunk> future : pending) {
+			future.cancel(true);
+		}
+		pending.clear();
+		executor.shutdownNow();
+		if (out != null) {
+			try {
+				out.close();
+			} catch (IOException | RuntimeException suppressed) {
+				e.addSuppressed(suppressed);
+			}
+		}
+	}
+
+	private void submit(RowBatch rows, Map<String, String> metaData) throws IOException {
+		if (pending.size() >= parallelism) {
+			appendNext();
+		}
+		pendingSize += rows.getEstimatedSize();
+		pending.add(executor.submit(() -> encode(rows, metaData)));
+	}
+
+	/**
+	 * Encode a batch of rows into an in-memory parquet file with the sink of the write engine.
+	 */
+	private Chunk encode(RowBatch rows, Map<String, String> metaData) throws IOException {
+		InMemoryOutputFile file = new InMemoryOutputFile((int) Math.min(rows.getEstimatedSize() / 2 + 1024, Integer.MAX_VALUE - 8));
+		try (RowSink sink = sinkFactory.open(file, codec)) {
+			for (int i = 0; i < rows.size(); i++) {
+				sink.write(rows.get(i));
+			}
+			if (metaData != null) {
+				sink.setExtraMetaData(metaData);
+			}
+		}
+		return new Chunk(rows, file.toInputFile());
+	}
+
+	/**
+	 * Wait for the oldest batch to be encoded and append its row groups to the output file.
+	 * @return The file metadata of the appended batch.
+	 */
+	private FileMetaData appendNext() throws IOException {
+		Chunk chunk;
+		try {
+			chunk = pending.pop().get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while encoding row group", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			throw new IOException("Failed to encode row group", cause);
+		}
+
+		FileMetaData metaData;
+		try (ParquetFileReader reader = ParquetFileReader.open(chunk.file)) {
+			metaData = reader.getFooter().getFileMetaData();
+			if (fileWriter == null) {
+				fileWriter = new ParquetFileWriter(outputFile, metaData.getSchema(), ParquetFileWriter.Mode.OVERWRITE,
+						rowGroupSize, ParquetWriter.MAX_PADDING_SIZE_DEFAULT);
+				fileWriter.start();
+			}
+			reader.appendTo(fileWriter);
+		}
+
+		pendingSize -= chunk.rows.getEstimatedSize();
+		chunk.rows.clear();
+		freeBatches.push(chunk.rows);
+		return metaData;
+	}
+
+	/**
+	 * Keeps the stream created for the file writer, which does not close it when it fails before end().
+	 */
+	private class TrackingOutputFile implements OutputFile {
+		private final OutputFile file;
+
+		TrackingOutputFile(OutputFile file) {
+			this.file = file;
+		}
+
+		@Override
+		public PositionOutputStream create(long blockSizeHint) throws IOException {
+			out = file.create(blockSizeHint);
+			return out;
+		}
+
+		@Override
+		public PositionOutputStream createOrOverwrite(long blockSizeHint) throws IOException {
+			out = file.createOrOverwrite(blockSizeHint);
+			return out;
+		}
+
+		@Override
+		public boolean supportsBlockSize() {
+			return file.supportsBlockSize();
+		}
+
+		@Override
+		public long defaultBlockSize() {
+			return file.defaultBlockSize();
+		}
+	}
+
+	private static class Chunk {
+		private final RowBatch rows;
+		private final InputFile file;
+
+		Chunk(RowBatch rows, InputFile file) {
+			this.rows = rows;
+			this.file = file;
+		}
+	}
+
+	private static class EncoderThreadFactory implements ThreadFactory {
+		private final int poolNumber = POOL_NUMBER.getAndIncrement();
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "fastparquet-encoder-" + poolNumber + "-" + threadNumber.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
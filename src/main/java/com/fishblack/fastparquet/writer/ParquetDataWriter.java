@@ -4,7 +4,7 @@ import com.fishblack.fastparquet.common.ConvertResult;
 import com.fishblack.fastparquet.common.FieldMetadata;
 import com.fishblack.fastparquet.common.ParquetConversionException;
 import com.fishblack.fastparquet.common.SchemaConverter;
-import com.fishblack.fastparquet.utils.ParquetAvroUtils;
+import com.fishblack.fastparquet.reader.PageIndex;
 import org.apache.avro.Conversions;
 import org.apache.avro.Schema;
 import org.apache.avro.Schema.Field;
@@ -15,15 +15,20 @@ import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.parquet.hadoop.ParquetWriter;
 import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.hadoop.util.HadoopOutputFile;
+import org.apache.parquet.io.OutputFile;
 import org.apache.parquet.schema.InvalidSchemaException;
 
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import static com.fishblack.fastparquet.common.ConvertResult.AUDIT_CONVERT_RESULT_KEY;
@@ -32,9 +37,11 @@ import static com.fishblack.fastparquet.common.FastParquetConstants.PARQUET_VERS
 import static com.fishblack.fastparquet.common.FastParquetConstants.PARQUET_VERSION_VALUE;
 
 /**
- * The parquet file will be automatically created in local disk with the specified parquetPath.
+ * The parquet file will be automatically created in local disk with the specified parquetPath, or written to the
+ * specified OutputStream or OutputFile.
  * Clients should call the write() method continuously until all data are written.
  * Clients should call the close() method when finished writing.
+ * With an asynchronous writer, an error of the background thread is thrown by the next write() or by close().
  */
 public class ParquetDataWriter implements Closeable {
 	private static final Logger logger = Logger.getLogger(ParquetDataWriter.class.getName());
@@ -42,13 +49,28 @@ public class ParquetDataWriter implements Closeable {
 	private final String parquetPath;
 	private List<FieldMetadata> fields;
 	private Schema sc;
-	private ParquetWriter<GenericData.Record> writer;
-	private FastAvroWriteSupport<GenericData.Record> writeSupport;
+	private RowSink sink;
 	private Map<String, String> keyValueMetadata;
     private ConvertResult convertResult;
     private long currentRow = 0;
     private List<Field> fieldList ;
     private boolean isAuditMetaDataNeeded;
+    private ParquetWriteOptions options;
+    private Configuration conf;
+    private GenericData model;
+    private ParquetRow row;
+    private ColumnConverter[] converters;
+    //the converters of canonical values, with the value cache when it is on
+    private ColumnConverter[] valueConverters;
+    //the value cache counts of the rows converted ahead, by column
+    private long[] convertedCacheLookups;
+    private long[] convertedCacheHits;
+    private boolean[] convertedCacheDisabled;
+    private String[] fieldNames;
+    private AsyncRowQueue asyncQueue;
+    private Map<String, String> rowFieldErrorMap;
+    private boolean typedRowStarted;
+    private volatile long asyncDataSize;
     
 	/**
 	 * Constructs a ParquetDataWriter
@@ -57,11 +79,7 @@ public class ParquetDataWriter implements Closeable {
 	 * @throws IOException 
 	 */
 	public ParquetDataWriter(List<FieldMetadata> fields, String parquetPath) throws IOException {
-		this.fields = fields;
-		this.parquetPath = parquetPath;
-		this.keyValueMetadata = new HashMap<>();
-		this.isAuditMetaDataNeeded = true;
-		init();
+		this(fields, parquetPath, new HashMap<>(), new ParquetWriteOptions());
 	}
 	
 	/**
@@ -72,11 +90,7 @@ public class ParquetDataWriter implements Closeable {
 	 * @throws IOException 
 	 */
 	public ParquetDataWriter(List<FieldMetadata> fields, String parquetPath, Map<String, String> keyValueMetadata) throws IOException, InvalidSchemaException {
-		this.fields = fields;
-		this.parquetPath = parquetPath;
-		this.keyValueMetadata = keyValueMetadata;
-        this.isAuditMetaDataNeeded = true;
-		init();
+		this(fields, parquetPath, keyValueMetadata, new ParquetWriteOptions());
 	}
 
     /**
@@ -88,20 +102,81 @@ public class ParquetDataWriter implements Closeable {
      * @throws IOException
      */
     public ParquetDataWriter(List<FieldMetadata> fields, String parquetPath, Map<String, String> keyValueMetadata, boolean isAuditMetaDataNeeded) throws IOException, InvalidSchemaException {
+        this(fields, parquetPath, keyValueMetadata, new ParquetWriteOptions().withAuditMetadata(isAuditMetaDataNeeded));
+    }
+
+    /**
+     * Constructs a ParquetDataWriter
+     * @param fields List of FieldMetadata.
+     * @param parquetPath The parquet file to write the data into.
+     * @param keyValueMetadata The parquet file level key value metadata.
+     * @param options The writer options, such as the write engine.
+     * @throws IOException
+     */
+    public ParquetDataWriter(List<FieldMetadata> fields, String parquetPath, Map<String, String> keyValueMetadata, ParquetWriteOptions options) throws IOException, InvalidSchemaException {
         this.fields = fields;
         this.parquetPath = parquetPath;
         this.keyValueMetadata = keyValueMetadata;
-        this.isAuditMetaDataNeeded = isAuditMetaDataNeeded;
-        init();
+        this.options = options == null ? new ParquetWriteOptions() : options;
+        this.isAuditMetaDataNeeded = this.options.isAuditMetadataNeeded();
+        init(null);
+    }
+
+    /**
+     * Constructs a ParquetDataWriter which writes the parquet data to an output stream instead of a local file.
+     * The stream is written from the start of the file, it is flushed but not closed by close().
+     * @param fields List of FieldMetadata.
+     * @param out The stream to write the parquet data into.
+     * @param keyValueMetadata The parquet file level key value metadata.
+     * @param options The writer options, the output backend and buffer size do not apply to a stream.
+     * @throws IOException
+     */
+    public ParquetDataWriter(List<FieldMetadata> fields, OutputStream out, Map<String, String> keyValueMetadata, ParquetWriteOptions options) throws IOException, InvalidSchemaException {
+        this(fields, new StreamOutputFile(out), keyValueMetadata, options);
+    }
+
+    /**
+     * Constructs a ParquetDataWriter which writes the parquet data to an OutputFile, such as a BufferOutputFile.
+     * The output file is created by the writer, an existing file is not deleted first.
+     * @param fields List of FieldMetadata.
+     * @param outputFile The output file to write the parquet data into.
+     * @param keyValueMetadata The parquet file level key value metadata.
+     * @param options The writer options, the output backend and buffer size do not apply to an output file.
+     * @throws IOException
+     */
+    public ParquetDataWriter(List<FieldMetadata> fields, OutputFile outputFile, Map<String, String> keyValueMetadata, ParquetWriteOptions options) throws IOException, InvalidSchemaException {
+        if (outputFile == null) {
+            throw new IllegalArgumentException("Output file must not be null");
+        }
+        this.fields = fields;
+        this.parquetPath = null;
+        this.keyValueMetadata = keyValueMetadata;
+        this.options = options == null ? new ParquetWriteOptions() : options;
+        this.isAuditMetaDataNeeded = this.options.isAuditMetadataNeeded();
+        init(outputFile);
     }
 	
-	private void init() throws IOException, InvalidSchemaException {
+	/**
+	 * @param outputFile The output file to write, or null to write the local file of parquetPath.
+	 */
+	private void init(OutputFile outputFile) throws IOException, InvalidSchemaException {
 		sc = SchemaConverter.toAvroSchema(fields);
 		fieldList = sc.getFields();
-		GenericData model = GenericData.get();
-		model.addLogicalTypeConversion(new Conversions.DecimalConversion());
-		model.addLogicalTypeConversion(new TimeConversions.DateConversion());//date
-		model.addLogicalTypeConversion(new TimeConversions.TimestampConversion());//timestamp
+
+		//compile the value converter of each field once, so that writing does no per value schema inspection
+		converters = new ColumnConverter[fieldList.size()];
+		fieldNames = new String[fieldList.size()];
+		for (int i = 0; i < fieldList.size(); i++) {
+			converters[i] = ColumnConverter.create(fieldList.get(i).schema());
+			//use auto numbered field name to avoid Avro and Parquet invalid field name issue
+			fieldNames[i] = "f" + i;
+		}
+		valueConverters = memoize(converters);
+		convertedCacheLookups = new long[fieldList.size()];
+		convertedCacheHits = new long[fieldList.size()];
+		convertedCacheDisabled = new boolean[fieldList.size()];
+		row = new ParquetRow(fieldList.size());
+		model = DataModelHolder.MODEL;
 
 		//Add parquet version into key-value metadata
 		if (keyValueMetadata == null){
@@ -109,29 +184,87 @@ public class ParquetDataWriter implements Closeable {
 		}
 		keyValueMetadata.put(PARQUET_VERSION_KEY, PARQUET_VERSION_VALUE);
 
-		Configuration conf = new Configuration();
-		
-		//turn off writing .crc temp files
-		FileSystem fs = FileSystem.get(conf);
-		fs.setWriteChecksum(false);
+		if (outputFile != null || options.getOutputBackend() == ParquetWriteOptions.OutputBackend.NIO) {
+			conf = new Configuration(DefaultConfigurationHolder.CONFIGURATION);
+		} else {
+			conf = new Configuration();
+		}
 
-		FastParquetAvroWriter.Builder<GenericData.Record> builder = new FastParquetAvroWriter.Builder<GenericData.Record>(new Path(parquetPath), keyValueMetadata)
-																						   .withSchema(sc)
-																						   .withConf(conf)
-																						   .withCompressionCodec(CompressionCodecName.SNAPPY);
-		builder.withDataModel(model);
-		
+		if (outputFile == null) {
+			outputFile = openLocalFile();
+		}
+		if (options.isAdaptiveCompression()) {
+			sink = new AdaptiveCodecRowSink(this::openSink, this::openOutputSink, outputFile, fieldList.size(),
+					options.getCompressionGoal(), options.getCompressionCandidates(),
+					Math.min(options.getCompressionSampleSize(), options.getRowGroupSize()));
+		} else {
+			sink = openOutputSink(outputFile, options.getCompressionCodec());
+		}
+
+        convertResult = new ConvertResult();
+		if (options.getAsyncBufferSize() > 0) {
+			asyncQueue = new AsyncRowQueue(options.getAsyncBufferSize(), fieldList.size(), this::writeRow);
+		}
+	}
+
+	/**
+	 * Delete an existing file of parquetPath and its page index, and return the output file of the configured backend.
+	 */
+	private OutputFile openLocalFile() throws IOException {
 		File parquetFile = new File(parquetPath);
 		if(parquetFile.exists()) {
 			if (!parquetFile.delete()){
 				logger.warning("Parquet file has not been deleted.");
 			}
 		}
-		
-		writer = builder.build();
-		writeSupport = builder.getWriteSupport();
+		File indexFile = PageIndex.indexFile(parquetPath);
+		if (indexFile.exists() && !indexFile.delete()) {
+			logger.warning("Page index of parquet file has not been deleted.");
+		}
 
-        convertResult = new ConvertResult();
+		if (options.getOutputBackend() == ParquetWriteOptions.OutputBackend.NIO) {
+			return new LocalOutputFile(parquetFile.toPath(), options.getOutputBufferSize());
+		}
+		//turn off writing .crc temp files
+		FileSystem fs = FileSystem.get(conf);
+		fs.setWriteChecksum(false);
+		return HadoopOutputFile.fromPath(new Path(parquetPath), conf);
+	}
+
+	/**
+	 * Open the sink of the output file, which encodes the row groups in parallel if configured.
+	 */
+	private RowSink openOutputSink(OutputFile outputFile, CompressionCodecName codec) throws IOException {
+		if (options.getParallelism() > 1) {
+			return new ParallelRowSink(this::openSink, codec, outputFile, fieldList.size(), options.getRowGroupSize(), options.getParallelism());
+		}
+		return openSink(outputFile, codec);
+	}
+
+	/**
+	 * Open a sink of the configured write engine which writes one parquet file into the output file.
+	 */
+	private RowSink openSink(OutputFile outputFile, CompressionCodecName codec) throws IOException {
+		if (options.getWriteEngine() == ParquetWriteOptions.WriteEngine.DIRECT) {
+			FastParquetRowWriter.Builder builder = new FastParquetRowWriter.Builder(outputFile, keyValueMetadata)
+																			   .withSchema(sc)
+																			   .withConf(conf)
+																			   .withRowGroupSize(options.getRowGroupSize())
+																			   .withPageSize(options.getPageSize())
+																			   .withCompressionCodec(codec);
+			ParquetWriter<ParquetRow> rowWriter = builder.build();
+			return new DirectRowSink(rowWriter, builder.getWriteSupport());
+		} else {
+			FastParquetAvroWriter.Builder<GenericData.Record> builder = new FastParquetAvroWriter.Builder<GenericData.Record>(outputFile, keyValueMetadata)
+																							   .withSchema(sc)
+																							   .withConf(conf)
+																							   .withRowGroupSize(options.getRowGroupSize())
+																							   .withPageSize(options.getPageSize())
+																							   .withCompressionCodec(codec);
+			builder.withDataModel(model);
+			ParquetWriter<GenericData.Record> writer = builder.build();
+			return new AvroRowSink(writer, builder.getWriteSupport(), sc, converters);
+		}
 	}
 	
 	/**
@@ -165,41 +298,295 @@ public class ParquetDataWriter implements Closeable {
 	public long write(String[] data) throws IOException, ParquetConversionException {
 		
 		checkRecordMatchMetadata(data);
+		if (typedRowStarted) {
+			throw new IllegalStateException("A typed row is in progress, call endRow() before write().");
+		}
+
+		if (asyncQueue != null) {
+			asyncQueue.put(data);
+			return 1;
+		}
+		return writeRow(data);
+	}
 
+	/**
+	 * Convert the row and write it to the sink, on the background thread in async mode.
+	 */
+	private long writeRow(String[] data) throws IOException {
 		int rowsWritten = 1;
-		GenericData.Record avroRecord = new GenericData.Record(sc);
-        boolean hasErrorInRow = false;
-        Map<String, String> rowFieldErrorMap = new ConcurrentHashMap<>();
-		for(int j = 0; j < data.length; j++) {
-			Schema fieldSchema = fieldList.get(j).schema();
-			//use auto numbered field name to avoid Avro and Parquet invalid field name issue
-			String fieldName = "f" + j;
+		rowFieldErrorMap = convertRow(valueConverters, fieldNames, row, data);
+		finishRow();
+        return rowsWritten;
+	}
 
+	/**
+	 * Convert the canonical values into the row.
+	 * @return The error map of the row, or null if all values are converted.
+	 */
+	static Map<String, String> convertRow(ColumnConverter[] converters, String[] fieldNames, ParquetRow row, String[] data) {
+		Map<String, String> errors = null;
+		row.clear();
+		for(int j = 0; j < data.length; j++) {
 			String valueStr = data[j];
 			if(valueStr == null) {
 				continue;
 			}
+			errors = convertValue(converters, fieldNames, row, j, valueStr, errors);
+		}
+		return errors;
+	}
 
-			Object avroValue = null;
-			try {
-				avroValue = ParquetAvroUtils.toAvroFieldValue(fieldSchema, valueStr);
-			} catch(UnsupportedOperationException | IllegalArgumentException | ArithmeticException ex) {
-                hasErrorInRow = true;
-                rowFieldErrorMap.put(fieldName, ex.getMessage() == null ? ex.toString() : ex.getMessage());
+	/**
+	 * Convert the canonical value into the column of the row, a conversion error is added to the error map of the row.
+	 * @return The error map of the row, it is only created when the row has an error, so clean rows allocate nothing here.
+	 */
+	private static Map<String, String> convertValue(ColumnConverter[] converters, String[] fieldNames, ParquetRow row,
+	                                                int column, String value, Map<String, String> errors) {
+		String message;
+		try {
+			//an invalid value is reported by the status, the message is only built for the error map
+			if (converters[column].tryConvert(value, row, column)) {
+				return errors;
 			}
-			avroRecord.put(fieldName, avroValue);
+			message = converters[column].getErrorMessage(value);
+		} catch(UnsupportedOperationException | IllegalArgumentException | ArithmeticException ex) {
+			message = ex.getMessage() == null ? ex.toString() : ex.getMessage();
 		}
-		
-        if (hasErrorInRow){
+		if (errors == null) {
+			errors = new ConcurrentHashMap<>();
+		}
+		errors.put(fieldNames[column], message);
+		return errors;
+	}
+
+	/**
+	 * Count the current row in the convert result and write it to the sink.
+	 */
+	private void finishRow() throws IOException {
+        countRow(rowFieldErrorMap);
+        rowFieldErrorMap = null;
+        sink.write(row);
+        currentRow ++;
+        if (asyncQueue != null) {
+            //the sink is not thread safe, publish its size for getDataSize() on other threads
+            asyncDataSize = sink.getDataSize();
+        }
+	}
+
+	private void countRow(Map<String, String> errors) {
+        if (errors != null){
             convertResult.setFailureCount(convertResult.getFailureCount() + 1);
-            convertResult.getErrors().put(currentRow, rowFieldErrorMap);
+            convertResult.getErrors().put(currentRow, errors);
         }
         else {
             convertResult.setSuccessCount(convertResult.getSuccessCount() + 1);
         }
-        writer.write(avroRecord);
-        currentRow ++;
-        return rowsWritten;
+	}
+
+	/**
+	 * Returns an empty buffer of rows which are converted with converters of their own, such as on another thread.
+	 */
+	ConvertedRows newConvertedRows() {
+		ColumnConverter[] rowConverters = new ColumnConverter[fieldList.size()];
+		for (int i = 0; i < rowConverters.length; i++) {
+			rowConverters[i] = ColumnConverter.create(fieldList.get(i).schema());
+		}
+		return new ConvertedRows(memoize(rowConverters), fieldNames);
+	}
+
+	/**
+	 * Returns the converters wrapped by the value cache of the options, or the same converters if it is off.
+	 */
+	private ColumnConverter[] memoize(ColumnConverter[] columnConverters) {
+		if (options.getValueCacheSize() == 0) {
+			return columnConverters;
+		}
+		ColumnConverter[] memoized = new ColumnConverter[columnConverters.length];
+		for (int i = 0; i < memoized.length; i++) {
+			memoized[i] = MemoizingConverter.memoize(columnConverters[i], options.getValueCacheSize());
+		}
+		return memoized;
+	}
+
+	/**
+	 * Write the rows converted ahead, they are counted in the convert result the same as rows passed to write().
+	 * @return number of rows actually written
+	 */
+	long writeConverted(ConvertedRows rows) throws IOException {
+		checkConvertedRowsWritable();
+		ColumnConverter[] rowConverters = rows.getConverters();
+		for (int i = 0; i < rowConverters.length; i++) {
+			if (rowConverters[i] instanceof MemoizingConverter) {
+				MemoizingConverter cache = (MemoizingConverter) rowConverters[i];
+				convertedCacheLookups[i] += cache.getLookups();
+				convertedCacheHits[i] += cache.getHits();
+				convertedCacheDisabled[i] |= !cache.isEnabled();
+			}
+		}
+		for (int i = 0; i < rows.size(); i++) {
+			countRow(rows.getErrors(i));
+			sink.write(rows.get(i));
+			currentRow ++;
+		}
+		return rows.size();
+	}
+
+	/**
+	 * Convert the canonical CSV file into parquet data on parallelism threads, the records are read the same as by
+	 * ParquetConverter.canonicalToParquet(): a header is skipped and records with a single field are ignored. The rows
+	 * are written in the order of the file and the row numbers of the convert result are the same as when they are
+	 * written one by one. The typed row API and the asynchronous writer cannot be used at the same time.
+	 * @param file The canonical CSV file in UTF-8.
+	 * @param hasHeader Whether the first record is a header.
+	 * @param parallelism The number of threads which parse and convert ranges of the file.
+	 * @return number of rows actually written
+	 * @throws IOException
+	 * @throws ParquetConversionException If a record length does not match fields length, the rows before it are written.
+	 */
+	public long writeCanonicalFile(File file, boolean hasHeader, int parallelism) throws IOException, ParquetConversionException {
+		return writeCanonicalFile(file, hasHeader, parallelism, false);
+	}
+
+	/**
+	 * Convert the canonical CSV file like the method above.
+	 * @param memoryMapped Whether the ranges of the file are copied from memory mapped windows instead of read.
+	 */
+	public long writeCanonicalFile(File file, boolean hasHeader, int parallelism, boolean memoryMapped) throws IOException, ParquetConversionException {
+		checkConvertedRowsWritable();
+		return new ParallelCanonicalConverter(this, parallelism, ParallelCanonicalConverter.DEFAULT_RANGE_SIZE).convert(file, hasHeader, memoryMapped);
+	}
+
+	private void checkConvertedRowsWritable() {
+		if (asyncQueue != null) {
+			throw new IllegalStateException("Converted rows cannot be written by an asynchronous writer.");
+		}
+		if (typedRowStarted) {
+			throw new IllegalStateException("A typed row is in progress, call endRow() before writing rows.");
+		}
+	}
+
+	/**
+	 * Set an integer column of the current typed row.
+	 * The typed setters build a row from values which are already typed, without formatting and parsing them as
+	 * canonical strings. Call endRow() after the values of a row are set, columns which are not set are null.
+	 * The typed row API is not available with an asynchronous writer.
+	 * @param column The column index.
+	 * @param value The value.
+	 * @throws IllegalArgumentException If the column is not an integer column.
+	 */
+	public void setInt(int column, int value) {
+		startTypedValue(column, ColumnConverter.IntConverter.class, "setInt");
+		row.setInt(column, value);
+	}
+
+	/**
+	 * Set a long column of the current typed row.
+	 * @see #setInt(int, int)
+	 */
+	public void setLong(int column, long value) {
+		startTypedValue(column, ColumnConverter.LongConverter.class, "setLong");
+		row.setLong(column, value);
+	}
+
+	/**
+	 * Set a double column of the current typed row.
+	 * @see #setInt(int, int)
+	 */
+	public void setDouble(int column, double value) {
+		startTypedValue(column, ColumnConverter.DoubleConverter.class, "setDouble");
+		row.setDouble(column, value);
+	}
+
+	/**
+	 * Set a date column of the current typed row.
+	 * @param column The column index.
+	 * @param epochDays The number of days since 1970-01-01.
+	 * @see #setInt(int, int)
+	 */
+	public void setDate(int column, int epochDays) {
+		startTypedValue(column, ColumnConverter.DateConverter.class, "setDate");
+		row.setInt(column, epochDays);
+	}
+
+	/**
+	 * Set a timestamp or time column of the current typed row.
+	 * @param column The column index.
+	 * @param epochMillis The milliseconds since 1970-01-01T00:00:00Z, a time is the time of day on 1970-01-01.
+	 * @see #setInt(int, int)
+	 */
+	public void setTimestampMillis(int column, long epochMillis) {
+		startTypedValue(column, ColumnConverter.TimestampConverter.class, "setTimestampMillis");
+		row.setLong(column, epochMillis);
+	}
+
+	/**
+	 * Set a decimal column of the current typed row.
+	 * @param column The column index.
+	 * @param unscaledValue The unscaled value at the scale of the column, such as 12345 for 123.45 in number(10,2).
+	 * @see #setInt(int, int)
+	 */
+	public void setDecimalUnscaled(int column, long unscaledValue) {
+		startTypedValue(column, ColumnConverter.DecimalConverter.class, "setDecimalUnscaled");
+		((ColumnConverter.DecimalConverter) converters[column]).setUnscaled(unscaledValue, row, column);
+	}
+
+	/**
+	 * Set a column of the current typed row from a value in canonical format, such as a varchar value.
+	 * The value is converted the same as by write(), a conversion error is recorded as an error of the row.
+	 * @see #setInt(int, int)
+	 */
+	public void setString(int column, String value) {
+		startTypedValue(column, ColumnConverter.class, "setString");
+		if (value == null) {
+			row.setNull(column);
+		} else {
+			rowFieldErrorMap = convertValue(valueConverters, fieldNames, row, column, value, rowFieldErrorMap);
+		}
+	}
+
+	/**
+	 * Set a column of the current typed row to null.
+	 * @see #setInt(int, int)
+	 */
+	public void setNull(int column) {
+		startTypedValue(column, ColumnConverter.class, "setNull");
+		row.setNull(column);
+	}
+
+	/**
+	 * Write the current typed row into parquet file, it is counted in the convert result the same as a row passed to write().
+	 * Values set after the last endRow() are discarded by close().
+	 * @return number of rows actually written
+	 * @throws IOException
+	 */
+	public long endRow() throws IOException {
+		if (!typedRowStarted) {
+			startTypedRow();
+		}
+		finishRow();
+		typedRowStarted = false;
+		return 1;
+	}
+
+	private void startTypedValue(int column, Class<? extends ColumnConverter> converterType, String setter) {
+		if (!typedRowStarted) {
+			startTypedRow();
+		}
+		if (column < 0 || column >= converters.length) {
+			throw new IllegalArgumentException("Column index " + column + " is out of range, the writer has " + converters.length + " columns.");
+		}
+		if (!converterType.isInstance(converters[column])) {
+			throw new IllegalArgumentException("Column " + column + " of type " + fields.get(column).getFieldType() + " cannot be set by " + setter + ".");
+		}
+	}
+
+	private void startTypedRow() {
+		if (asyncQueue != null) {
+			throw new IllegalStateException("The typed row API is not available with an asynchronous writer.");
+		}
+		row.clear();
+		rowFieldErrorMap = null;
+		typedRowStarted = true;
 	}
 
     /**
@@ -208,30 +595,19 @@ public class ParquetDataWriter implements Closeable {
 	private void writeAuditMetadata() {
         HashMap<String, String> auditMap = new HashMap<>();
         convertResult.setTotalCount(currentRow);
-        long failureCount = convertResult.getFailureCount();
-        if (failureCount == 0){
-            convertResult.setResult(ConvertResult.Result.SUCCESS);
-        }
-        else if (failureCount > 0 && failureCount < currentRow){
-            convertResult.setResult(ConvertResult.Result.PARTIAL_SUCCESS);
-        }
-        else {
-            convertResult.setResult(ConvertResult.Result.FAILED);
-        }
+        convertResult.setResult(ConvertResult.resultOf(convertResult.getFailureCount(), currentRow));
         auditMap.put(AUDIT_DETAIL_MESSAGE_KEY, convertResult.toJSON());
         auditMap.put(AUDIT_CONVERT_RESULT_KEY, convertResult.getResult().toString());
 
         if (keyValueMetadata!=null){
             auditMap.putAll(keyValueMetadata);
         }
-        if (writeSupport != null){
-            writeSupport.setExtraMetaData(auditMap);
-        }
-        convertResult = null;
+        sink.setExtraMetaData(auditMap);
     }
 
     /**
      * Get current error statistics.
+     * With an asynchronous writer the statistics cover the rows converted by the background thread so far.
      * @return ConvertResult.InstantStatistic with failedCount and failedPercentage.
      */
     public ConvertResult.InstantStatistic getErrorStatistics(){
@@ -239,14 +615,65 @@ public class ParquetDataWriter implements Closeable {
     }
 	
 	/**
-	 * Close the underlying parquet writer after writing audit metadata into parquet file.
+	 * Returns the value cache statistics of the columns which have a value cache, by field name, see
+	 * ParquetWriteOptions.withValueCache(). With an asynchronous writer they are complete after close().
+	 */
+	public Map<String, ValueCacheStatistic> getValueCacheStatistics() {
+		Map<String, ValueCacheStatistic> statistics = new LinkedHashMap<>();
+		for (int i = 0; i < valueConverters.length; i++) {
+			if (valueConverters[i] instanceof MemoizingConverter) {
+				MemoizingConverter cache = (MemoizingConverter) valueConverters[i];
+				statistics.put(fields.get(i).getFieldName(), new ValueCacheStatistic(cache.getLookups() + convertedCacheLookups[i],
+						cache.getHits() + convertedCacheHits[i], cache.isEnabled() && !convertedCacheDisabled[i]));
+			}
+		}
+		return statistics;
+	}
+
+	/**
+	 * Returns the convert result of the rows converted so far, it is complete after close().
+	 */
+	ConvertResult getConvertResult() {
+		return convertResult;
+	}
+
+	/**
+	 * Returns the approximate size of the parquet data written so far.
+	 * With an asynchronous writer it is the size after the last row converted by the background thread.
+	 */
+	long getDataSize() {
+		return asyncQueue != null ? asyncDataSize : sink.getDataSize();
+	}
+
+	/**
+	 * Close the underlying parquet writer after writing audit metadata into parquet file, then write the page index
+	 * of the parquet file if it is configured.
 	 */
 	public void close() throws IOException {
+		if (asyncQueue != null) {
+			try {
+				asyncQueue.close();
+			} catch (IOException e) {
+				//release the file, the rows which failed to be written are lost anyway
+				try {
+					sink.close();
+				} catch (IOException | RuntimeException suppressed) {
+					e.addSuppressed(suppressed);
+				}
+				throw e;
+			}
+		}
 	    if (this.isAuditMetaDataNeeded) {
 	    	writeAuditMetadata();
         }
-		if(writer != null) {
-			writer.close();
+		if (options.getValueCacheSize() > 0 && logger.isLoggable(Level.FINE)) {
+			logger.fine("Value cache statistics of " + parquetPath + ": " + getValueCacheStatistics());
+		}
+		if(sink != null) {
+			sink.close();
+		}
+		if (options.isPageIndex() && parquetPath != null) {
+			PageIndex.write(parquetPath);
 		}
 	}
 	
@@ -254,6 +681,33 @@ public class ParquetDataWriter implements Closeable {
 		return this.fields;
 	}
 
+	/**
+	 * Parsing the Hadoop default resources takes most of the setup time of a writer, writers of the NIO backend and
+	 * writers of a stream or output file, which do not use the Hadoop FileSystem, copy this configuration which is loaded once.
+	 */
+	private static class DefaultConfigurationHolder {
+		private static final Configuration CONFIGURATION = new Configuration();
+
+		static {
+			//force loading the default resources
+			CONFIGURATION.size();
+		}
+	}
+
+	/**
+	 * The data model with the logical type conversions, the conversions are registered once instead of by every writer,
+	 * because the shared model must not be modified while other writers are using it.
+	 */
+	private static class DataModelHolder {
+		private static final GenericData MODEL = GenericData.get();
+
+		static {
+			MODEL.addLogicalTypeConversion(new Conversions.DecimalConversion());
+			MODEL.addLogicalTypeConversion(new TimeConversions.DateConversion());//date
+			MODEL.addLogicalTypeConversion(new TimeConversions.TimestampConversion());//timestamp
+		}
+	}
+
 	private void checkRecordMatchMetadata(String[] data) throws ParquetConversionException{
 		if (data.length != fields.size()){
 			throw new ParquetConversionException("Data columns do not match the field metadata columns.", ParquetConversionException.ErrorCode.DATA_LENGTH_ERROR);
@@ -0,0 +1,151 @@
+package com.fishblack.fastparquet.writer;
+
+import org.apache.parquet.io.api.Binary;
+
+import java.util.Arrays;
+
+/**
+ * A reusable holder for the converted field values of one row.
+ * Values are kept in the form of their parquet physical type, so the write support can pass them
+ * to the column writers as they are: int32, int64 and fixed size decimals in long slots, doubles in
+ * double slots, strings and decimal bytes in binary slots. Strings may also be kept as they are and are only encoded
+ * to UTF-8 when written. A column which is not set is written as null.
+ */
+public class ParquetRow {
+
+	private final long[] longValues;
+	private final double[] doubleValues;
+	private final Binary[] binaryValues;
+	private final String[] stringValues;
+	private final boolean[] present;
+
+	public ParquetRow(int columnCount) {
+		this.longValues = new long[columnCount];
+		this.doubleValues = new double[columnCount];
+		this.binaryValues = new Binary[columnCount];
+		this.stringValues = new String[columnCount];
+		this.present = new boolean[columnCount];
+	}
+
+	public int getColumnCount() {
+		return present.length;
+	}
+
+	public void setInt(int column, int value) {
+		longValues[column] = value;
+		present[column] = true;
+	}
+
+	public void setLong(int column, long value) {
+		longValues[column] = value;
+		present[column] = true;
+	}
+
+	public void setDouble(int column, double value) {
+		doubleValues[column] = value;
+		present[column] = true;
+	}
+
+	public void setBinary(int column, Binary value) {
+		binaryValues[column] = value;
+		stringValues[column] = null;
+		present[column] = value != null;
+	}
+
+	public void setString(int column, String value) {
+		stringValues[column] = value;
+		binaryValues[column] = null;
+		present[column] = value != null;
+	}
+
+	public void setNull(int column) {
+		binaryValues[column] = null;
+		stringValues[column] = null;
+		present[column] = false;
+	}
+
+	/**
+	 * Reset all columns to null so the row can be filled again.
+	 */
+	public void clear() {
+		Arrays.fill(present, false);
+		Arrays.fill(binaryValues, null);
+		Arrays.fill(stringValues, null);
+	}
+
+	/**
+	 * Copy all column values of another row with the same number of columns into this row.
+	 * Binary values backed by a reused buffer are copied, so the other row may be refilled afterwards.
+	 */
+	public void copyFrom(ParquetRow other) {
+		int columnCount = present.length;
+		System.arraycopy(other.longValues, 0, longValues, 0, columnCount);
+		System.arraycopy(other.doubleValues, 0, doubleValues, 0, columnCount);
+		System.arraycopy(other.stringValues, 0, stringValues, 0, columnCount);
+		System.arraycopy(other.present, 0, present, 0, columnCount);
+		for (int i = 0; i < columnCount; i++) {
+			Binary value = other.binaryValues[i];
+			binaryValues[i] = value == null ? null : value.copy();
+		}
+	}
+
+	/**
+	 * Returns the approximate uncompressed size of the values in the row: 8 bytes for a numeric value and the length of
+	 * a binary or string value.
+	 */
+	public long estimateSize() {
+		long size = 0;
+		for (int i = 0; i < present.length; i++) {
+			if (!present[i]) {
+				continue;
+			}
+			if (binaryValues[i] != null) {
+				size += binaryValues[i].length();
+			} else if (stringValues[i] != null) {
+				size += stringValues[i].length();
+			} else {
+				size += 8;
+			}
+		}
+		return size;
+	}
+
+	public boolean isNull(int column) {
+		return !present[column];
+	}
+
+	public int getInt(int column) {
+		return (int) longValues[column];
+	}
+
+	public long getLong(int column) {
+		return longValues[column];
+	}
+
+	public double getDouble(int column) {
+		return doubleValues[column];
+	}
+
+	public Binary getBinary(int column) {
+		Binary value = binaryValues[column];
+		if (value == null && stringValues[column] != null) {
+			value = Binary.fromString(stringValues[column]);
+		}
+		return value;
+	}
+
+	/**
+	 * Returns the string value of the column as it was set, without decoding a binary value.
+	 */
+	String getUnencodedString(int column) {
+		return stringValues[column];
+	}
+
+	public String getString(int column) {
+		String value = stringValues[column];
+		if (value == null && binaryValues[column] != null) {
+			value = binaryValues[column].toStringUsingUTF8();
+		}
+		return value;
+	}
+}
@@ -0,0 +1,303 @@
+package com.fishblack.fastparquet.writer;
+
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Optional settings for a ParquetDataWriter.
+ * A default instance gives the same behavior as the ParquetDataWriter constructors without options.
+ */
+public class ParquetWriteOptions {
+
+	/**
+	 * The engine which turns converted field values into parquet column values.
+	 */
+	public enum WriteEngine {
+		/**
+		 * Builds an Avro GenericData.Record per row and writes it through AvroWriteSupport.
+		 */
+		AVRO,
+		/**
+		 * Emits the field values straight to the parquet column writers, no Avro record is built.
+		 */
+		DIRECT
+	}
+
+	/**
+	 * The way the parquet file is written to local disk.
+	 */
+	public enum OutputBackend {
+		/**
+		 * Writes through the Hadoop local FileSystem.
+		 */
+		HADOOP,
+		/**
+		 * Writes through a FileChannel with a large buffer, no Hadoop FileSystem is involved.
+		 */
+		NIO
+	}
+
+	/**
+	 * The goal of the adaptive compression codec selection.
+	 */
+	public enum CompressionGoal {
+		/**
+		 * Select the codec which compresses the sample into the fewest bytes, for data which is archived and read rarely.
+		 */
+		SMALLEST_FILE,
+		/**
+		 * Select the codec whose pages of the sample are read and decompressed fastest, for data which is read often.
+		 * Among codecs of about the same decode speed the smaller output wins.
+		 */
+		FASTEST_DECODE
+	}
+
+	/**
+	 * The codecs tried by the adaptive compression when no candidates are given.
+	 */
+	public static final List<CompressionCodecName> DEFAULT_COMPRESSION_CANDIDATES = Collections.unmodifiableList(Arrays.asList(
+			CompressionCodecName.UNCOMPRESSED, CompressionCodecName.SNAPPY, CompressionCodecName.GZIP, CompressionCodecName.LZ4));
+
+	/**
+	 * The default upper bound of the sample used by the adaptive compression, the first row group is used if it is smaller.
+	 */
+	public static final int DEFAULT_COMPRESSION_SAMPLE_SIZE = 4 * 1024 * 1024;
+
+	/**
+	 * The upper bound of the value cache size of a column.
+	 */
+	public static final int MAX_VALUE_CACHE_SIZE = 1 << 20;
+
+	private WriteEngine writeEngine = WriteEngine.AVRO;
+	private boolean auditMetadataNeeded = true;
+	private int parallelism = 1;
+	private int rowGroupSize = ParquetWriter.DEFAULT_BLOCK_SIZE;
+	private CompressionCodecName compressionCodec = CompressionCodecName.SNAPPY;
+	private CompressionGoal compressionGoal = null;
+	private List<CompressionCodecName> compressionCandidates = DEFAULT_COMPRESSION_CANDIDATES;
+	private int compressionSampleSize = DEFAULT_COMPRESSION_SAMPLE_SIZE;
+	private int asyncBufferSize = 0;
+	private OutputBackend outputBackend = OutputBackend.HADOOP;
+	private int outputBufferSize = LocalOutputFile.DEFAULT_BUFFER_SIZE;
+	private int valueCacheSize = 0;
+	private int pageSize = ParquetWriter.DEFAULT_PAGE_SIZE;
+	private boolean pageIndex = false;
+
+	public WriteEngine getWriteEngine() {
+		return writeEngine;
+	}
+
+	public ParquetWriteOptions withWriteEngine(WriteEngine writeEngine) {
+		this.writeEngine = writeEngine;
+		return this;
+	}
+
+	public boolean isAuditMetadataNeeded() {
+		return auditMetadataNeeded;
+	}
+
+	/**
+	 * Default is true, set it to false means do not write audit metadata into parquet file.
+	 */
+	public ParquetWriteOptions withAuditMetadata(boolean auditMetadataNeeded) {
+		this.auditMetadataNeeded = auditMetadataNeeded;
+		return this;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * The number of threads which encode and compress row groups. Default is 1, which encodes on the writing thread.
+	 * With a larger value complete row groups are buffered and encoded on a worker pool, then appended to the file in
+	 * order, which needs memory for about twice parallelism times the row group size.
+	 */
+	public ParquetWriteOptions withParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+		}
+		this.parallelism = parallelism;
+		return this;
+	}
+
+	public int getRowGroupSize() {
+		return rowGroupSize;
+	}
+
+	/**
+	 * The target size of a row group in bytes, default is ParquetWriter.DEFAULT_BLOCK_SIZE.
+	 */
+	public ParquetWriteOptions withRowGroupSize(int rowGroupSize) {
+		if (rowGroupSize < 1) {
+			throw new IllegalArgumentException("Row group size must be positive: " + rowGroupSize);
+		}
+		this.rowGroupSize = rowGroupSize;
+		return this;
+	}
+
+	public CompressionCodecName getCompressionCodec() {
+		return compressionCodec;
+	}
+
+	/**
+	 * The codec which compresses the pages, default is SNAPPY. Setting a codec turns off the adaptive compression.
+	 */
+	public ParquetWriteOptions withCompressionCodec(CompressionCodecName compressionCodec) {
+		if (compressionCodec == null) {
+			throw new IllegalArgumentException("Compression codec must not be null");
+		}
+		this.compressionCodec = compressionCodec;
+		this.compressionGoal = null;
+		return this;
+	}
+
+	public boolean isAdaptiveCompression() {
+		return compressionGoal != null;
+	}
+
+	public CompressionGoal getCompressionGoal() {
+		return compressionGoal;
+	}
+
+	public List<CompressionCodecName> getCompressionCandidates() {
+		return compressionCandidates;
+	}
+
+	public int getCompressionSampleSize() {
+		return compressionSampleSize;
+	}
+
+	/**
+	 * Select the codec of the file from the first rows, trying the DEFAULT_COMPRESSION_CANDIDATES.
+	 * @see #withAdaptiveCompression(CompressionGoal, List)
+	 */
+	public ParquetWriteOptions withAdaptiveCompression(CompressionGoal goal) {
+		return withAdaptiveCompression(goal, DEFAULT_COMPRESSION_CANDIDATES);
+	}
+
+	/**
+	 * Select the codec of the file from the first rows. The rows are buffered up to the sample size, or the row group
+	 * size if smaller, and encoded with each candidate codec, then the one which best meets the goal is used for the
+	 * whole file. Candidates which are not available, such as LZ4 without the native Hadoop library, are skipped.
+	 */
+	public ParquetWriteOptions withAdaptiveCompression(CompressionGoal goal, List<CompressionCodecName> candidates) {
+		if (goal == null || candidates == null || candidates.isEmpty()) {
+			throw new IllegalArgumentException("Adaptive compression needs a goal and at least one candidate codec");
+		}
+		this.compressionGoal = goal;
+		this.compressionCandidates = Collections.unmodifiableList(new ArrayList<>(candidates));
+		return this;
+	}
+
+	/**
+	 * The upper bound in bytes of the sample used by the adaptive compression, default is DEFAULT_COMPRESSION_SAMPLE_SIZE.
+	 */
+	public ParquetWriteOptions withCompressionSampleSize(int compressionSampleSize) {
+		if (compressionSampleSize < 1) {
+			throw new IllegalArgumentException("Compression sample size must be positive: " + compressionSampleSize);
+		}
+		this.compressionSampleSize = compressionSampleSize;
+		return this;
+	}
+
+	public int getAsyncBufferSize() {
+		return asyncBufferSize;
+	}
+
+	/**
+	 * The number of rows buffered for the asynchronous writer, default is 0 which writes on the caller thread.
+	 * With a positive value write() copies the row into a ring buffer of this size and returns, a background thread
+	 * converts, encodes, compresses and writes the rows, and close() waits until all rows are written. The producer only
+	 * waits when the buffer is full.
+	 */
+	public ParquetWriteOptions withAsyncBufferSize(int asyncBufferSize) {
+		if (asyncBufferSize < 0) {
+			throw new IllegalArgumentException("Async buffer size must not be negative: " + asyncBufferSize);
+		}
+		this.asyncBufferSize = asyncBufferSize;
+		return this;
+	}
+
+	public OutputBackend getOutputBackend() {
+		return outputBackend;
+	}
+
+	/**
+	 * The way the parquet file is written to local disk, default is HADOOP.
+	 */
+	public ParquetWriteOptions withOutputBackend(OutputBackend outputBackend) {
+		if (outputBackend == null) {
+			throw new IllegalArgumentException("Output backend must not be null");
+		}
+		this.outputBackend = outputBackend;
+		return this;
+	}
+
+	public int getOutputBufferSize() {
+		return outputBufferSize;
+	}
+
+	/**
+	 * The size in bytes of the write buffer of the NIO output backend, default is LocalOutputFile.DEFAULT_BUFFER_SIZE.
+	 */
+	public ParquetWriteOptions withOutputBufferSize(int outputBufferSize) {
+		if (outputBufferSize < 1) {
+			throw new IllegalArgumentException("Output buffer size must be positive: " + outputBufferSize);
+		}
+		this.outputBufferSize = outputBufferSize;
+		return this;
+	}
+
+	public int getValueCacheSize() {
+		return valueCacheSize;
+	}
+
+	/**
+	 * The number of distinct raw values per column whose converted values are remembered, default is 0 which converts
+	 * every value. The cache is used for double, decimal, date and timestamp columns, where parsing a repeated value
+	 * costs more than looking it up. A column turns its cache off when fewer than a quarter of its values repeat,
+	 * see ParquetDataWriter.getValueCacheStatistics().
+	 */
+	public ParquetWriteOptions withValueCache(int valueCacheSize) {
+		if (valueCacheSize < 0 || valueCacheSize > MAX_VALUE_CACHE_SIZE) {
+			throw new IllegalArgumentException("Value cache size must be between 0 and " + MAX_VALUE_CACHE_SIZE + ": " + valueCacheSize);
+		}
+		this.valueCacheSize = valueCacheSize;
+		return this;
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * The target size of a data page in bytes, default is ParquetWriter.DEFAULT_PAGE_SIZE. Smaller pages make the page
+	 * index finer, a lookup through it decodes less data, at the cost of more page headers.
+	 */
+	public ParquetWriteOptions withPageSize(int pageSize) {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+		}
+		this.pageSize = pageSize;
+		return this;
+	}
+
+	public boolean isPageIndex() {
+		return pageIndex;
+	}
+
+	/**
+	 * Default is false, set it to true to write a page index next to the parquet file when the writer is closed, see
+	 * com.fishblack.fastparquet.reader.PageIndex. It is only written by a writer of a parquet path.
+	 */
+	public ParquetWriteOptions withPageIndex(boolean pageIndex) {
+		this.pageIndex = pageIndex;
+		return this;
+	}
+}
@@ -0,0 +1,288 @@
+package com.fishblack.fastparquet.writer;
+
+import com.fishblack.fastparquet.common.ConvertResult;
+import com.fishblack.fastparquet.common.FieldMetadata;
+import com.fishblack.fastparquet.common.ParquetConversionException;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.fishblack.fastparquet.common.FastParquetConstants.PARQUET_FILE_EXTENSION;
+import static com.fishblack.fastparquet.common.FastParquetConstants.PART_INDEX_KEY;
+import static com.fishblack.fastparquet.common.FastParquetConstants.PART_ROW_OFFSET_KEY;
+
+/**
+ * Writes the rows into a sequence of parquet part files in a directory, named part-00000.parquet, part-00001.parquet
+ * and so on. A new part is started when the current part reaches the maximum number of rows or the maximum data size,
+ * each part is written by its own ParquetDataWriter with the writer options and has its own footer and audit metadata.
+ * A full part is closed on a background thread while the rows of the next part are written, at most
+ * max(1, parallelism) parts are closing at a time.
+ * The convert result of all parts is combined with the row numbers of the whole input, it is complete after close().
+ */
+public class RollingParquetDataWriter implements Closeable {
+
+	private static final AtomicInteger POOL_NUMBER = new AtomicInteger(1);
+
+	private final List<FieldMetadata> fields;
+	private final File directory;
+	private final Map<String, String> keyValueMetadata;
+	private final ParquetWriteOptions options;
+	private final long maxRowsPerPart;
+	private final long maxBytesPerPart;
+	private final int maxClosingParts;
+	private final ExecutorService closer;
+	private final Deque<Part> closingParts = new ArrayDeque<>();
+	private final List<String> partPaths = new ArrayList<>();
+	private final ConvertResult convertResult = new ConvertResult();
+	private Part part;
+	private long currentRow = 0;
+	private boolean closed;
+
+	/**
+	 * Constructs a RollingParquetDataWriter, the first part file is created right away.
+	 * @param fields List of FieldMetadata.
+	 * @param directory The directory to write the part files into, it is created if it does not exist.
+	 * @param keyValueMetadata The parquet file level key value metadata of every part.
+	 * @param options The writer options of every part.
+	 * @param maxRowsPerPart The maximum number of rows of a part, 0 for no limit.
+	 * @param maxBytesPerPart The approximate maximum size of a part in bytes, 0 for no limit. A part may exceed it by
+	 *                        the size of the rows which are buffered by the asynchronous writer.
+	 * @throws IOException
+	 */
+	public RollingParquetDataWriter(List<FieldMetadata> fields, String directory, Map<String, String> keyValueMetadata,
+	                                ParquetWriteOptions options, long maxRowsPerPart, long maxBytesPerPart) throws IOException {
+		if (maxRowsPerPart < 0) {
+			throw new IllegalArgumentException("Maximum rows per part must not be negative: " + maxRowsPerPart);
+		}
+		if (maxBytesPerPart < 0) {
+			throw new IllegalArgumentException("Maximum bytes per part must not be negative: " + maxBytesPerPart);
+		}
+		this.fields = fields;
+		this.directory = new File(directory);
+		this.keyValueMetadata = keyValueMetadata;
+		this.options = options == null ? new ParquetWriteOptions() : options;
+		this.maxRowsPerPart = maxRowsPerPart;
+		this.maxBytesPerPart = maxBytesPerPart;
+		this.maxClosingParts = Math.max(1, this.options.getParallelism());
+		if (!this.directory.isDirectory() && !this.directory.mkdirs()) {
+			throw new IOException("Cannot create directory " + directory);
+		}
+		this.closer = Executors.newFixedThreadPool(maxClosingParts, new CloserThreadFactory());
+		try {
+			part = openPart();
+		} catch (IOException | RuntimeException e) {
+			closer.shutdownNow();
+			throw e;
+		}
+	}
+
+	/**
+	 * Write the specified data into the part files.
+	 * @param data The 2D String array data
+	 * @return number of rows actually written
+	 * @throws IOException
+	 * @throws ParquetConversionException If data length does not match fields length
+	 */
+	public long write(String[][] data) throws IOException, ParquetConversionException {
+		long rowsWritten = 0;
+		for (String[] record : data) {
+			rowsWritten += write(record);
+		}
+		return rowsWritten;
+	}
+
+	/**
+	 * Write the specified single row of data into the current part file, a new part is started first if the current
+	 * part is full.
+	 * @param data The 1D String array data
+	 * @return number of rows actually written
+	 * @throws IOException
+	 * @throws ParquetConversionException If data length does not match fields length
+	 */
+	public long write(String[] data) throws IOException, ParquetConversionException {
+		if (closed) {
+			throw new IllegalStateException("The writer is closed.");
+		}
+		if (part == null) {
+			part = openPart();
+		}
+		long rowsWritten = part.writer.write(data);
+		part.rows += rowsWritten;
+		currentRow += rowsWritten;
+		if (isPartFull()) {
+			closePart(part);
+			part = null;
+		}
+		return rowsWritten;
+	}
+
+	private boolean isPartFull() {
+		return (maxRowsPerPart > 0 && part.rows >= maxRowsPerPart)
+				|| (maxBytesPerPart > 0 && part.writer.getDataSize() >= maxBytesPerPart);
+	}
+
+	private Part openPart() throws IOException {
+		int index = partPaths.size();
+		String path = new File(directory, String.format("part-%05d", index) + PARQUET_FILE_EXTENSION).getPath();
+		Map<String, String> metadata = keyValueMetadata == null ? new HashMap<>() : new HashMap<>(keyValueMetadata);
+		metadata.put(PART_INDEX_KEY, String.valueOf(index));
+		metadata.put(PART_ROW_OFFSET_KEY, String.valueOf(currentRow));
+		Part newPart = new Part(new ParquetDataWriter(fields, path, metadata, options), currentRow);
+		partPaths.add(path);
+		return newPart;
+	}
+
+	/**
+	 * Close the part on the closer threads, waiting for the oldest closing part first if too many are closing.
+	 */
+	private void closePart(Part fullPart) throws IOException {
+		if (closingParts.size() >= maxClosingParts) {
+			finishPart(closingParts.pop());
+		}
+		submitClose(fullPart);
+	}
+
+	private void submitClose(Part closingPart) {
+		closingPart.closing = closer.submit(() -> {
+			closingPart.writer.close();
+			return null;
+		});
+		closingParts.add(closingPart);
+	}
+
+	/**
+	 * Wait for the part to be closed and add its convert result to the combined result.
+	 */
+	private void finishPart(Part closingPart) throws IOException {
+		try {
+			closingPart.closing.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while closing part file", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			throw new IOException("Failed to close part file", cause);
+		}
+		ConvertResult partResult = closingPart.writer.getConvertResult();
+		convertResult.setFailureCount(convertResult.getFailureCount() + partResult.getFailureCount());
+		convertResult.setSuccessCount(convertResult.getSuccessCount() + partResult.getSuccessCount());
+		for (Map.Entry<Long, Map<String, String>> error : partResult.getErrors().entrySet()) {
+			convertResult.getErrors().put(closingPart.rowOffset + error.getKey(), error.getValue());
+		}
+	}
+
+	/**
+	 * Get current error statistics of all parts.
+	 * @return ConvertResult.InstantStatistic with failedCount and failedPercentage.
+	 */
+	public ConvertResult.InstantStatistic getErrorStatistics() {
+		long failureCount = convertResult.getFailureCount();
+		long successCount = convertResult.getSuccessCount();
+		List<Part> openParts = new ArrayList<>(closingParts);
+		if (part != null) {
+			openParts.add(part);
+		}
+		for (Part openPart : openParts) {
+			ConvertResult partResult = openPart.writer.getConvertResult();
+			failureCount += partResult.getFailureCount();
+			successCount += partResult.getSuccessCount();
+		}
+		long count = failureCount + successCount;
+		return new ConvertResult.InstantStatistic(failureCount, count > 0 ? (double) failureCount * 100 / count : 0);
+	}
+
+	/**
+	 * Returns the convert result of all parts, the row numbers of the errors count the rows of all parts.
+	 * It is complete after close().
+	 */
+	public ConvertResult getConvertResult() {
+		return convertResult;
+	}
+
+	/**
+	 * Returns the paths of the part files created so far, in the order of the rows.
+	 */
+	public List<String> getPartPaths() {
+		return Collections.unmodifiableList(partPaths);
+	}
+
+	/**
+	 * Close the current part and wait for all parts to be closed.
+	 */
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		IOException failure = null;
+		try {
+			if (part != null) {
+				submitClose(part);
+				part = null;
+			}
+			while (!closingParts.isEmpty()) {
+				try {
+					finishPart(closingParts.pop());
+				} catch (IOException e) {
+					if (failure == null) {
+						failure = e;
+					} else {
+						failure.addSuppressed(e);
+					}
+				}
+			}
+		} finally {
+			closer.shutdownNow();
+		}
+		if (failure != null) {
+			throw failure;
+		}
+		convertResult.setTotalCount(currentRow);
+		convertResult.setResult(ConvertResult.resultOf(convertResult.getFailureCount(), currentRow));
+	}
+
+	public List<FieldMetadata> getFields() {
+		return this.fields;
+	}
+
+	private static class Part {
+		private final ParquetDataWriter writer;
+		private final long rowOffset;
+		private long rows;
+		private Future<Void> closing;
+
+		Part(ParquetDataWriter writer, long rowOffset) {
+			this.writer = writer;
+			this.rowOffset = rowOffset;
+		}
+	}
+
+	private static class CloserThreadFactory implements ThreadFactory {
+		private final int poolNumber = POOL_NUMBER.getAndIncrement();
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "fastparquet-part-closer-" + poolNumber + "-" + threadNumber.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package com.fishblack.fastparquet.writer;
+
+import java.util.Arrays;
+
+/**
+ * A buffer of converted rows which are encoded together as one row group.
+ * Rows are copied in, and the ParquetRow objects are kept and reused after the batch is cleared.
+ */
+class RowBatch {
+
+	private final int columnCount;
+	private ParquetRow[] rows = new ParquetRow[1024];
+	private int size;
+	private long estimatedSize;
+
+	RowBatch(int columnCount) {
+		this.columnCount = columnCount;
+	}
+
+	void add(ParquetRow row) {
+		if (size == rows.length) {
+			rows = Arrays.copyOf(rows, size * 2);
+		}
+		if (rows[size] == null) {
+			rows[size] = new ParquetRow(columnCount);
+		}
+		rows[size].copyFrom(row);
+		estimatedSize += row.estimateSize();
+		size++;
+	}
+
+	ParquetRow get(int index) {
+		return rows[index];
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the approximate uncompressed size of the values in the batch.
+	 */
+	long getEstimatedSize() {
+		return estimatedSize;
+	}
+
+	void clear() {
+		size = 0;
+		estimatedSize = 0;
+	}
+}
@@ -0,0 +1,36 @@
+package com.fishblack.fastparquet.writer;
+
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.OutputFile;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * The destination of the converted rows of a ParquetDataWriter, it encodes them into one parquet file.
+ */
+interface RowSink extends Closeable {
+
+	/**
+	 * Write one converted row. The row may be reused by the caller once this method returns.
+	 */
+	void write(ParquetRow row) throws IOException;
+
+	/**
+	 * Set the key value metadata written into the footer when the sink is closed.
+	 */
+	void setExtraMetaData(Map<String, String> extraMetaData);
+
+	/**
+	 * Returns the approximate size of the data written and buffered so far.
+	 */
+	long getDataSize();
+
+	/**
+	 * Opens a sink over an OutputFile which compresses the pages with the codec.
+	 */
+	interface Factory {
+		RowSink open(OutputFile file, CompressionCodecName codec) throws IOException;
+	}
+}
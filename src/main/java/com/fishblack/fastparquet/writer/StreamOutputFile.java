@@ -0,0 +1,117 @@
+package com.fishblack.fastparquet.writer;
+
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.PositionOutputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An OutputFile which writes the parquet data to an OutputStream, such as a network or object storage upload stream.
+ * The parquet writer only appends to its output, so the stream does not need to be seekable. The file can be created
+ * once, and the stream is flushed but left open when the parquet writer is closed unless closeStream is set.
+ */
+public class StreamOutputFile implements OutputFile {
+
+	/**
+	 * The default size of the write buffer in front of the stream.
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	private final OutputStream out;
+	private final boolean closeStream;
+	private final int bufferSize;
+	private boolean created;
+
+	public StreamOutputFile(OutputStream out) {
+		this(out, false, DEFAULT_BUFFER_SIZE);
+	}
+
+	public StreamOutputFile(OutputStream out, boolean closeStream) {
+		this(out, closeStream, DEFAULT_BUFFER_SIZE);
+	}
+
+	public StreamOutputFile(OutputStream out, boolean closeStream, int bufferSize) {
+		if (out == null) {
+			throw new IllegalArgumentException("Output stream must not be null");
+		}
+		if (bufferSize < 1) {
+			throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+		}
+		this.out = out;
+		this.closeStream = closeStream;
+		this.bufferSize = bufferSize;
+	}
+
+	@Override
+	public PositionOutputStream create(long blockSizeHint) throws IOException {
+		if (created) {
+			throw new IOException("The output stream has already been written");
+		}
+		created = true;
+		return new CountingOutputStream(new BufferedOutputStream(out, bufferSize), closeStream);
+	}
+
+	@Override
+	public PositionOutputStream createOrOverwrite(long blockSizeHint) throws IOException {
+		return create(blockSizeHint);
+	}
+
+	@Override
+	public boolean supportsBlockSize() {
+		return false;
+	}
+
+	@Override
+	public long defaultBlockSize() {
+		return 0;
+	}
+
+	private static class CountingOutputStream extends PositionOutputStream {
+		private final BufferedOutputStream out;
+		private final boolean closeStream;
+		private long position;
+		private boolean closed;
+
+		CountingOutputStream(BufferedOutputStream out, boolean closeStream) {
+			this.out = out;
+			this.closeStream = closeStream;
+		}
+
+		@Override
+		public long getPos() {
+			return position;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			position++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			position += len;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			if (closeStream) {
+				out.close();
+			} else {
+				out.flush();
+			}
+		}
+	}
+}
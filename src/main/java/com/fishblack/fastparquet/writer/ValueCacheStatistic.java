@@ -0,0 +1,46 @@
+package com.fishblack.fastparquet.writer;
+
+/**
+ * The lookups and hits of the value cache of a column, see ParquetWriteOptions.withValueCache().
+ */
+public class ValueCacheStatistic {
+	private final long lookups;
+	private final long hits;
+	private final boolean enabled;
+
+	public ValueCacheStatistic(long lookups, long hits, boolean enabled) {
+		this.lookups = lookups;
+		this.hits = hits;
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Returns the number of values looked up while the cache was on.
+	 */
+	public long getLookups() {
+		return lookups;
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the share of lookups which found the converted value, 0 if there was no lookup.
+	 */
+	public double getHitRate() {
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	/**
+	 * Returns false if the cache turned itself off because of a low hit rate.
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("lookups=%d, hits=%d, hitRate=%.3f, enabled=%b", lookups, hits, getHitRate(), enabled);
+	}
+}
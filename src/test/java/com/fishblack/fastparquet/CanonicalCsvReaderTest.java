@@ -0,0 +1,179 @@
+package com.fishblack.fastparquet;
+
+import com.fishblack.fastparquet.utils.CanonicalCsvReader;
+import com.fishblack.fastparquet.utils.MappedFileInputStream;
+import com.fishblack.fastparquet.utils.ParquetAvroUtils;
+import com.fishblack.fastparquet.utils.Utils;
+import com.opencsv.CSVParserBuilder;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.exceptions.CsvValidationException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class CanonicalCsvReaderTest {
+
+    private static final String[] TOKENS = {"a", "b", "1", " ", ",", ",", "\"", "\"", "\"\"", "\n", "\r", "\r\n", "\0", "é", "中", "😀", " "};
+
+    @Test
+    public void testSameRecordsAsOpencsv() throws IOException, CsvValidationException {
+        String[] inputs = {"", "\n", "a", "a,b\nc,d\n", "a,b\r\nc,d\r\n", "a,b\rc,d", "\"a,b\",c", "\"a\"\"b\",c", "\"a\nb\",c\n", "\"a\r\nb\",c",
+                "ab\"cd\"ef,g", "abc\"d,e", "  \"x\",y", "\"unterminated\nline", "a,\"\"", "\"\0\"\"\",\0x", "中文,\"测试\"\n", "a\n\nb,c\n\n"};
+        for (String input : inputs) {
+            assertSameRecords(input);
+        }
+    }
+
+    @Test
+    public void testSameRecordsAsOpencsvWithRandomData() throws IOException, CsvValidationException {
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder input = new StringBuilder();
+            int length = random.nextInt(60);
+            for (int t = 0; t < length; t++) {
+                input.append(TOKENS[random.nextInt(TOKENS.length)]);
+            }
+            assertSameRecords(input.toString());
+        }
+    }
+
+    @Test
+    public void testLongFieldsAcrossBufferRefills() throws IOException, CsvValidationException {
+        Random random = new Random(7);
+        StringBuilder input = new StringBuilder();
+        for (int row = 0; row < 200; row++) {
+            char[] value = new char[random.nextInt(300)];
+            Arrays.fill(value, row % 2 == 0 ? 'x' : '文');
+            input.append(row).append(",\"").append(value).append("\n\"\"").append(value).append("\",").append(value).append('\n');
+        }
+        assertSameRecords(input.toString());
+    }
+
+    @Test
+    public void testBoundaryScannerSplitsAtRecordEnds() throws IOException, CsvValidationException {
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder input = new StringBuilder();
+            int length = random.nextInt(80);
+            for (int t = 0; t < length; t++) {
+                input.append(TOKENS[random.nextInt(TOKENS.length)]);
+            }
+            byte[] bytes = input.toString().getBytes(StandardCharsets.UTF_8);
+            List<String> expected = readWithOpencsv(bytes);
+            if (!expected.isEmpty() && expected.get(expected.size() - 1).startsWith("error")) {
+                //the records before an unterminated quote are compared by testSameRecordsAsOpencsv
+                continue;
+            }
+
+            //scan the data in random pieces and read each range between record ends with a reader of its own
+            CanonicalCsvReader.BoundaryScanner scanner = new CanonicalCsvReader.BoundaryScanner();
+            List<String> records = new ArrayList<>();
+            int rangeStart = 0;
+            int position = 0;
+            while (position < bytes.length) {
+                int pieceEnd = Math.min(bytes.length, position + 1 + random.nextInt(8));
+                int end = scanner.scan(bytes, position, pieceEnd);
+                if (end >= 0) {
+                    Assert.assertTrue(end > rangeStart);
+                    records.addAll(readWithCanonicalReader(new ByteArrayInputStream(bytes, rangeStart, end - rangeStart), 1));
+                    rangeStart = end;
+                }
+                position = pieceEnd;
+            }
+            records.addAll(readWithCanonicalReader(new ByteArrayInputStream(bytes, rangeStart, bytes.length - rangeStart), 1));
+            Assert.assertEquals(Arrays.toString(bytes), expected, records);
+        }
+    }
+
+    @Test
+    public void testMappedFileInputStream() throws IOException, CsvValidationException {
+        Random random = new Random(11);
+        StringBuilder input = new StringBuilder();
+        for (int t = 0; t < 5000; t++) {
+            input.append(TOKENS[random.nextInt(TOKENS.length)]);
+        }
+        input.append('\n');
+        byte[] bytes = input.toString().getBytes(StandardCharsets.UTF_8);
+        File file = File.createTempFile("canonical", ".csv");
+        try {
+            Files.write(file.toPath(), bytes);
+            List<String> expected = readWithOpencsv(bytes);
+            //small windows put many records and multi-byte characters across two windows
+            for (int windowSize : new int[]{1, 7, 4096, MappedFileInputStream.DEFAULT_WINDOW_SIZE}) {
+                Assert.assertEquals(expected, readWithCanonicalReader(new MappedFileInputStream(file, windowSize), 64));
+            }
+
+            try (MappedFileInputStream in = new MappedFileInputStream(file, 7)) {
+                Assert.assertEquals(bytes.length, in.available());
+                Assert.assertEquals(bytes[0] & 0xFF, in.read());
+                Assert.assertEquals(10, in.skip(10));
+                Assert.assertEquals(bytes[11] & 0xFF, in.read());
+                Assert.assertEquals(bytes.length - 12, in.skip(Long.MAX_VALUE));
+                Assert.assertEquals(-1, in.read());
+                Assert.assertEquals(-1, in.read(new byte[4], 0, 4));
+            }
+        } finally {
+            Utils.deleteWithWarning(file);
+        }
+    }
+
+    private static void assertSameRecords(String input) throws IOException, CsvValidationException {
+        byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+        List<String> expected = readWithOpencsv(bytes);
+        String message = Arrays.toString(bytes);
+        Assert.assertEquals(message, expected, readWithCanonicalReader(new ByteArrayInputStream(bytes), CanonicalCsvReader.DEFAULT_BUFFER_SIZE));
+        //a small buffer and an input which returns a byte at a time refill the buffer in the middle of every field
+        Assert.assertEquals(message, expected, readWithCanonicalReader(new OneByteInputStream(bytes), 1));
+    }
+
+    private static List<String> readWithOpencsv(byte[] bytes) throws IOException, CsvValidationException {
+        List<String> records = new ArrayList<>();
+        try (CSVReader reader = new CSVReaderBuilder(new InputStreamReader(new ByteArrayInputStream(bytes), ParquetAvroUtils.DEFAULT_ENCODING))
+                .withCSVParser(new CSVParserBuilder().withEscapeChar(ParquetAvroUtils.ESCAPE_CHARACTER).build()).build()) {
+            String[] record;
+            while ((record = reader.readNext()) != null) {
+                records.add(Arrays.asList(record).toString());
+            }
+        } catch (IOException e) {
+            records.add("error: " + e.getMessage());
+        }
+        return records;
+    }
+
+    private static List<String> readWithCanonicalReader(InputStream in, int bufferSize) {
+        List<String> records = new ArrayList<>();
+        try (CanonicalCsvReader reader = new CanonicalCsvReader(in, bufferSize)) {
+            String[] record;
+            while ((record = reader.readNext()) != null) {
+                records.add(Arrays.asList(record).toString());
+            }
+        } catch (IOException e) {
+            records.add("error: " + e.getMessage());
+        }
+        return records;
+    }
+
+    private static class OneByteInputStream extends FilterInputStream {
+        OneByteInputStream(byte[] bytes) {
+            super(new ByteArrayInputStream(bytes));
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(len, 1));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.fishblack.fastparquet;
+
+import com.fishblack.fastparquet.common.FieldMetadata;
+import com.fishblack.fastparquet.common.SchemaConverter;
+import com.fishblack.fastparquet.writer.ColumnConverter;
+import com.fishblack.fastparquet.writer.ParquetRow;
+import org.apache.avro.Schema;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static com.fishblack.fastparquet.ColumnConverterTest.DIRTY_INPUT_CLEAN_VALUES;
+import static com.fishblack.fastparquet.ColumnConverterTest.DIRTY_INPUT_DIRTY_VALUES;
+import static com.fishblack.fastparquet.ColumnConverterTest.DIRTY_INPUT_TYPES;
+
+/**
+ * Compares the time of converting clean values with converting values of which half are invalid, an invalid value
+ * should not cost much more than a valid one. It is not a unit test and is not run by the test suite, run it with
+ * mvn test -Dtest=ColumnConverterBenchmark.
+ */
+public class ColumnConverterBenchmark {
+    private static final Logger logger = Logger.getLogger(ColumnConverterBenchmark.class.getName());
+
+    private static final int ROUNDS = 2000000;
+    private static final int PASSES = 5;
+
+    @Test
+    public void benchmarkDirtyInput() {
+        List<FieldMetadata> fields = new ArrayList<>();
+        for (int i = 0; i < DIRTY_INPUT_TYPES.length; i++) {
+            fields.add(new FieldMetadata("c" + i, DIRTY_INPUT_TYPES[i]));
+        }
+        Schema schema = SchemaConverter.toAvroSchema(fields);
+
+        for (int i = 0; i < DIRTY_INPUT_TYPES.length; i++) {
+            ColumnConverter converter = ColumnConverter.create(schema.getFields().get(i).schema());
+            String[] clean = {DIRTY_INPUT_CLEAN_VALUES[i], DIRTY_INPUT_CLEAN_VALUES[i]};
+            String[] halfDirty = {DIRTY_INPUT_CLEAN_VALUES[i], DIRTY_INPUT_DIRTY_VALUES[i]};
+            ParquetRow row = new ParquetRow(1);
+            long[] nanos = {Long.MAX_VALUE, Long.MAX_VALUE};
+            //the first pass warms up the converter, the best of the other passes is reported
+            for (int pass = 0; pass < PASSES; pass++) {
+                for (int input = 0; input < 2; input++) {
+                    String[] values = input == 0 ? clean : halfDirty;
+                    long start = System.nanoTime();
+                    int failures = 0;
+                    for (int j = 0; j < ROUNDS; j++) {
+                        if (!converter.tryConvert(values[j & 1], row, 0)) {
+                            failures++;
+                        }
+                    }
+                    long elapsed = System.nanoTime() - start;
+                    Assert.assertEquals(input == 0 ? 0 : ROUNDS / 2, failures);
+                    if (pass > 0) {
+                        nanos[input] = Math.min(nanos[input], elapsed);
+                    }
+                }
+            }
+            logger.info(String.format("%s: clean %.1f ns/value, 50%% dirty %.1f ns/value", DIRTY_INPUT_TYPES[i],
+                    (double) nanos[0] / ROUNDS, (double) nanos[1] / ROUNDS));
+        }
+    }
+}
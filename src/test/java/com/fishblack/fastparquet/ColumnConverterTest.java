@@ -0,0 +1,344 @@
+package com.fishblack.fastparquet;
+
+import com.fishblack.fastparquet.common.FieldMetadata;
+import com.fishblack.fastparquet.common.SchemaConverter;
+import com.fishblack.fastparquet.utils.ParquetAvroUtils;
+import com.fishblack.fastparquet.writer.ColumnConverter;
+import com.fishblack.fastparquet.writer.ParquetRow;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericFixed;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Days;
+import org.joda.time.LocalDate;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+public class ColumnConverterTest {
+
+    private static final String[] INTEGER_VALUES = {"0", " 42 ", "-2147483648", "2147483647", "", "   ", "2147483648", "1.5", "abc", "+7", "-", "+", "-0", "\t-17\n", "\u0663\u0664", "１２"};
+    private static final String[] DOUBLE_VALUES = {"0", "1.24", " -3.5e10 ", "1,234,567.89", "NaN", "", "1.2.3", "12a", ",", "2110173.5099999998",
+            "1e", "1e+", ".", "-.5", "5.", "1.5f", "1.5F", "1.5ff", "1e5d", "0x1p3", "0x1.8P-1d", "0x1.8", "+NaN", "-Infinity", "Infinityx", "NaNd",
+            "1_000", "++1", "1e1.5", "\u0661", "1e99999", ".e1",
+            ", 5", "5 ,", "1,e5", "1e,5", "-,5", "1,234,567.891", "-0", "-0.0e10", "0.30000000000000004", "9007199254740993", "9007199254740992.5",
+            "2.2250738585072011e-308", "2.2250738585072012e-308", "4.9e-324", "2.4703282292062327e-324", "1e-400", "1.7976931348623157e308",
+            "1.7976931348623158e308", "1.7976931348623159e308", "1e23", "8.98846567431158e307", "18446744073709551615", "9999999999999999999e-10",
+            "123456789012345678901", "0.000000000000000000000000000000000001", "1e-2147483649", "1e2147483648"};
+    private static final String[] DECIMAL_VALUES = {"0", "24.238", "-49.7657829", "2,538,293.12", "1E+5", "", "  ", "abc", "0.0000000000001", "99999999999999999999999999.999",
+            "1e", "+.5", "5.", "-", "1e-5", "1E+2147483648", "\u0661\u0662\u0663", ".e1", "1.2.3", "1e5.5", "0x10", "NaN", "1 000", "1d",
+            "123456789012345678", "1234567890123456789", "-999999999999999999", "-9223372036854775808", "9223372036854775807.999",
+            "-1.2399", "-0.001", "-0", "+0.009", "0001234.5", "000000000000000000000000000000000000000012", ",-5", "1,2.3,4", ",", "5-", "+-5",
+            "-12345678901234567890123456789012345678901234567890", "123456789012345678901234567890123456789012345678901234567890", ".", "-.", "1.٢"};
+    private static final String[] DATE_VALUES = {"1984-04-08", "'1987-05-06'", " 1989-08-24 ", "2000-04-01T00:00:00.000Z", "", "1989-13-01", "abc", "1989-8-4",
+            "2024-02-29", "1900-02-29", "2000-02-29", "1600-03-01", "0001-01-01", "1969-12-31T23:59:59.999Z", "2000-04-31", "1989-00-10", "+1989-08-24",
+            "1989-08-24T25:00:00.000Z", "1989-08-24T10:00:00Z", "1989/08/24", "''1989-08-24''", "１９８９-08-24"};
+    private static final String[] TIMESTAMP_VALUES = {"2007-05-04 08:02:11", "2008-06-04 08:02:11.566", "2010-07-12 11:02:11.8", "2000-04-01T00:00:00.000Z", "'2000-01-01 01:02:03.004'", "", "2010-07-12", "abc",
+            "1969-12-31 23:59:59.999", "1600-02-29 00:00:00", "2010-07-12 24:00:00", "2010-07-12 11:60:00", "2010-07-12 11:02:60", "2010-07-12 11:02:11.",
+            "2010-07-12 11:02:11.1234", "2010-07-12 1:02:11", "2010-07-12T11:02:11.5Z", "2010-07-12t11:02:11.5z", "2010-07-12T11:02:11Z", "2010-07-12 11:02:11.5Z"};
+    private static final String[] TIME_VALUES = {"08:02:11", "09:04:11.8", "09:34:45.56", "1975-01-01T04:23:55.345Z", "", "25:00:00", "abc",
+            "00:00:00", "23:59:59.999", "8:02:11", "12:00:60", "08:02:11Z", "'08:02:11'", "1975-01-01T04:23:55Z", "2010-07-12 11:02:11"};
+    private static final String[] STRING_VALUES = {"Alice", "  Bob", "", "  ", "中文测试", "a,b"};
+    private static final String[] LONG_VALUES = {"0", " 42 ", "-9223372036854775808", "9223372036854775807", "9223372036854775808", "-", "+", " +1 2", "\u0663\u0664", ""};
+    //the clean and invalid values of each type, used by testDirtyInputAllocation and ColumnConverterBenchmark
+    static final String[] DIRTY_INPUT_TYPES = {"integer", "double", "number(18,2)", "date", "timestamp"};
+    static final String[] DIRTY_INPUT_CLEAN_VALUES = {"12345", "1234.5", "1234.56", "2020-02-29", "2020-02-29 12:34:56.789"};
+    static final String[] DIRTY_INPUT_DIRTY_VALUES = {"12a45", "1234.5x", "12.34.56", "2020-02-30", "2020-02-29 12:34:56.789x"};
+
+    @Test
+    public void testIntegerConverter() {
+        assertSameAsAvroFieldValue("integer", INTEGER_VALUES);
+    }
+
+    @Test
+    public void testLongConverter() {
+        Schema longSchema = Schema.create(Schema.Type.LONG);
+        ColumnConverter converter = ColumnConverter.create(longSchema);
+        ParquetRow row = new ParquetRow(1);
+        for (String value : LONG_VALUES) {
+            Object expected = null;
+            String expectedError = null;
+            try {
+                expected = ParquetAvroUtils.toAvroFieldValue(longSchema, value);
+            } catch (IllegalArgumentException ex) {
+                expectedError = ex.getMessage();
+            }
+            String actualError = null;
+            row.clear();
+            try {
+                converter.convert(value, row, 0);
+            } catch (IllegalArgumentException ex) {
+                actualError = ex.getMessage();
+            }
+            Assert.assertEquals("long value [" + value + "]", expectedError, actualError);
+            if (expectedError == null) {
+                Assert.assertEquals("long value [" + value + "]", expected, converter.toAvroValue(row, 0));
+            }
+        }
+    }
+
+    @Test
+    public void testConverterSteadyStateAllocation() {
+        java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported());
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+
+        List<FieldMetadata> fields = new ArrayList<>();
+        fields.add(new FieldMetadata("c0", "integer"));
+        fields.add(new FieldMetadata("c1", "varchar(64)"));
+        Schema schema = SchemaConverter.toAvroSchema(fields);
+        ColumnConverter intConverter = ColumnConverter.create(schema.getFields().get(0).schema());
+        ColumnConverter stringConverter = ColumnConverter.create(schema.getFields().get(1).schema());
+        //padded and blank values must be trimmed without copying them
+        String[] intValues = {"12", " 345 ", "-6789", "\t0", "   "};
+        String[] stringValues = {"Alice", "  Bob", ""};
+        ParquetRow row = new ParquetRow(2);
+
+        int rounds = 200000;
+        long checksum = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            long threadId = Thread.currentThread().getId();
+            long allocatedBefore = allocationBean.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < rounds; i++) {
+                row.clear();
+                intConverter.convert(intValues[i % intValues.length], row, 0);
+                stringConverter.convert(stringValues[i % stringValues.length], row, 1);
+                checksum += row.isNull(0) ? 0 : row.getInt(0);
+            }
+            long allocated = allocationBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+            //the first pass warms up the converters, the second one is measured
+            if (pass == 1) {
+                Assert.assertTrue("Allocated " + allocated + " bytes for " + rounds + " rows", allocated < rounds);
+            }
+        }
+        Assert.assertTrue(checksum != 0);
+    }
+
+    /**
+     * Converts clean values and values of which half are invalid. Invalid values are reported by the status of
+     * tryConvert, an exception per value would allocate its stack trace and exceed the limit.
+     * The time of both inputs is compared by ColumnConverterBenchmark.
+     */
+    @Test
+    public void testDirtyInputAllocation() {
+        java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported());
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+
+        List<FieldMetadata> fields = new ArrayList<>();
+        for (int i = 0; i < DIRTY_INPUT_TYPES.length; i++) {
+            fields.add(new FieldMetadata("c" + i, DIRTY_INPUT_TYPES[i]));
+        }
+        Schema schema = SchemaConverter.toAvroSchema(fields);
+
+        int rounds = 20000;
+        for (int i = 0; i < DIRTY_INPUT_TYPES.length; i++) {
+            ColumnConverter converter = ColumnConverter.create(schema.getFields().get(i).schema());
+            String[] clean = {DIRTY_INPUT_CLEAN_VALUES[i], DIRTY_INPUT_CLEAN_VALUES[i]};
+            String[] halfDirty = {DIRTY_INPUT_CLEAN_VALUES[i], DIRTY_INPUT_DIRTY_VALUES[i]};
+            ParquetRow row = new ParquetRow(1);
+            long[] allocated = new long[2];
+            for (int pass = 0; pass < 2; pass++) {
+                //the first pass warms up the converter, the second one is measured
+                for (int input = 0; input < 2; input++) {
+                    String[] values = input == 0 ? clean : halfDirty;
+                    long threadId = Thread.currentThread().getId();
+                    long allocatedBefore = allocationBean.getThreadAllocatedBytes(threadId);
+                    int failures = 0;
+                    for (int j = 0; j < rounds; j++) {
+                        if (!converter.tryConvert(values[j & 1], row, 0)) {
+                            failures++;
+                        }
+                    }
+                    allocated[input] = allocationBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+                    Assert.assertEquals(input == 0 ? 0 : rounds / 2, failures);
+                }
+            }
+            //a dirty value which is not in the canonical form is parsed by a Joda formatter, which allocates a few
+            //hundred bytes without throwing
+            long allocatedPerDirtyValue = (allocated[1] - allocated[0] / 2) / (rounds / 2);
+            Assert.assertTrue(DIRTY_INPUT_TYPES[i] + " allocated " + allocatedPerDirtyValue + " bytes per dirty value",
+                    allocatedPerDirtyValue < 1024);
+        }
+    }
+
+    @Test
+    public void testDoubleConverter() {
+        assertSameAsAvroFieldValue("double", DOUBLE_VALUES);
+    }
+
+    @Test
+    public void testDoubleConverterRoundTrip() {
+        List<FieldMetadata> fields = new ArrayList<>();
+        fields.add(new FieldMetadata("c0", "double"));
+        ColumnConverter converter = ColumnConverter.create(SchemaConverter.toAvroSchema(fields).getFields().get(0).schema());
+        ParquetRow row = new ParquetRow(1);
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            //the shortest representation of random bits over the whole range, including subnormals
+            double bits = Double.longBitsToDouble(random.nextLong());
+            if (!Double.isNaN(bits)) {
+                assertDoubleRoundTrip(converter, row, Double.toString(bits));
+            }
+            //random significands of up to 20 digits with random exponents, most are not the shortest representation
+            StringBuilder digits = new StringBuilder();
+            int length = 1 + random.nextInt(20);
+            for (int d = 0; d < length; d++) {
+                digits.append((char) ('0' + random.nextInt(10)));
+            }
+            assertDoubleRoundTrip(converter, row, digits + "e" + (random.nextInt(680) - 350));
+            digits.insert(random.nextInt(length + 1), '.');
+            assertDoubleRoundTrip(converter, row, "-" + digits + "E" + (random.nextInt(60) - 30));
+            //values in the typical range of sensor readings, with group characters
+            assertDoubleRoundTrip(converter, row, String.format(Locale.ROOT, "%,.6f", (random.nextDouble() - 0.5) * 2e7));
+            //the values halfway between two doubles, which are rounded to even
+            assertDoubleRoundTrip(converter, row, String.valueOf((random.nextLong() >>> 11) | (1L << 53) | 1));
+            BigDecimal low = new BigDecimal(random.nextDouble() * Math.pow(10, random.nextInt(40) - 20));
+            BigDecimal high = new BigDecimal(Math.nextUp(low.doubleValue()));
+            assertDoubleRoundTrip(converter, row, low.add(high).divide(BigDecimal.valueOf(2)).toString());
+        }
+    }
+
+    private static void assertDoubleRoundTrip(ColumnConverter converter, ParquetRow row, String value) {
+        row.clear();
+        Assert.assertTrue(value, converter.tryConvert(value, row, 0));
+        Assert.assertEquals(value, Double.doubleToRawLongBits(Double.parseDouble(value.replace(",", ""))),
+                Double.doubleToRawLongBits(row.getDouble(0)));
+    }
+
+    @Test
+    public void testDecimalConverter() {
+        assertSameAsAvroFieldValue("number", DECIMAL_VALUES);
+        assertSameAsAvroFieldValue("number(10,3)", DECIMAL_VALUES);
+        assertSameAsAvroFieldValue("number(10)", DECIMAL_VALUES);
+        assertSameAsAvroFieldValue("number(38,20)", DECIMAL_VALUES);
+    }
+
+    @Test
+    public void testDecimalConverterWithRandomValues() {
+        Random random = new Random(42);
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            //up to 22 digits, so some unscaled values do not fit in a long
+            StringBuilder value = new StringBuilder(random.nextBoolean() ? "-" : "");
+            int digits = 1 + random.nextInt(22);
+            int point = random.nextInt(digits + 1);
+            for (int d = 0; d < digits; d++) {
+                if (d == point) {
+                    value.append('.');
+                }
+                value.append((char) ('0' + random.nextInt(10)));
+            }
+            values.add(value.toString());
+        }
+        String[] decimals = values.toArray(new String[0]);
+        assertSameAsAvroFieldValue("number", decimals);
+        assertSameAsAvroFieldValue("number(20,5)", decimals);
+        assertSameAsAvroFieldValue("number(10)", decimals);
+    }
+
+    @Test
+    public void testDateAndTimestampConverters() {
+        assertSameAsAvroFieldValue("date", DATE_VALUES);
+        assertSameAsAvroFieldValue("timestamp", TIMESTAMP_VALUES);
+        assertSameAsAvroFieldValue("time", TIME_VALUES);
+    }
+
+    @Test
+    public void testDateAndTimestampConvertersWithRandomValues() {
+        Random random = new Random(42);
+        List<String> dates = new ArrayList<>();
+        List<String> timestamps = new ArrayList<>();
+        List<String> times = new ArrayList<>();
+        //from year 0001 to 9999
+        long minMillis = -62135596800000L;
+        long maxMillis = 253402300799999L;
+        for (int i = 0; i < 2000; i++) {
+            DateTime timestamp = new DateTime(minMillis + (long) (random.nextDouble() * (maxMillis - minMillis)), DateTimeZone.UTC);
+            dates.add(ParquetAvroUtils.dateFormatter.print(timestamp));
+            String published = ParquetAvroUtils.timestampFormatterPublished.print(timestamp);
+            dates.add(published);
+            timestamps.add(ParquetAvroUtils.timestampFormatter.print(timestamp));
+            timestamps.add(published);
+            times.add(ParquetAvroUtils.timestampFormatter.print(timestamp).substring(11));
+        }
+        assertSameAsAvroFieldValue("date", dates.toArray(new String[0]));
+        assertSameAsAvroFieldValue("timestamp", timestamps.toArray(new String[0]));
+        assertSameAsAvroFieldValue("time", times.toArray(new String[0]));
+    }
+
+    @Test
+    public void testStringConverter() {
+        assertSameAsAvroFieldValue("varchar(64)", STRING_VALUES);
+    }
+
+    /**
+     * The converter of the field type should produce the same value, or fail with the same message, as
+     * ParquetAvroUtils.toAvroFieldValue does for every input value.
+     */
+    private static void assertSameAsAvroFieldValue(String fieldType, String[] values) {
+        List<FieldMetadata> fields = new ArrayList<>();
+        fields.add(new FieldMetadata("c0", fieldType));
+        Schema fieldSchema = SchemaConverter.toAvroSchema(fields).getFields().get(0).schema();
+        ColumnConverter converter = ColumnConverter.create(fieldSchema);
+        ParquetRow row = new ParquetRow(1);
+
+        for (String value : values) {
+            Object expected;
+            String expectedError = null;
+            try {
+                expected = toPhysicalValue(ParquetAvroUtils.toAvroFieldValue(fieldSchema, value));
+            } catch (IllegalArgumentException ex) {
+                expected = null;
+                expectedError = ex.getMessage();
+            }
+
+            String actualError = null;
+            row.clear();
+            try {
+                converter.convert(value, row, 0);
+            } catch (IllegalArgumentException ex) {
+                actualError = ex.getMessage();
+            }
+            String message = fieldType + " value [" + value + "]";
+            Assert.assertEquals(message, expectedError, actualError);
+            if (expectedError == null) {
+                Assert.assertEquals(message, expected, toComparable(converter.toAvroValue(row, 0)));
+            }
+
+            //the status of tryConvert and the lazily built message report the same error
+            row.clear();
+            boolean converted = converter.tryConvert(value, row, 0);
+            Assert.assertEquals(message, expectedError == null, converted);
+            if (!converted) {
+                Assert.assertEquals(message, expectedError, converter.getErrorMessage(value));
+            }
+        }
+    }
+
+    private static Object toPhysicalValue(Object avroValue) {
+        if (avroValue instanceof LocalDate) {
+            return Days.daysBetween(new LocalDate(1970, 1, 1), (LocalDate) avroValue).getDays();
+        } else if (avroValue instanceof DateTime) {
+            return ((DateTime) avroValue).getMillis();
+        }
+        return toComparable(avroValue);
+    }
+
+    private static Object toComparable(Object value) {
+        if (value instanceof GenericFixed) {
+            return Arrays.toString(((GenericFixed) value).bytes());
+        }
+        return value;
+    }
+}
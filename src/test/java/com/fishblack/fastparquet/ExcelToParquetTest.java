@@ -0,0 +1,193 @@
+package com.fishblack.fastparquet;
+
+import com.fishblack.fastparquet.common.ConvertResult;
+import com.fishblack.fastparquet.common.FieldMetadata;
+import com.fishblack.fastparquet.common.ParquetConversionException;
+import com.fishblack.fastparquet.reader.PageIndex;
+import com.fishblack.fastparquet.utils.ParquetAvroUtils;
+import com.fishblack.fastparquet.utils.ParquetConverter;
+import com.fishblack.fastparquet.utils.Utils;
+import com.fishblack.fastparquet.writer.ParquetWriteOptions;
+import junit.framework.Assert;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class ExcelToParquetTest {
+
+	private static String testinputDir;
+	private static final String fs = File.separator;
+	private static final String tmpDir = System.getProperty("java.io.tmpdir");
+
+	@BeforeClass
+	public static void setUp() {
+		testinputDir = ConfigUtils.getInstance().getResourceDir() + fs + "testdata" + fs + "parquet";
+	}
+
+	@Test
+	public void testExcelToParquet() throws IOException, ParquetConversionException {
+		List<FieldMetadata> fields = fields("number(18,0)", "varchar(20)", "double", "number(12,2)", "double", "double", "date", "timestamp", "time");
+		String parquetPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
+		try {
+			long rows = ParquetConverter.excelToParquet(new File(testinputDir + fs + "excel_to_parquet.xlsx"), fields, false, parquetPath, null);
+			Assert.assertEquals(9, rows);
+
+			//numeric cells keep their stored value, date serial numbers become the canonical date, timestamp and time
+			List<String> lines = ParquetTestUtil.readCanonical(parquetPath);
+			Assert.assertEquals(9, lines.size());
+			Assert.assertEquals("133499892,\" \"\"Alice  \"\"\",24,13000.44,104,134589894.24,1984-04-08,2007-05-04 08:02:11.0,08:02:11", lines.get(0));
+			Assert.assertEquals("133499834,\" \"\"  Bob\"\"\",25.34,14000.93,234.7876767654,6415898956.17858,1987-04-08,2008-06-04 08:02:11.566,09:04:11.800", lines.get(1));
+			Assert.assertEquals("133222347,中文测试,34355.37895,1404545.00,76,341.15,1989-08-24,2010-07-28 00:02:12.0,09:34:46", lines.get(8));
+		} finally {
+			Utils.deleteWithWarning(new File(parquetPath));
+		}
+	}
+
+	@Test
+	public void testExcelToParquetAsText() throws IOException, ParquetConversionException {
+		List<FieldMetadata> fields = fields("varchar(20)", "varchar(20)", "varchar(20)", "varchar(20)", "varchar(20)", "varchar(20)", "varchar(20)", "varchar(30)", "varchar(20)");
+		String parquetPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
+		try {
+			ParquetConverter.excelToParquet(new File(testinputDir + fs + "excel_to_parquet.xlsx"), fields, false, parquetPath, null);
+
+			//numbers are plain numbers without the binary noise of the stored value, cells with a date format are formatted
+			List<String> lines = ParquetTestUtil.readCanonical(parquetPath);
+			Assert.assertEquals("133499892,\" \"\"Alice  \"\"\",24,13000.4454,104,134589894.24,1984-04-08,2007-05-04 08:02:11.000,08:02:11.000", lines.get(0));
+		} finally {
+			Utils.deleteWithWarning(new File(parquetPath));
+		}
+	}
+
+	@Test
+	public void testExcelToParquetWithHeader() throws IOException, ParquetConversionException {
+		String parquetPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
+		try {
+			long rows = ParquetConverter.excelToParquet(new File(testinputDir + fs + "empty_string_data.xlsx"), fields("number", "varchar(20)", "varchar(20)"), true, parquetPath, null);
+			Assert.assertEquals(3, rows);
+			//a missing cell is null
+			Assert.assertEquals(Arrays.asList("1,            ,SpaceString", "2,,ModifiedEmptyString", "3,,DefaultValue"), ParquetTestUtil.readCanonical(parquetPath));
+
+			//the second sheet by name, its empty columns have no cells
+			List<FieldMetadata> fields = fields("number", "varchar(20)", "number", "number", "number", "number", "varchar(20)", "varchar(20)", "varchar(20)");
+			rows = ParquetConverter.excelToParquet(new File(testinputDir + fs + "Targets.xlsx"), "Sheet2", fields, true, parquetPath, null, new ParquetWriteOptions());
+			List<String> lines = ParquetTestUtil.readCanonical(parquetPath);
+			Assert.assertEquals(rows, lines.size());
+			Assert.assertEquals("2008,BizTech,2555484.73,276078,3066581.676,303685,,a,", lines.get(0));
+		} finally {
+			Utils.deleteWithWarning(new File(parquetPath));
+		}
+	}
+
+	@Test
+	public void testExcelToParquetErrors() throws IOException {
+		String parquetPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
+		File excelFile = new File(testinputDir + fs + "excel_to_parquet.xlsx");
+		File indexDir = PageIndex.indexFile(parquetPath);
+		File blocker = new File(indexDir, "blocker");
+		try {
+			try {
+				ParquetConverter.excelToParquet(excelFile, "Missing", fields("number"), false, parquetPath, null, new ParquetWriteOptions());
+				Assert.fail("The sheet should not be found");
+			} catch (ParquetConversionException e) {
+				Assert.assertEquals(ParquetConversionException.ErrorCode.ILLEGAL_ARGUMENT, e.getErrorCode());
+			}
+
+			//the rows have values after the last field
+			try {
+				ParquetConverter.excelToParquet(excelFile, fields("number", "varchar(20)"), false, parquetPath, null);
+				Assert.fail("The rows should not match the fields");
+			} catch (ParquetConversionException e) {
+				Assert.assertEquals(ParquetConversionException.ErrorCode.DATA_LENGTH_ERROR, e.getErrorCode());
+			}
+
+			//the page index cannot be written over a directory which is not empty, it fails the close of the writer
+			Assert.assertTrue(indexDir.mkdir());
+			Assert.assertTrue(blocker.createNewFile());
+			try {
+				ParquetConverter.excelToParquet(excelFile, null, fields("number", "varchar(20)", "varchar(20)", "varchar(20)", "varchar(20)",
+						"varchar(20)", "varchar(20)", "varchar(30)", "varchar(20)"), false, parquetPath, null, new ParquetWriteOptions().withPageIndex(true));
+				Assert.fail("The error of the page index should fail the conversion");
+			} catch (ParquetConversionException e) {
+				Assert.assertEquals(ParquetConversionException.ErrorCode.IO_EXCEPTION, e.getErrorCode());
+			}
+		} finally {
+			Utils.deleteWithWarning(blocker);
+			Utils.deleteWithWarning(indexDir);
+			Utils.deleteWithWarning(new File(parquetPath));
+		}
+	}
+
+	@Test
+	public void testLargeSheet() throws IOException, ParquetConversionException {
+		File excelFile = File.createTempFile("fastparquet_test", ".xlsx");
+		String parquetPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
+		int rowCount = 20000;
+		//the streaming workbook writes inline strings instead of shared strings
+		SXSSFWorkbook workbook = new SXSSFWorkbook(100);
+		try {
+			CellStyle dateStyle = workbook.createCellStyle();
+			dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd"));
+			Sheet sheet = workbook.createSheet("data");
+			Row header = sheet.createRow(0);
+			header.createCell(0).setCellValue("id");
+			header.createCell(1).setCellValue("name");
+			header.createCell(2).setCellValue("created");
+			for (int i = 1; i <= rowCount; i++) {
+				Row row = sheet.createRow(i);
+				if (i % 1000 == 0) {
+					row.createCell(0).setCellValue("invalid");
+				} else {
+					row.createCell(0).setCellValue(i);
+				}
+				row.createCell(1).setCellValue("name" + i);
+				row.createCell(2).setCellValue(43831 + i % 365);
+				row.getCell(2).setCellStyle(dateStyle);
+			}
+			try (OutputStream out = new FileOutputStream(excelFile)) {
+				workbook.write(out);
+			}
+		} finally {
+			workbook.dispose();
+			workbook.close();
+		}
+		try {
+			Map<String, String> extraMetadata = new HashMap<>();
+			long rows = ParquetConverter.excelToParquet(excelFile, fields("integer", "varchar(20)", "date"), true, parquetPath, extraMetadata);
+			Assert.assertEquals(rowCount, rows);
+
+			Map<String, String> metadata = ParquetAvroUtils.getParquetKeyValueMetadata(parquetPath);
+			ConvertResult result = Utils.objectMapper.readValue(metadata.get(ConvertResult.AUDIT_DETAIL_MESSAGE_KEY), ConvertResult.class);
+			Assert.assertEquals(rowCount / 1000, result.getFailureCount());
+			Assert.assertTrue(result.getErrors().containsKey(999L));
+
+			List<String> lines = ParquetTestUtil.readCanonical(parquetPath);
+			Assert.assertEquals(rowCount, lines.size());
+			Assert.assertEquals("1,name1,2020-01-02", lines.get(0));
+		} finally {
+			Utils.deleteWithWarning(excelFile);
+			Utils.deleteWithWarning(new File(parquetPath));
+		}
+	}
+
+	private static List<FieldMetadata> fields(String... types) {
+		List<FieldMetadata> fields = new ArrayList<>();
+		for (int i = 0; i < types.length; i++) {
+			fields.add(new FieldMetadata("field" + i, types[i]));
+		}
+		return fields;
+	}
+}
@@ -0,0 +1,120 @@
+package com.fishblack.fastparquet;
+
+import com.fishblack.fastparquet.common.ConvertResult;
+import com.fishblack.fastparquet.common.FieldMetadata;
+import com.fishblack.fastparquet.common.ParquetConversionException;
+import com.fishblack.fastparquet.reader.PageIndex;
+import com.fishblack.fastparquet.utils.ParquetAvroUtils;
+import com.fishblack.fastparquet.utils.ParquetConverter;
+import com.fishblack.fastparquet.utils.Utils;
+import com.fishblack.fastparquet.writer.ParquetWriteOptions;
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class JsonLinesToParquetTest {
+
+	private static final String fs = File.separator;
+	private static final String tmpDir = System.getProperty("java.io.tmpdir");
+
+	@Test
+	public void testJsonLinesToParquet() throws IOException, ParquetConversionException {
+		List<FieldMetadata> fields = new ArrayList<>();
+		fields.add(new FieldMetadata("id", "integer"));
+		fields.add(new FieldMetadata("name", "varchar(20)"));
+		fields.add(new FieldMetadata("score", "double"));
+		fields.add(new FieldMetadata("price", "number(10,2)"));
+		fields.add(new FieldMetadata("day", "date"));
+		fields.add(new FieldMetadata("created", "timestamp"));
+		fields.add(new FieldMetadata("tags", "varchar(50)"));
+		File jsonFile = writeJsonLines(
+				"{\"id\": 1, \"name\": \"Alice\", \"score\": 24.5, \"price\": 13000.44, \"day\": \"1984-04-08\", \"created\": \"2007-05-04 08:02:11\", \"tags\": [\"a\", \"b\"]}",
+				"",
+				"{\"created\": null, \"name\": \"中文 \\\"测试\\\"\", \"id\": \"2\", \"score\": 3, \"extra\": {\"nested\": [1, {\"x\": 2}]}, \"price\": \"7\"}",
+				"  {\"id\": 1.5, \"name\": true, \"score\": \"abc\", \"tags\": {\"k\": \"v\"}}",
+				"{}");
+		String parquetPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
+		try {
+			long rows = ParquetConverter.jsonLinesToParquet(jsonFile, fields, parquetPath, null);
+			Assert.assertEquals(4, rows);
+			Assert.assertEquals(Arrays.asList(
+					"1,Alice,24.5,13000.44,1984-04-08,2007-05-04 08:02:11.0,\"[\"\"a\"\",\"\"b\"\"]\"",
+					"2,\"中文 \"\"测试\"\"\",3,7.00,,,",
+					",true,,,,,\"{\"\"k\"\":\"\"v\"\"}\"",
+					",,,,,,"), ParquetTestUtil.readCanonical(parquetPath));
+
+			//the invalid values of the third row are recorded like the ones of canonical rows
+			Map<String, String> metadata = ParquetAvroUtils.getParquetKeyValueMetadata(parquetPath);
+			ConvertResult result = Utils.objectMapper.readValue(metadata.get(ConvertResult.AUDIT_DETAIL_MESSAGE_KEY), ConvertResult.class);
+			Assert.assertEquals(1, result.getFailureCount());
+			Assert.assertEquals(2, result.getErrors().get(2L).size());
+		} finally {
+			Utils.deleteWithWarning(jsonFile);
+			Utils.deleteWithWarning(new File(parquetPath));
+		}
+	}
+
+	@Test
+	public void testJsonLinesErrors() throws IOException {
+		List<FieldMetadata> fields = new ArrayList<>();
+		fields.add(new FieldMetadata("id", "integer"));
+		String parquetPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
+		File notObject = writeJsonLines("{\"id\": 1}", "[1, 2]");
+		File malformed = writeJsonLines("{\"id\": 1}", "{\"id\": ");
+		File valid = writeJsonLines("{\"id\": 1}", "{\"id\": 2}");
+		File indexDir = PageIndex.indexFile(parquetPath);
+		File blocker = new File(indexDir, "blocker");
+		try {
+			try {
+				ParquetConverter.jsonLinesToParquet(notObject, fields, parquetPath, null);
+				Assert.fail("The array should not be converted");
+			} catch (ParquetConversionException e) {
+				Assert.assertEquals(ParquetConversionException.ErrorCode.ILLEGAL_ARGUMENT, e.getErrorCode());
+			}
+			try {
+				ParquetConverter.jsonLinesToParquet(malformed, fields, parquetPath, null);
+				Assert.fail("The malformed JSON should not be converted");
+			} catch (ParquetConversionException e) {
+				Assert.assertEquals(ParquetConversionException.ErrorCode.IO_EXCEPTION, e.getErrorCode());
+			}
+			try {
+				ParquetConverter.jsonLinesToParquet(notObject, fields, parquetPath, null, new ParquetWriteOptions().withAsyncBufferSize(16));
+				Assert.fail("The asynchronous writer should not be used");
+			} catch (ParquetConversionException e) {
+				Assert.assertEquals(ParquetConversionException.ErrorCode.ILLEGAL_ARGUMENT, e.getErrorCode());
+			}
+
+			//the page index cannot be written over a directory which is not empty, it fails the close of the writer
+			Assert.assertTrue(indexDir.mkdir());
+			Assert.assertTrue(blocker.createNewFile());
+			try {
+				ParquetConverter.jsonLinesToParquet(valid, fields, parquetPath, null, new ParquetWriteOptions().withPageIndex(true));
+				Assert.fail("The error of the page index should fail the conversion");
+			} catch (ParquetConversionException e) {
+				Assert.assertEquals(ParquetConversionException.ErrorCode.IO_EXCEPTION, e.getErrorCode());
+			}
+		} finally {
+			Utils.deleteWithWarning(notObject);
+			Utils.deleteWithWarning(malformed);
+			Utils.deleteWithWarning(valid);
+			Utils.deleteWithWarning(blocker);
+			Utils.deleteWithWarning(indexDir);
+			Utils.deleteWithWarning(new File(parquetPath));
+		}
+	}
+
+	private static File writeJsonLines(String... lines) throws IOException {
+		File file = File.createTempFile("fastparquet_test", ".jsonl");
+		Files.write(file.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+		return file;
+	}
+}
@@ -0,0 +1,199 @@
+package com.fishblack.fastparquet;
+
+import com.fishblack.fastparquet.common.FieldMetadata;
+import com.fishblack.fastparquet.common.ParquetConversionException;
+import com.fishblack.fastparquet.reader.ColumnVector;
+import com.fishblack.fastparquet.reader.PageIndex;
+import com.fishblack.fastparquet.reader.ParquetColumnReader;
+import com.fishblack.fastparquet.reader.ParquetColumnReaderImpl;
+import com.fishblack.fastparquet.reader.ParquetMultiColumnReader;
+import com.fishblack.fastparquet.reader.ParquetMultiColumnReaderImpl;
+import com.fishblack.fastparquet.reader.RowFilter;
+import com.fishblack.fastparquet.utils.Utils;
+import com.fishblack.fastparquet.writer.ParquetDataWriter;
+import com.fishblack.fastparquet.writer.ParquetWriteOptions;
+import junit.framework.Assert;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class PageIndexTest {
+
+	private static final String fs = File.separator;
+	private static final String tmpDir = System.getProperty("java.io.tmpdir");
+	private static final int ROWS = 20000;
+	private static final List<String> COLUMNS = Arrays.asList("f0", "f1", "f2", "f3");
+	private List<FieldMetadata> fields;
+	private String parquetPath;
+
+	@Before
+	public void setUp() throws IOException, ParquetConversionException {
+		fields = new ArrayList<>();
+		fields.add(new FieldMetadata("id", "integer"));
+		fields.add(new FieldMetadata("name", "varchar(20)"));
+		fields.add(new FieldMetadata("score", "double"));
+		fields.add(new FieldMetadata("price", "number(10,2)"));
+		parquetPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
+		write(ROWS, true);
+	}
+
+	@After
+	public void tearDown() {
+		Utils.deleteWithWarning(new File(parquetPath));
+		Utils.deleteWithWarning(PageIndex.indexFile(parquetPath));
+	}
+
+	@Test
+	public void testReadMatchingPages() throws IOException {
+		Assert.assertTrue(PageIndex.indexFile(parquetPath).isFile());
+
+		//the ids are sorted and the names are clustered, the other pages of the row group are not read
+		assertPages(RowFilter.eq("id", "12345"), 12345, 12345);
+		assertPages(RowFilter.between("id", "7000", "7999"), 7000, 7999);
+		assertPages(RowFilter.eq("name", "group15"), 15000, 15999);
+		assertPages(RowFilter.isNull("name"), 5000, 5199);
+		assertPages(RowFilter.in("id", "10", "19990"), 10, 10);
+		assertPages(RowFilter.in("id", "10", "19990"), 19990, 19990);
+		assertPages(RowFilter.and(RowFilter.between("id", "3000", null), RowFilter.eq("name", "group3")), 3000, 3999);
+		assertPages(RowFilter.or(RowFilter.eq("id", "100"), RowFilter.eq("name", "group18")), 100, 100);
+		assertPages(RowFilter.or(RowFilter.eq("id", "100"), RowFilter.eq("name", "group18")), 18000, 18999);
+		Assert.assertEquals(0, read(RowFilter.and(RowFilter.eq("id", "100"), RowFilter.eq("name", "group18"))).size());
+
+		//the values of the score are in all pages
+		Assert.assertEquals(ROWS, read(RowFilter.eq("score", "0")).size());
+	}
+
+	@Test
+	public void testReadBatch() throws IOException {
+		RowFilter filter = RowFilter.or(RowFilter.between("id", "1000", "1500"), RowFilter.isNull("name"), RowFilter.eq("id", "19999"));
+		List<Object[]> rows = read(filter);
+		List<Object[]> batchRows = new ArrayList<>();
+		try (ParquetMultiColumnReader reader = new ParquetMultiColumnReaderImpl(parquetPath, COLUMNS, fields, filter)) {
+			ColumnVector[] vectors = new ColumnVector[] { new ColumnVector(), new ColumnVector(), new ColumnVector(), new ColumnVector() };
+			int n;
+			while ((n = reader.readBatch(vectors, 77)) > 0) {
+				for (int i = 0; i < n; i++) {
+					batchRows.add(new Object[] { vectors[0].getInt(i), vectors[1].getString(i),
+							vectors[2].getDouble(i), vectors[3].getDecimal(i) });
+				}
+			}
+		}
+		Assert.assertEquals(rows.size(), batchRows.size());
+		for (int i = 0; i < rows.size(); i++) {
+			Assert.assertEquals(Arrays.toString(rows.get(i)), Arrays.toString(batchRows.get(i)));
+		}
+
+		//the column reader skips the same pages
+		try (ParquetColumnReader reader = new ParquetColumnReaderImpl(parquetPath, "f1", fields, filter)) {
+			int i = 0;
+			while (reader.hasNext()) {
+				Assert.assertEquals(rows.get(i++)[1], reader.next());
+			}
+			Assert.assertEquals(rows.size(), i);
+		}
+	}
+
+	@Test
+	public void testStaleIndex() throws IOException, ParquetConversionException {
+		RowFilter filter = RowFilter.eq("id", "12345");
+		int indexedRows = read(filter).size();
+
+		//a writer without the index deletes the index of the replaced file
+		write(ROWS, false);
+		Assert.assertFalse(PageIndex.indexFile(parquetPath).exists());
+		int rowGroupRows = read(filter).size();
+		Assert.assertTrue("Read " + indexedRows + " of " + rowGroupRows + " rows", indexedRows * 10 < rowGroupRows);
+
+		//the index of another file is ignored
+		PageIndex.write(parquetPath);
+		write(ROWS - 1, false);
+		File indexFile = PageIndex.indexFile(parquetPath);
+		Assert.assertFalse(indexFile.exists());
+		String otherPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
+		try {
+			write(otherPath, ROWS, true);
+			Assert.assertTrue(PageIndex.indexFile(otherPath).renameTo(indexFile));
+			Assert.assertEquals(ROWS - 1, read(filter).size());
+		} finally {
+			Utils.deleteWithWarning(new File(otherPath));
+		}
+
+		//the index of a file rewritten with the same length but another footer is ignored
+		write(parquetPath, ROWS, true, new HashMap<>(Collections.singletonMap("source", "a")));
+		File savedIndex = new File(parquetPath + ".saved");
+		long length = new File(parquetPath).length();
+		try {
+			Assert.assertTrue(indexFile.renameTo(savedIndex));
+			write(parquetPath, ROWS, false, new HashMap<>(Collections.singletonMap("source", "b")));
+			Assert.assertEquals(length, new File(parquetPath).length());
+			Assert.assertTrue(savedIndex.renameTo(indexFile));
+			Assert.assertEquals(rowGroupRows, read(filter).size());
+		} finally {
+			Utils.deleteWithWarning(savedIndex);
+		}
+	}
+
+	/**
+	 * Assert the rows from first to last id are read, and only a part of the other rows of the row group.
+	 */
+	private void assertPages(RowFilter filter, int first, int last) throws IOException {
+		List<Object[]> rows = read(filter);
+		Assert.assertTrue("Read " + rows.size() + " rows of " + filter, rows.size() < ROWS / 10 + (last - first));
+		int found = 0;
+		for (Object[] row : rows) {
+			int id = (Integer) row[0];
+			Assert.assertEquals(Arrays.toString(row), Arrays.toString(expected(id)));
+			if (id >= first && id <= last) {
+				found++;
+			}
+		}
+		Assert.assertEquals(last - first + 1, found);
+	}
+
+	private List<Object[]> read(RowFilter filter) throws IOException {
+		List<Object[]> rows = new ArrayList<>();
+		try (ParquetMultiColumnReader reader = new ParquetMultiColumnReaderImpl(parquetPath, COLUMNS, fields, filter)) {
+			while (reader.hasNext()) {
+				rows.add(reader.next());
+			}
+		}
+		return rows;
+	}
+
+	private static Object[] expected(int id) {
+		return new Object[] { id, id >= 5000 && id < 5200 ? null : "group" + id / 1000, id % 7 * 0.5,
+				new BigDecimal(id - 1000 + ".25") };
+	}
+
+	private void write(int rows, boolean pageIndex) throws IOException, ParquetConversionException {
+		write(parquetPath, rows, pageIndex);
+	}
+
+	private void write(String path, int rows, boolean pageIndex) throws IOException, ParquetConversionException {
+		write(path, rows, pageIndex, null);
+	}
+
+	private void write(String path, int rows, boolean pageIndex, Map<String, String> metadata) throws IOException, ParquetConversionException {
+		//small pages make many pages in the only row group
+		ParquetWriteOptions options = new ParquetWriteOptions().withPageSize(1024).withPageIndex(pageIndex)
+				.withCompressionCodec(CompressionCodecName.SNAPPY);
+		try (ParquetDataWriter writer = new ParquetDataWriter(fields, path, metadata, options)) {
+			for (int i = 0; i < rows; i++) {
+				Object[] row = expected(i);
+				writer.write(new String[] { String.valueOf(i), (String) row[1], String.valueOf(row[2]), row[3].toString() });
+			}
+		}
+	}
+}
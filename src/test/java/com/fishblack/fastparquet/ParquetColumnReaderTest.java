@@ -1,7 +1,13 @@
 package com.fishblack.fastparquet;
 
+import com.fishblack.fastparquet.common.FieldMetadata;
+import com.fishblack.fastparquet.common.ParquetConversionException;
+import com.fishblack.fastparquet.reader.ColumnVector;
 import com.fishblack.fastparquet.reader.ParquetColumnReader;
 import com.fishblack.fastparquet.reader.ParquetColumnReaderImpl;
+import com.fishblack.fastparquet.utils.Utils;
+import com.fishblack.fastparquet.writer.ParquetDataWriter;
+import com.fishblack.fastparquet.writer.ParquetWriteOptions;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -12,8 +18,10 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 public class ParquetColumnReaderTest {
 
@@ -165,4 +173,106 @@ public class ParquetColumnReaderTest {
         } 
     }
 
+    @Test
+    public void testReadBatch() throws IOException {
+        String[] columns = { "f0", "f1", "f2", "f4", "f5", "f6", "f7" };
+        for (String file : new String[] { parquetFile, parquetFileWithNulls, parquetFileWithChinese }) {
+            for (String column : columns) {
+                for (int batchSize : new int[] { 1, 2, 1000 }) {
+                    Assert.assertEquals(file + " " + column, readColumnDataToList(file, column), readBatchesToList(file, column, batchSize));
+                }
+            }
+        }
+
+        // the timestamps keep their milliseconds
+        try (ParquetColumnReader reader = new ParquetColumnReaderImpl(parquetFile, "f6")) {
+            ColumnVector vector = new ColumnVector();
+            Assert.assertEquals(3, reader.readBatch(vector, 10));
+            Assert.assertEquals(LocalDateTime.of(2007, 6, 4, 8, 2, 11), LocalDateTime.ofEpochSecond(vector.getLong(0) / 1000, 0, ZoneOffset.UTC));
+            Assert.assertEquals(0, reader.readBatch(vector, 10));
+            Assert.assertEquals(0, vector.size());
+        }
+    }
+
+    @Test
+    public void testReadBatchAcrossRowGroups() throws IOException, ParquetConversionException {
+        List<FieldMetadata> fields = new ArrayList<>();
+        fields.add(new FieldMetadata("id", "integer"));
+        fields.add(new FieldMetadata("name", "varchar(100)"));
+        String parquetPath = System.getProperty("java.io.tmpdir") + fs + UUID.randomUUID().toString() + ".parquet";
+        int rows = 10000;
+        // a tiny row group size makes many row groups, the batches span them
+        try (ParquetDataWriter writer = new ParquetDataWriter(fields, parquetPath, null, new ParquetWriteOptions().withRowGroupSize(1024))) {
+            for (int i = 0; i < rows; i++) {
+                writer.write(new String[] { i % 7 == 0 ? null : String.valueOf(i), i % 5 == 0 ? null : "name " + i });
+            }
+        }
+        try {
+            // the vector grows its byte array from the smallest capacity
+            try (ParquetColumnReader reader = new ParquetColumnReaderImpl(parquetPath, "f1")) {
+                ColumnVector vector = new ColumnVector(1);
+                int count = 0;
+                int read;
+                while ((read = reader.readBatch(vector, 777)) > 0) {
+                    for (int i = 0; i < read; i++, count++) {
+                        Assert.assertEquals(count % 5 == 0, vector.isNull(i));
+                        Assert.assertEquals(count % 5 == 0 ? null : "name " + count, vector.getString(i));
+                    }
+                }
+                Assert.assertEquals(rows, count);
+                Assert.assertFalse(reader.hasNext());
+            }
+            try (ParquetColumnReader reader = new ParquetColumnReaderImpl(parquetPath, "f0")) {
+                ColumnVector vector = new ColumnVector();
+                long sum = 0;
+                int nulls = 0;
+                int read;
+                while ((read = reader.readBatch(vector, 4096)) > 0) {
+                    int[] values = vector.getIntValues();
+                    for (int i = 0; i < read; i++) {
+                        sum += values[i];
+                        nulls += vector.isNull(i) ? 1 : 0;
+                    }
+                }
+                long expectedSum = 0;
+                for (int i = 0; i < rows; i++) {
+                    expectedSum += i % 7 == 0 ? 0 : i;
+                }
+                Assert.assertEquals(expectedSum, sum);
+                Assert.assertEquals((rows + 6) / 7, nulls);
+            }
+        } finally {
+            Utils.deleteWithWarning(new File(parquetPath));
+        }
+    }
+
+    // converts the batches to the values next() returns
+    private static List<Object> readBatchesToList(String parquetFile, String columnName, int batchSize) throws IOException {
+        try (ParquetColumnReader reader = new ParquetColumnReaderImpl(parquetFile, columnName)) {
+            List<Object> values = new ArrayList<>();
+            ColumnVector vector = new ColumnVector(1);
+            int read;
+            while ((read = reader.readBatch(vector, batchSize)) > 0) {
+                for (int i = 0; i < read; i++) {
+                    if (vector.isNull(i)) {
+                        values.add(null);
+                    } else if (columnName.equals("f0")) {
+                        values.add(vector.getInt(i));
+                    } else if (columnName.equals("f1")) {
+                        values.add(vector.getString(i));
+                    } else if (columnName.equals("f2")) {
+                        values.add(vector.getDecimal(i));
+                    } else if (columnName.equals("f4")) {
+                        values.add(vector.getDouble(i));
+                    } else if (columnName.equals("f5")) {
+                        values.add(LocalDate.ofEpochDay(vector.getInt(i)));
+                    } else {
+                        values.add(LocalDateTime.ofEpochSecond(vector.getLong(i) / 1000, 0, ZoneOffset.UTC));
+                    }
+                }
+            }
+            return values;
+        }
+    }
+
 }
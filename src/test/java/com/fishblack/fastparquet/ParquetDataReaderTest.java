@@ -3,9 +3,11 @@ package com.fishblack.fastparquet;
 import com.fishblack.fastparquet.common.FieldMetadata;
 import com.fishblack.fastparquet.common.ParquetConversionException;
 import com.fishblack.fastparquet.reader.ParquetDataReader;
+import com.fishblack.fastparquet.reader.ParquetReadOptions;
 import com.fishblack.fastparquet.utils.Utils;
 import com.fishblack.fastparquet.utils.ParquetAvroUtils;
 import com.fishblack.fastparquet.writer.ParquetDataWriter;
+import com.fishblack.fastparquet.writer.ParquetWriteOptions;
 import com.opencsv.CSVParserBuilder;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
@@ -21,6 +23,8 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -118,6 +122,57 @@ public class ParquetDataReaderTest {
 		return builder.toString();
 	}
 	
+	@Test
+	public void testParallelRead() throws IOException, ParquetConversionException {
+		String parquetPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
+		List<FieldMetadata> fields = new ArrayList<>();
+		fields.add(new FieldMetadata("id", "integer"));
+		fields.add(new FieldMetadata("name", "varchar(20)"));
+		fields.add(new FieldMetadata("score", "double"));
+		fields.add(new FieldMetadata("day", "date"));
+		try {
+			//a tiny row group size makes many row groups
+			try (ParquetDataWriter writer = new ParquetDataWriter(fields, parquetPath, null, new ParquetWriteOptions().withRowGroupSize(2048))) {
+				for (int i = 0; i < 5000; i++) {
+					writer.write(new String[] { String.valueOf(i), i % 11 == 0 ? null : "name" + i, String.valueOf(i * 0.25), "2020-01-" + (i % 28 + 10) });
+				}
+			}
+			String[][] expected;
+			try (ParquetDataReader pin = new ParquetDataReader(parquetPath)) {
+				expected = pin.next(10000);
+			}
+			Assert.assertEquals(5000, expected.length);
+
+			//the rows are returned in file order whatever the batch size and the number of row groups decoded ahead
+			int[][] settings = { { 4, 0, 1 }, { 3, 1, 7 }, { 2, 16, 5000 } };
+			for (int[] setting : settings) {
+				ParquetReadOptions options = new ParquetReadOptions().withParallelism(setting[0]);
+				if (setting[1] > 0) {
+					options.withReadAhead(setting[1]);
+				}
+				List<String[]> rows = new ArrayList<>();
+				try (ParquetDataReader pin = new ParquetDataReader(parquetPath, options)) {
+					String[][] batch;
+					while ((batch = pin.next(setting[2])).length > 0) {
+						Assert.assertTrue(batch.length <= setting[2]);
+						rows.addAll(Arrays.asList(batch));
+					}
+				}
+				Assert.assertEquals(expected.length, rows.size());
+				for (int i = 0; i < expected.length; i++) {
+					Assert.assertEquals(Arrays.toString(expected[i]), Arrays.toString(rows.get(i)));
+				}
+			}
+
+			//a reader closed before the end stops its threads
+			try (ParquetDataReader pin = new ParquetDataReader(parquetPath, new ParquetReadOptions().withParallelism(2))) {
+				Assert.assertEquals(Arrays.toString(expected[0]), Arrays.toString(pin.next(1)[0]));
+			}
+		} finally {
+			Utils.deleteWithWarning(new File(parquetPath));
+		}
+	}
+
 	@Test
 	public void testReadEmptyParquetFile() throws IOException, ParserConfigurationException, SAXException, ParquetConversionException{
 		String parquetPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
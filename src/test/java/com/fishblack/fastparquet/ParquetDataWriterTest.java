@@ -1,12 +1,18 @@
 package com.fishblack.fastparquet;
 
+import com.fishblack.fastparquet.common.ConvertResult;
 import com.fishblack.fastparquet.common.FieldMetadata;
 import com.fishblack.fastparquet.common.ParquetConversionException;
+import com.fishblack.fastparquet.reader.PageIndex;
 import com.fishblack.fastparquet.reader.ParquetDataReader;
 import com.fishblack.fastparquet.utils.Utils;
 import com.fishblack.fastparquet.utils.ParquetAvroUtils;
 import com.fishblack.fastparquet.utils.ParquetConverter;
+import com.fishblack.fastparquet.writer.BufferOutputFile;
 import com.fishblack.fastparquet.writer.ParquetDataWriter;
+import com.fishblack.fastparquet.writer.ParquetWriteOptions;
+import com.fishblack.fastparquet.writer.StreamOutputFile;
+import com.fishblack.fastparquet.writer.ValueCacheStatistic;
 import com.opencsv.CSVParserBuilder;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
@@ -19,19 +25,32 @@ import org.apache.avro.generic.GenericData;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.parquet.avro.AvroParquetReader;
+import org.apache.parquet.format.converter.ParquetMetadataConverter;
+import org.apache.parquet.hadoop.ParquetFileReader;
 import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.joda.time.Days;
+import org.joda.time.LocalDate;
+import org.junit.Assume;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
 import javax.xml.parsers.ParserConfigurationException;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -348,6 +367,609 @@ public class ParquetDataWriterTest {
 		}
 	}
 
+	@Test
+	public void testWriteWithDirectEngine() throws IOException, ParserConfigurationException, SAXException, ParquetConversionException, CsvValidationException {
+		String avroParquetPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
+		String directParquetPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
+		try {
+			Document typeOptions = ParquetTestUtil.readTypeoptionsFromFile(new File(testinputDir + fs + "data_types_test_type_options.xml"));
+			List<FieldMetadata> fields = FieldMetadata.getPublishedFields(typeOptions);
+
+			writeCsvFile(testinputDir + fs + "data_types_test_with_error.csv", fields, avroParquetPath,
+					new ParquetWriteOptions().withWriteEngine(ParquetWriteOptions.WriteEngine.AVRO));
+			writeCsvFile(testinputDir + fs + "data_types_test_with_error.csv", fields, directParquetPath,
+					new ParquetWriteOptions().withWriteEngine(ParquetWriteOptions.WriteEngine.DIRECT));
+
+			ByteArrayOutputStream avroCsv = new ByteArrayOutputStream();
+			ByteArrayOutputStream directCsv = new ByteArrayOutputStream();
+			ParquetConverter.parquetToCanonical(avroParquetPath, avroCsv, -1);
+			ParquetConverter.parquetToCanonical(directParquetPath, directCsv, -1);
+			Assert.assertEquals(avroCsv.toString(ParquetAvroUtils.DEFAULT_ENCODING), directCsv.toString(ParquetAvroUtils.DEFAULT_ENCODING));
+
+			//footer metadata including the Avro schema and the audit result should be the same
+			Assert.assertEquals(ParquetAvroUtils.getParquetKeyValueMetadata(avroParquetPath), ParquetAvroUtils.getParquetKeyValueMetadata(directParquetPath));
+			Assert.assertEquals(ParquetAvroUtils.getParquetFileColumns(avroParquetPath), ParquetAvroUtils.getParquetFileColumns(directParquetPath));
+		} finally {
+			Utils.deleteWithWarning(new File(avroParquetPath));
+			Utils.deleteWithWarning(new File(directParquetPath));
+		}
+	}
+
+	@Test
+	public void testWriteWithParallelEncoding() throws IOException, ParserConfigurationException, SAXException, ParquetConversionException, CsvValidationException {
+		String sequentialParquetPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
+		String parallelParquetPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
+		try {
+			Document typeOptions = ParquetTestUtil.readTypeoptionsFromFile(new File(testinputDir + fs + "data_types_test_type_options.xml"));
+			List<FieldMetadata> fields = FieldMetadata.getPublishedFields(typeOptions);
+
+			writeCsvFile(testinputDir + fs + "data_types_test_with_error.csv", fields, sequentialParquetPath, new ParquetWriteOptions());
+			ByteArrayOutputStream sequentialCsv = new ByteArrayOutputStream();
+			ParquetConverter.parquetToCanonical(sequentialParquetPath, sequentialCsv, -1);
+
+			for (ParquetWriteOptions.WriteEngine engine : ParquetWriteOptions.WriteEngine.values()) {
+				//a tiny row group size cuts the rows into several row groups which are encoded concurrently
+				writeCsvFile(testinputDir + fs + "data_types_test_with_error.csv", fields, parallelParquetPath,
+						new ParquetWriteOptions().withWriteEngine(engine).withParallelism(4).withRowGroupSize(300));
+
+				ByteArrayOutputStream parallelCsv = new ByteArrayOutputStream();
+				ParquetConverter.parquetToCanonical(parallelParquetPath, parallelCsv, -1);
+				Assert.assertEquals(sequentialCsv.toString(ParquetAvroUtils.DEFAULT_ENCODING), parallelCsv.toString(ParquetAvroUtils.DEFAULT_ENCODING));
+				Assert.assertEquals(ParquetAvroUtils.getParquetKeyValueMetadata(sequentialParquetPath), ParquetAvroUtils.getParquetKeyValueMetadata(parallelParquetPath));
+				Assert.assertEquals(ParquetAvroUtils.getParquetFileColumns(sequentialParquetPath), ParquetAvroUtils.getParquetFileColumns(parallelParquetPath));
+
+				ParquetMetadata footer = ParquetFileReader.readFooter(new Configuration(), new Path(parallelParquetPath), ParquetMetadataConverter.NO_FILTER);
+				Assert.assertTrue(footer.getBlocks().size() > 1);
+			}
+		} finally {
+			Utils.deleteWithWarning(new File(sequentialParquetPath));
+			Utils.deleteWithWarning(new File(parallelParquetPath));
+		}
+	}
+
+	@Test
+	public void testCanonicalFileInParallel() throws IOException, ParquetConversionException {
+		List<FieldMetadata> fields = new ArrayList<>();
+		fields.add(new FieldMetadata("id", "integer"));
+		fields.add(new FieldMetadata("name", "varchar(64)"));
+		fields.add(new FieldMetadata("amount", "double"));
+		fields.add(new FieldMetadata("created", "date"));
+		fields.add(new FieldMetadata("price", "number(10,2)"));
+		//a file of several ranges, with quoted line breaks, blank lines, single field records and invalid values
+		StringBuilder csv = new StringBuilder("id,name,amount,created,price\n");
+		for (int i = 0; csv.length() < 9 * 1024 * 1024; i++) {
+			String name = i % 5 == 0 ? "\"line\nbreak, \"\"" + i + "\"\"\"" : "name" + i;
+			String amount = i % 97 == 0 ? "abc" : i + ".25";
+			String created = i % 89 == 0 ? "2020-02-30" : "2020-01-" + (10 + i % 20);
+			csv.append(i).append(',').append(name).append(',').append(amount).append(',').append(created).append(',').append(i % 1000).append(".5");
+			csv.append(i % 3 == 0 ? "\r\n" : "\n");
+			if (i % 1000 == 0) {
+				csv.append(i % 2000 == 0 ? "\n" : "single\n");
+			}
+		}
+		File csvFile = File.createTempFile("canonical", ".csv");
+		String sequentialParquetPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
+		String parallelParquetPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
+		try {
+			Files.write(csvFile.toPath(), csv.toString().getBytes(StandardCharsets.UTF_8));
+			long sequentialRows = ParquetConverter.canonicalToParquet(csvFile, fields, true, sequentialParquetPath, new HashMap<>(), new ParquetWriteOptions(), 1);
+			ByteArrayOutputStream sequentialCsv = new ByteArrayOutputStream();
+			ParquetConverter.parquetToCanonical(sequentialParquetPath, sequentialCsv, -1);
+
+			//the parallel conversion, and both conversions reading the file through memory mapped windows
+			int[][] settings = {{3, 0}, {1, 1}, {3, 1}};
+			for (int[] setting : settings) {
+				long parallelRows = ParquetConverter.canonicalToParquet(csvFile, fields, true, parallelParquetPath, new HashMap<>(),
+						new ParquetWriteOptions(), setting[0], setting[1] == 1);
+				Assert.assertEquals(sequentialRows, parallelRows);
+
+				ByteArrayOutputStream parallelCsv = new ByteArrayOutputStream();
+				ParquetConverter.parquetToCanonical(parallelParquetPath, parallelCsv, -1);
+				Assert.assertEquals(sequentialCsv.toString(ParquetAvroUtils.DEFAULT_ENCODING), parallelCsv.toString(ParquetAvroUtils.DEFAULT_ENCODING));
+				//the convert result holds the row numbers of the errors counted over the whole file
+				Map<String, String> metadata = ParquetAvroUtils.getParquetKeyValueMetadata(parallelParquetPath);
+				Assert.assertEquals(ConvertResult.Result.PARTIAL_SUCCESS.toString(), metadata.get(ConvertResult.AUDIT_CONVERT_RESULT_KEY));
+				Assert.assertEquals(ParquetAvroUtils.getParquetKeyValueMetadata(sequentialParquetPath), metadata);
+			}
+
+			//a record with a wrong number of fields fails both conversions
+			csv.append("1,2\n");
+			Files.write(csvFile.toPath(), csv.toString().getBytes(StandardCharsets.UTF_8));
+			for (int parallelism : new int[]{1, 3}) {
+				try {
+					ParquetConverter.canonicalToParquet(csvFile, fields, true, parallelParquetPath, new HashMap<>(), new ParquetWriteOptions(), parallelism);
+					Assert.fail("The record of two fields should fail the conversion");
+				} catch (ParquetConversionException e) {
+					Assert.assertEquals(ParquetConversionException.ErrorCode.DATA_LENGTH_ERROR, e.getErrorCode());
+				}
+			}
+		} finally {
+			Utils.deleteWithWarning(csvFile);
+			Utils.deleteWithWarning(new File(sequentialParquetPath));
+			Utils.deleteWithWarning(new File(parallelParquetPath));
+		}
+	}
+
+	@Test
+	public void testCanonicalFileCloseError() throws IOException, ParquetConversionException {
+		List<FieldMetadata> fields = new ArrayList<>();
+		fields.add(new FieldMetadata("id", "integer"));
+		fields.add(new FieldMetadata("name", "varchar(64)"));
+		StringBuilder csv = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			csv.append(i).append(",name").append(i).append('\n');
+		}
+		File csvFile = File.createTempFile("canonical", ".csv");
+		String parquetPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
+		//the page index cannot be written over a directory which is not empty, it fails the close of the writer
+		File indexDir = PageIndex.indexFile(parquetPath);
+		File blocker = new File(indexDir, "blocker");
+		try {
+			Files.write(csvFile.toPath(), csv.toString().getBytes(StandardCharsets.UTF_8));
+			Assert.assertTrue(indexDir.mkdir());
+			Assert.assertTrue(blocker.createNewFile());
+			for (int parallelism : new int[]{1, 3}) {
+				try {
+					ParquetConverter.canonicalToParquet(csvFile, fields, false, parquetPath, new HashMap<>(),
+							new ParquetWriteOptions().withPageIndex(true), parallelism);
+					Assert.fail("The error of the page index should fail the conversion");
+				} catch (ParquetConversionException e) {
+					Assert.assertEquals(ParquetConversionException.ErrorCode.IO_EXCEPTION, e.getErrorCode());
+				}
+			}
+		} finally {
+			Utils.deleteWithWarning(csvFile);
+			Utils.deleteWithWarning(blocker);
+			Utils.deleteWithWarning(indexDir);
+			Utils.deleteWithWarning(new File(parquetPath));
+		}
+	}
+
+	@Test
+	public void testParallelWriteFailure() throws IOException, ParquetConversionException {
+		List<FieldMetadata> fields = new ArrayList<>();
+		fields.add(new FieldMetadata("id", "integer"));
+		fields.add(new FieldMetadata("name", "varchar(64)"));
+		ParquetWriteOptions options = new ParquetWriteOptions().withParallelism(2).withRowGroupSize(300);
+
+		//the output fails while the batches are appended by write(), the stream is closed and the writer cannot be used
+		FailingOutputStream stream = new FailingOutputStream(100);
+		ParquetDataWriter writer = new ParquetDataWriter(fields, new StreamOutputFile(stream, true, 1), null, options);
+		try {
+			for (int i = 0; i < 10000; i++) {
+				writer.write(new String[]{String.valueOf(i), "name" + i});
+			}
+			Assert.fail("The output error should fail the write");
+		} catch (IOException e) {
+			Assert.assertEquals("Output failed", e.getMessage());
+		}
+		Assert.assertTrue(stream.closed);
+		try {
+			writer.close();
+			Assert.fail("The failed writer should not be closed as a complete file");
+		} catch (IOException e) {
+			//expected
+		}
+
+		//the output fails while the pending batches are appended by close()
+		stream = new FailingOutputStream(Long.MAX_VALUE);
+		writer = new ParquetDataWriter(fields, new StreamOutputFile(stream, true, 1), null, options);
+		for (int i = 0; i < 10000; i++) {
+			writer.write(new String[]{String.valueOf(i), "name" + i});
+		}
+		stream.limit = stream.written;
+		try {
+			writer.close();
+			Assert.fail("The output error should fail the close");
+		} catch (IOException e) {
+			Assert.assertEquals("Output failed", e.getMessage());
+		}
+		Assert.assertTrue(stream.closed);
+	}
+
+	/**
+	 * A stream which fails when more than limit bytes are written, and records that it is closed.
+	 */
+	private static class FailingOutputStream extends OutputStream {
+		private long limit;
+		private long written;
+		private boolean closed;
+
+		FailingOutputStream(long limit) {
+			this.limit = limit;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[]{(byte) b}, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (written + len > limit) {
+				throw new IOException("Output failed");
+			}
+			written += len;
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+	}
+
+	@Test
+	public void testWriteWithValueCache() throws IOException, ParquetConversionException {
+		List<FieldMetadata> fields = new ArrayList<>();
+		fields.add(new FieldMetadata("created", "date"));
+		fields.add(new FieldMetadata("updated", "timestamp"));
+		fields.add(new FieldMetadata("price", "number(10,2)"));
+		fields.add(new FieldMetadata("amount", "double"));
+		fields.add(new FieldMetadata("name", "varchar(64)"));
+		String[][] data = new String[20000][];
+		for (int i = 0; i < data.length; i++) {
+			//the first columns repeat a few values, including an invalid one and an empty one, the amounts do not repeat
+			data[i] = new String[]{i % 50 == 0 ? "2020-02-30" : "2020-01-" + (10 + i % 20), i % 40 == 0 ? "" : "2020-01-01 10:00:0" + (i % 10),
+					(i % 30) + ".25", String.valueOf(i * 1.5), "name" + (i % 10)};
+		}
+		String plainParquetPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
+		String cachedParquetPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
+		try {
+			ParquetDataWriter plain = new ParquetDataWriter(fields, plainParquetPath, new HashMap<>(), new ParquetWriteOptions());
+			try {
+				plain.write(data);
+			} finally {
+				plain.close();
+			}
+			Assert.assertTrue(plain.getValueCacheStatistics().isEmpty());
+
+			ParquetDataWriter cached = new ParquetDataWriter(fields, cachedParquetPath, new HashMap<>(), new ParquetWriteOptions().withValueCache(256));
+			try {
+				cached.write(data);
+			} finally {
+				cached.close();
+			}
+			Map<String, ValueCacheStatistic> statistics = cached.getValueCacheStatistics();
+			Assert.assertEquals(Arrays.asList("created", "updated", "price", "amount"), new ArrayList<>(statistics.keySet()));
+			for (String name : new String[]{"created", "updated", "price"}) {
+				Assert.assertTrue(statistics.get(name).toString(), statistics.get(name).isEnabled());
+				Assert.assertEquals(data.length, statistics.get(name).getLookups());
+				Assert.assertTrue(statistics.get(name).toString(), statistics.get(name).getHitRate() > 0.99);
+			}
+			//the cache of a column whose values do not repeat turns itself off after the first sample
+			Assert.assertFalse(statistics.get("amount").isEnabled());
+			Assert.assertEquals(0, statistics.get("amount").getHits());
+
+			ByteArrayOutputStream plainCsv = new ByteArrayOutputStream();
+			ByteArrayOutputStream cachedCsv = new ByteArrayOutputStream();
+			ParquetConverter.parquetToCanonical(plainParquetPath, plainCsv, -1);
+			ParquetConverter.parquetToCanonical(cachedParquetPath, cachedCsv, -1);
+			Assert.assertEquals(plainCsv.toString(ParquetAvroUtils.DEFAULT_ENCODING), cachedCsv.toString(ParquetAvroUtils.DEFAULT_ENCODING));
+			Assert.assertEquals(ParquetAvroUtils.getParquetKeyValueMetadata(plainParquetPath), ParquetAvroUtils.getParquetKeyValueMetadata(cachedParquetPath));
+		} finally {
+			Utils.deleteWithWarning(new File(plainParquetPath));
+			Utils.deleteWithWarning(new File(cachedParquetPath));
+		}
+	}
+
+	@Test
+	public void testWriteWithCompressionCodec() throws IOException, ParserConfigurationException, SAXException, ParquetConversionException, CsvValidationException {
+		String parquetPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
+		String csvPath = testinputDir + fs + "data_types_test_with_error.csv";
+		try {
+			Document typeOptions = ParquetTestUtil.readTypeoptionsFromFile(new File(testinputDir + fs + "data_types_test_type_options.xml"));
+			List<FieldMetadata> fields = FieldMetadata.getPublishedFields(typeOptions);
+
+			writeCsvFile(csvPath, fields, parquetPath, new ParquetWriteOptions());
+			Assert.assertEquals(CompressionCodecName.SNAPPY, getCompressionCodec(parquetPath));
+			ByteArrayOutputStream expectedCsv = new ByteArrayOutputStream();
+			ParquetConverter.parquetToCanonical(parquetPath, expectedCsv, -1);
+
+			long smallestSize = Long.MAX_VALUE;
+			for (CompressionCodecName codec : new CompressionCodecName[]{CompressionCodecName.UNCOMPRESSED, CompressionCodecName.SNAPPY, CompressionCodecName.GZIP}) {
+				writeCsvFile(csvPath, fields, parquetPath, new ParquetWriteOptions().withCompressionCodec(codec));
+				Assert.assertEquals(codec, getCompressionCodec(parquetPath));
+				smallestSize = Math.min(smallestSize, new File(parquetPath).length());
+			}
+
+			//the whole file fits in the sample, so the adaptive selection must produce the smallest file, LZ4 is skipped if the native library is not loaded
+			writeCsvFile(csvPath, fields, parquetPath, new ParquetWriteOptions().withAdaptiveCompression(ParquetWriteOptions.CompressionGoal.SMALLEST_FILE));
+			Assert.assertTrue(new File(parquetPath).length() <= smallestSize);
+			ByteArrayOutputStream actualCsv = new ByteArrayOutputStream();
+			ParquetConverter.parquetToCanonical(parquetPath, actualCsv, -1);
+			Assert.assertEquals(expectedCsv.toString(ParquetAvroUtils.DEFAULT_ENCODING), actualCsv.toString(ParquetAvroUtils.DEFAULT_ENCODING));
+
+			List<CompressionCodecName> candidates = Arrays.asList(CompressionCodecName.SNAPPY, CompressionCodecName.GZIP);
+			writeCsvFile(csvPath, fields, parquetPath, new ParquetWriteOptions().withParallelism(2)
+					.withAdaptiveCompression(ParquetWriteOptions.CompressionGoal.FASTEST_DECODE, candidates));
+			Assert.assertTrue(candidates.contains(getCompressionCodec(parquetPath)));
+			actualCsv = new ByteArrayOutputStream();
+			ParquetConverter.parquetToCanonical(parquetPath, actualCsv, -1);
+			Assert.assertEquals(expectedCsv.toString(ParquetAvroUtils.DEFAULT_ENCODING), actualCsv.toString(ParquetAvroUtils.DEFAULT_ENCODING));
+		} finally {
+			Utils.deleteWithWarning(new File(parquetPath));
+		}
+	}
+
+	@Test
+	public void testWriteWithAsyncWriter() throws IOException, ParserConfigurationException, SAXException, ParquetConversionException, CsvValidationException {
+		String syncParquetPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
+		String asyncParquetPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
+		try {
+			Document typeOptions = ParquetTestUtil.readTypeoptionsFromFile(new File(testinputDir + fs + "data_types_test_type_options.xml"));
+			List<FieldMetadata> fields = FieldMetadata.getPublishedFields(typeOptions);
+
+			writeCsvFile(testinputDir + fs + "data_types_test_with_error.csv", fields, syncParquetPath, new ParquetWriteOptions());
+			//a buffer smaller than the file makes the producer wait for the background thread
+			writeCsvFile(testinputDir + fs + "data_types_test_with_error.csv", fields, asyncParquetPath, new ParquetWriteOptions().withAsyncBufferSize(2));
+
+			ByteArrayOutputStream syncCsv = new ByteArrayOutputStream();
+			ByteArrayOutputStream asyncCsv = new ByteArrayOutputStream();
+			ParquetConverter.parquetToCanonical(syncParquetPath, syncCsv, -1);
+			ParquetConverter.parquetToCanonical(asyncParquetPath, asyncCsv, -1);
+			Assert.assertEquals(syncCsv.toString(ParquetAvroUtils.DEFAULT_ENCODING), asyncCsv.toString(ParquetAvroUtils.DEFAULT_ENCODING));
+			Assert.assertEquals(ParquetAvroUtils.getParquetKeyValueMetadata(syncParquetPath), ParquetAvroUtils.getParquetKeyValueMetadata(asyncParquetPath));
+		} finally {
+			Utils.deleteWithWarning(new File(syncParquetPath));
+			Utils.deleteWithWarning(new File(asyncParquetPath));
+		}
+	}
+
+	@Test
+	public void testAsyncWriterSurfacesError() throws IOException, ParquetConversionException {
+		List<FieldMetadata> fields = new ArrayList<>();
+		fields.add(new FieldMetadata("name", "varchar(64)"));
+		String parquetPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
+		try {
+			ParquetDataWriter pout = new ParquetDataWriter(fields, parquetPath, new HashMap<>(), new ParquetWriteOptions().withAsyncBufferSize(16));
+			pout.write(new String[]{"abc"});
+			//the Avro write support cannot encode an unpaired surrogate, the background thread fails on it
+			pout.write(new String[]{"x\ud800"});
+			try {
+				for (int i = 0; i < 1000; i++) {
+					pout.write(new String[]{"abc"});
+				}
+				pout.close();
+				Assert.fail("The error of the background thread should be thrown");
+			} catch (IOException e) {
+				Assert.assertNotNull(e.getCause());
+			}
+		} finally {
+			Utils.deleteWithWarning(new File(parquetPath));
+		}
+	}
+
+	@Test
+	public void testWriteWithNioBackend() throws IOException, ParserConfigurationException, SAXException, ParquetConversionException, CsvValidationException {
+		String hadoopParquetPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
+		String nioParquetPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
+		try {
+			Document typeOptions = ParquetTestUtil.readTypeoptionsFromFile(new File(testinputDir + fs + "data_types_test_type_options.xml"));
+			List<FieldMetadata> fields = FieldMetadata.getPublishedFields(typeOptions);
+
+			writeCsvFile(testinputDir + fs + "data_types_test_with_error.csv", fields, hadoopParquetPath, new ParquetWriteOptions());
+			//a tiny buffer makes most writes span a buffer flush
+			writeCsvFile(testinputDir + fs + "data_types_test_with_error.csv", fields, nioParquetPath,
+					new ParquetWriteOptions().withOutputBackend(ParquetWriteOptions.OutputBackend.NIO).withOutputBufferSize(7));
+
+			//a single row group is written without padding, so both backends produce the same bytes
+			Assert.assertTrue(Arrays.equals(Files.readAllBytes(new File(hadoopParquetPath).toPath()), Files.readAllBytes(new File(nioParquetPath).toPath())));
+			Assert.assertFalse(new File(tmpDir, "." + new File(nioParquetPath).getName() + ".crc").exists());
+
+			//an existing file is replaced
+			writeCsvFile(testinputDir + fs + "data_types_test_with_error.csv", fields, nioParquetPath,
+					new ParquetWriteOptions().withOutputBackend(ParquetWriteOptions.OutputBackend.NIO).withParallelism(2).withRowGroupSize(300));
+			ByteArrayOutputStream hadoopCsv = new ByteArrayOutputStream();
+			ByteArrayOutputStream nioCsv = new ByteArrayOutputStream();
+			ParquetConverter.parquetToCanonical(hadoopParquetPath, hadoopCsv, -1);
+			ParquetConverter.parquetToCanonical(nioParquetPath, nioCsv, -1);
+			Assert.assertEquals(hadoopCsv.toString(ParquetAvroUtils.DEFAULT_ENCODING), nioCsv.toString(ParquetAvroUtils.DEFAULT_ENCODING));
+		} finally {
+			Utils.deleteWithWarning(new File(hadoopParquetPath));
+			Utils.deleteWithWarning(new File(nioParquetPath));
+		}
+	}
+
+	@Test
+	public void testWriteToStreamAndBuffer() throws IOException, ParserConfigurationException, SAXException, ParquetConversionException, CsvValidationException {
+		String csvPath = testinputDir + fs + "data_types_test_with_error.csv";
+		String parquetPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
+		try {
+			Document typeOptions = ParquetTestUtil.readTypeoptionsFromFile(new File(testinputDir + fs + "data_types_test_type_options.xml"));
+			List<FieldMetadata> fields = FieldMetadata.getPublishedFields(typeOptions);
+			writeCsvFile(csvPath, fields, parquetPath, new ParquetWriteOptions());
+			byte[] fileBytes = Files.readAllBytes(new File(parquetPath).toPath());
+
+			final boolean[] streamClosed = {false};
+			ByteArrayOutputStream stream = new ByteArrayOutputStream() {
+				@Override
+				public void close() {
+					streamClosed[0] = true;
+				}
+			};
+			writeCsvFile(csvPath, new ParquetDataWriter(fields, stream, new HashMap<>(), new ParquetWriteOptions()));
+			Assert.assertTrue(Arrays.equals(fileBytes, stream.toByteArray()));
+			Assert.assertFalse(streamClosed[0]);
+
+			//a tiny initial capacity makes the off-heap buffer grow several times
+			BufferOutputFile buffer = new BufferOutputFile(16, true);
+			writeCsvFile(csvPath, new ParquetDataWriter(fields, buffer, new HashMap<>(), new ParquetWriteOptions()));
+			Assert.assertEquals(fileBytes.length, buffer.size());
+			Assert.assertTrue(Arrays.equals(fileBytes, buffer.toByteArray()));
+			Assert.assertEquals(fileBytes.length, buffer.getByteBuffer().remaining());
+
+			ByteArrayOutputStream converted = new ByteArrayOutputStream();
+			try (FileInputStream in = new FileInputStream(csvPath)) {
+				ParquetConverter.canonicalToParquet(in, fields, false, converted, new HashMap<>());
+			}
+			Assert.assertTrue(Arrays.equals(fileBytes, converted.toByteArray()));
+		} finally {
+			Utils.deleteWithWarning(new File(parquetPath));
+		}
+	}
+
+	@Test
+	public void testTypedRowApi() throws IOException, ParquetConversionException {
+		List<FieldMetadata> fields = new ArrayList<>();
+		fields.add(new FieldMetadata("i", "integer"));
+		fields.add(new FieldMetadata("d", "double"));
+		fields.add(new FieldMetadata("n", "number(10,2)"));
+		fields.add(new FieldMetadata("dt", "date"));
+		fields.add(new FieldMetadata("ts", "timestamp"));
+		fields.add(new FieldMetadata("t", "time"));
+		fields.add(new FieldMetadata("s", "varchar(64)"));
+		String[][] canonicalRows = {
+				{"42", "1.5", "-123.45", "2001-02-03", "2007-05-04 08:02:11.566", "09:04:11.8", "hello"},
+				{"abc", null, "99999999.99", null, null, null, null},
+				{null, null, null, null, null, null, null}
+		};
+
+		String stringParquetPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
+		String typedParquetPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
+		try {
+			ParquetDataWriter stringWriter = new ParquetDataWriter(fields, stringParquetPath);
+			try {
+				stringWriter.write(canonicalRows);
+			} finally {
+				stringWriter.close();
+			}
+
+			for (ParquetWriteOptions.WriteEngine engine : ParquetWriteOptions.WriteEngine.values()) {
+				ParquetDataWriter typedWriter = new ParquetDataWriter(fields, typedParquetPath, new HashMap<>(), new ParquetWriteOptions().withWriteEngine(engine));
+				try {
+					typedWriter.setInt(0, 42);
+					typedWriter.setDouble(1, 1.5);
+					typedWriter.setDecimalUnscaled(2, -12345);
+					typedWriter.setDate(3, Days.daysBetween(new LocalDate(1970, 1, 1), new LocalDate(2001, 2, 3)).getDays());
+					typedWriter.setTimestampMillis(4, ParquetAvroUtils.timestampFormatter.parseDateTime("2007-05-04 08:02:11.566").getMillis());
+					typedWriter.setTimestampMillis(5, ParquetAvroUtils.timestampFormatter.parseDateTime("1970-01-01 09:04:11.800").getMillis());
+					typedWriter.setString(6, "hello");
+					typedWriter.endRow();
+
+					//a canonical value which cannot be converted is recorded as a row error, the same as by write()
+					typedWriter.setString(0, "abc");
+					typedWriter.setDecimalUnscaled(2, 9999999999L);
+					typedWriter.endRow();
+
+					try {
+						typedWriter.setDouble(0, 1.0);
+						Assert.fail("An integer column cannot be set by setDouble");
+					} catch (IllegalArgumentException e) {
+						//expected
+					}
+					typedWriter.setNull(0);
+					typedWriter.endRow();
+				} finally {
+					typedWriter.close();
+				}
+
+				ByteArrayOutputStream stringCsv = new ByteArrayOutputStream();
+				ByteArrayOutputStream typedCsv = new ByteArrayOutputStream();
+				ParquetConverter.parquetToCanonical(stringParquetPath, stringCsv, -1);
+				ParquetConverter.parquetToCanonical(typedParquetPath, typedCsv, -1);
+				Assert.assertEquals(stringCsv.toString(ParquetAvroUtils.DEFAULT_ENCODING), typedCsv.toString(ParquetAvroUtils.DEFAULT_ENCODING));
+				Assert.assertEquals(ParquetAvroUtils.getParquetKeyValueMetadata(stringParquetPath), ParquetAvroUtils.getParquetKeyValueMetadata(typedParquetPath));
+			}
+		} finally {
+			Utils.deleteWithWarning(new File(stringParquetPath));
+			Utils.deleteWithWarning(new File(typedParquetPath));
+		}
+	}
+
+	@Test
+	public void testDirectEngineStringEncoding() throws IOException, ParquetConversionException {
+		List<FieldMetadata> fields = new ArrayList<>();
+		fields.add(new FieldMetadata("name", "varchar(64)"));
+		String[] values = {"abc", "caf\u00e9", "\u4e2d\u6587", "\ud83d\ude00 smile", "\ud800x", "x\udc00", "\ud83d"};
+		String parquetPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
+		try {
+			ParquetDataWriter pout = new ParquetDataWriter(fields, parquetPath, new HashMap<>(),
+					new ParquetWriteOptions().withWriteEngine(ParquetWriteOptions.WriteEngine.DIRECT));
+			try {
+				for (String value : values) {
+					pout.write(new String[]{value});
+				}
+			} finally {
+				pout.close();
+			}
+
+			//strings are encoded the same as String.getBytes, which replaces unpaired surrogates by '?'
+			Object[][] rows = readParquetDataValue(parquetPath);
+			Assert.assertEquals(values.length, rows.length);
+			for (int i = 0; i < values.length; i++) {
+				String expected = new String(values[i].getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+				Assert.assertEquals(expected, rows[i][0].toString());
+			}
+		} finally {
+			Utils.deleteWithWarning(new File(parquetPath));
+		}
+	}
+
+	@Test
+	public void testSteadyStateWriteAllocation() throws IOException, ParquetConversionException {
+		java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean
+				&& ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported());
+		com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+
+		List<FieldMetadata> fields = new ArrayList<>();
+		fields.add(new FieldMetadata("id", "integer"));
+		fields.add(new FieldMetadata("name", "varchar(64)"));
+		fields.add(new FieldMetadata("count", "integer"));
+		fields.add(new FieldMetadata("comment", "varchar(64)"));
+		String[][] data = new String[1000][];
+		for (int i = 0; i < data.length; i++) {
+			//padded and blank values exercise trimming, null and empty values exercise the null handling
+			data[i] = new String[]{String.valueOf(i), "name" + (i % 100), " " + (i % 7) + " ", i % 10 == 0 ? null : (i % 10 == 1 ? "" : "comment")};
+		}
+
+		String parquetPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
+		ParquetDataWriter pout = new ParquetDataWriter(fields, parquetPath, new HashMap<>(),
+				new ParquetWriteOptions().withWriteEngine(ParquetWriteOptions.WriteEngine.DIRECT));
+		try {
+			int warmupRounds = 200;
+			int measuredRounds = 200;
+			for (int round = 0; round < warmupRounds; round++) {
+				pout.write(data);
+			}
+			long threadId = Thread.currentThread().getId();
+			long allocatedBefore = allocationBean.getThreadAllocatedBytes(threadId);
+			for (int round = 0; round < measuredRounds; round++) {
+				pout.write(data);
+			}
+			long allocatedPerRow = (allocationBean.getThreadAllocatedBytes(threadId) - allocatedBefore) / ((long) measuredRounds * data.length);
+			//the remaining allocations are made inside parquet, such as the Binary values and the ByteBuffers its statistics
+			//compare, a per row record, error map or field name string would exceed the limit
+			Assert.assertTrue("Allocated " + allocatedPerRow + " bytes per row", allocatedPerRow < 512);
+		} finally {
+			pout.close();
+			Utils.deleteWithWarning(new File(parquetPath));
+		}
+	}
+
+	private CompressionCodecName getCompressionCodec(String parquetPath) throws IOException {
+		ParquetMetadata footer = ParquetFileReader.readFooter(new Configuration(), new Path(parquetPath), ParquetMetadataConverter.NO_FILTER);
+		return footer.getBlocks().get(0).getColumns().get(0).getCodec();
+	}
+
+	private void writeCsvFile(String csvPath, List<FieldMetadata> fields, String parquetPath, ParquetWriteOptions options) throws IOException, ParquetConversionException, CsvValidationException {
+		writeCsvFile(csvPath, new ParquetDataWriter(fields, parquetPath, new HashMap<>(), options));
+	}
+
+	private void writeCsvFile(String csvPath, ParquetDataWriter pout) throws IOException, ParquetConversionException, CsvValidationException {
+		CSVReader reader = new CSVReaderBuilder(new InputStreamReader(new FileInputStream(csvPath), ParquetAvroUtils.DEFAULT_ENCODING))
+				.withCSVParser(new CSVParserBuilder().withEscapeChar(ParquetAvroUtils.ESCAPE_CHARACTER).build()).build();
+		try {
+			String[] line;
+			while((line = reader.readNext()) != null) {
+				pout.write(line);
+			}
+		} finally {
+			reader.close();
+			pout.close();
+		}
+	}
+
 	private Object[][] readParquetDataValue(String parquetFilePath) throws IOException{
 		ParquetReader<GenericData.Record> reader = null;
 		try {
@@ -0,0 +1,126 @@
+package com.fishblack.fastparquet;
+
+import com.fishblack.fastparquet.common.FieldMetadata;
+import com.fishblack.fastparquet.common.ParquetConversionException;
+import com.fishblack.fastparquet.reader.ColumnVector;
+import com.fishblack.fastparquet.reader.ParquetMultiColumnReader;
+import com.fishblack.fastparquet.reader.ParquetMultiColumnReaderImpl;
+import com.fishblack.fastparquet.utils.Utils;
+import com.fishblack.fastparquet.writer.ParquetDataWriter;
+import com.fishblack.fastparquet.writer.ParquetWriteOptions;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+public class ParquetMultiColumnReaderTest {
+
+    private static String parquetFile;
+    private static String parquetFileWithNulls;
+    private static final String fs = File.separator;
+
+    @Before
+    public void setUp() throws Exception {
+        String testDataDir = ConfigUtils.getInstance().getResourceDir() + fs + "testdata" + fs + "parquet";
+        parquetFile = testDataDir + fs + "all_types_dataset.parquet";
+        parquetFileWithNulls = testDataDir + fs + "all_types_dataset_with_nulls.parquet";
+    }
+
+    @Test
+    public void testReadRows() throws IOException {
+        // the columns are read in the order of the names, not of the file
+        List<String> columnNames = Arrays.asList("f7", "f0", "f2", "f1", "f6", "f5", "f4");
+        for (String file : new String[] { parquetFile, parquetFileWithNulls }) {
+            List<List<Object>> expected = new ArrayList<>();
+            for (String columnName : columnNames) {
+                expected.add(ParquetColumnReaderTest.readColumnDataToList(file, columnName));
+            }
+            try (ParquetMultiColumnReader reader = new ParquetMultiColumnReaderImpl(file, columnNames)) {
+                Assert.assertEquals(columnNames, reader.getColumnNames());
+                int row = 0;
+                while (reader.hasNext()) {
+                    Object[] values = reader.next();
+                    for (int i = 0; i < columnNames.size(); i++) {
+                        Assert.assertEquals(expected.get(i).get(row), values[i]);
+                    }
+                    row++;
+                }
+                Assert.assertEquals(expected.get(0).size(), row);
+            }
+        }
+    }
+
+    @Test(expected = EOFException.class)
+    public void testEndOfFile() throws IOException {
+        try (ParquetMultiColumnReader reader = new ParquetMultiColumnReaderImpl(parquetFile, Arrays.asList("f0", "f1"))) {
+            // test file only has three rows
+            for (int i = 0; i < 4; i++) {
+                reader.next();
+            }
+        }
+    }
+
+    @Test
+    public void testReadBatchAcrossRowGroups() throws IOException, ParquetConversionException {
+        List<FieldMetadata> fields = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            fields.add(new FieldMetadata("c" + i, i % 2 == 0 ? "integer" : "varchar(100)"));
+        }
+        String parquetPath = System.getProperty("java.io.tmpdir") + fs + UUID.randomUUID().toString() + ".parquet";
+        int rows = 5000;
+        // a tiny row group size makes many row groups, the batches span them
+        try (ParquetDataWriter writer = new ParquetDataWriter(fields, parquetPath, null, new ParquetWriteOptions().withRowGroupSize(1024))) {
+            for (int i = 0; i < rows; i++) {
+                String[] row = new String[fields.size()];
+                for (int c = 0; c < row.length; c++) {
+                    row[c] = (i + c) % 9 == 0 ? null : c % 2 == 0 ? String.valueOf(i * c) : "value " + i + " " + c;
+                }
+                writer.write(row);
+            }
+        }
+        try {
+            List<String> columnNames = Arrays.asList("f4", "f1", "f5");
+            List<List<Object>> expected = new ArrayList<>();
+            for (String columnName : columnNames) {
+                expected.add(ParquetColumnReaderTest.readColumnDataToList(parquetPath, columnName));
+            }
+            try (ParquetMultiColumnReader reader = new ParquetMultiColumnReaderImpl(parquetPath, columnNames)) {
+                ColumnVector[] vectors = { new ColumnVector(), new ColumnVector(1), new ColumnVector() };
+                int row = 0;
+                int read;
+                while ((read = reader.readBatch(vectors, 333)) > 0) {
+                    for (int i = 0; i < read; i++, row++) {
+                        Assert.assertEquals(expected.get(0).get(row), vectors[0].isNull(i) ? null : vectors[0].getInt(i));
+                        Assert.assertEquals(expected.get(1).get(row), vectors[1].getString(i));
+                        Assert.assertEquals(expected.get(2).get(row), vectors[2].getString(i));
+                    }
+                }
+                Assert.assertEquals(rows, row);
+                Assert.assertFalse(reader.hasNext());
+            }
+        } finally {
+            Utils.deleteWithWarning(new File(parquetPath));
+        }
+    }
+
+    @Test
+    public void testInvalidColumns() throws IOException {
+        List<List<String>> invalidColumns = Arrays.asList(Collections.<String>emptyList(), Arrays.asList("f0", "f999999"), Arrays.asList("f0", "f1", "f0"));
+        for (List<String> columnNames : invalidColumns) {
+            try (ParquetMultiColumnReader reader = new ParquetMultiColumnReaderImpl(parquetFile, columnNames)) {
+                Assert.fail("Columns " + columnNames + " should not be read");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+}
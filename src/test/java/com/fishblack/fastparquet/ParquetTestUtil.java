@@ -1,6 +1,7 @@
 package com.fishblack.fastparquet;
 
 import com.fishblack.fastparquet.utils.ParquetAvroUtils;
+import com.fishblack.fastparquet.utils.ParquetConverter;
 import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
@@ -8,10 +9,14 @@ import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class ParquetTestUtil {
 	
@@ -44,4 +49,14 @@ public class ParquetTestUtil {
 		return sb.toString().trim();
 	}
 
+	/**
+	 * Returns the canonical CSV lines of a parquet file.
+	 */
+	public static List<String> readCanonical(String parquetPath) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ParquetConverter.parquetToCanonical(parquetPath, out, -1);
+		String csv = out.toString(ParquetAvroUtils.DEFAULT_ENCODING);
+		return csv.isEmpty() ? new ArrayList<>() : Arrays.asList(csv.split(ParquetAvroUtils.LINE_SEPARATOR));
+	}
+
 }
@@ -0,0 +1,127 @@
+package com.fishblack.fastparquet;
+
+import com.fishblack.fastparquet.common.ConvertResult;
+import com.fishblack.fastparquet.common.FieldMetadata;
+import com.fishblack.fastparquet.common.ParquetConversionException;
+import com.fishblack.fastparquet.utils.ParquetAvroUtils;
+import com.fishblack.fastparquet.utils.ParquetConverter;
+import com.fishblack.fastparquet.utils.Utils;
+import com.fishblack.fastparquet.writer.ParquetDataWriter;
+import com.fishblack.fastparquet.writer.ParquetWriteOptions;
+import com.fishblack.fastparquet.writer.RollingParquetDataWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.fishblack.fastparquet.common.FastParquetConstants.PART_INDEX_KEY;
+import static com.fishblack.fastparquet.common.FastParquetConstants.PART_ROW_OFFSET_KEY;
+
+public class RollingParquetDataWriterTest {
+
+    private static final String fs = File.separator;
+    private static final String tmpDir = System.getProperty("java.io.tmpdir");
+    private static final int ROWS = 1000;
+
+    @Test
+    public void testRollByRowCount() throws IOException, ParquetConversionException {
+        String directory = tmpDir + fs + UUID.randomUUID().toString();
+        String parquetPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
+        try {
+            List<FieldMetadata> fields = getFields();
+            Map<String, String> keyValueMetadata = new HashMap<>();
+            keyValueMetadata.put("source", "test");
+            RollingParquetDataWriter rollingWriter = new RollingParquetDataWriter(fields, directory, keyValueMetadata,
+                    new ParquetWriteOptions().withParallelism(2), 300, 0);
+            ParquetDataWriter writer = new ParquetDataWriter(fields, parquetPath, new HashMap<>());
+            try {
+                for (String[] row : getRows()) {
+                    rollingWriter.write(row);
+                    writer.write(row);
+                }
+            } finally {
+                rollingWriter.close();
+                writer.close();
+            }
+
+            List<String> partPaths = rollingWriter.getPartPaths();
+            Assert.assertEquals(4, partPaths.size());
+            StringBuilder partsCsv = new StringBuilder();
+            for (int i = 0; i < partPaths.size(); i++) {
+                Map<String, String> metadata = ParquetAvroUtils.getParquetKeyValueMetadata(partPaths.get(i));
+                Assert.assertEquals(String.valueOf(i), metadata.get(PART_INDEX_KEY));
+                Assert.assertEquals(String.valueOf(i * 300), metadata.get(PART_ROW_OFFSET_KEY));
+                Assert.assertEquals("test", metadata.get("source"));
+                partsCsv.append(toCsv(partPaths.get(i)));
+            }
+            Assert.assertEquals(toCsv(parquetPath), partsCsv.toString());
+
+            //the combined result counts the rows of all parts like a single file
+            ConvertResult expected = Utils.objectMapper.readValue(ParquetAvroUtils.getParquetKeyValueMetadata(parquetPath)
+                    .get(ConvertResult.AUDIT_DETAIL_MESSAGE_KEY), ConvertResult.class);
+            ConvertResult result = rollingWriter.getConvertResult();
+            Assert.assertEquals(ConvertResult.Result.PARTIAL_SUCCESS, result.getResult());
+            Assert.assertEquals(ROWS, result.getTotalCount());
+            Assert.assertEquals(expected.getFailureCount(), result.getFailureCount());
+            Assert.assertEquals(expected.getSuccessCount(), result.getSuccessCount());
+            Assert.assertEquals(expected.getErrors(), result.getErrors());
+            Assert.assertEquals(expected.getFailureCount(), rollingWriter.getErrorStatistics().getFailureCount());
+        } finally {
+            Utils.deleteDirectory(new File(directory));
+            Utils.deleteWithWarning(new File(parquetPath));
+        }
+    }
+
+    @Test
+    public void testRollBySize() throws IOException, ParquetConversionException {
+        String directory = tmpDir + fs + UUID.randomUUID().toString();
+        try {
+            RollingParquetDataWriter rollingWriter = new RollingParquetDataWriter(getFields(), directory, null,
+                    new ParquetWriteOptions().withAsyncBufferSize(64), 0, 4096);
+            try {
+                rollingWriter.write(getRows());
+            } finally {
+                rollingWriter.close();
+            }
+
+            Assert.assertTrue(rollingWriter.getPartPaths().size() > 1);
+            long rows = 0;
+            for (String partPath : rollingWriter.getPartPaths()) {
+                rows += ParquetConverter.parquetToCanonical(partPath, new ByteArrayOutputStream(), -1);
+            }
+            Assert.assertEquals(ROWS, rows);
+            Assert.assertEquals(ROWS, rollingWriter.getConvertResult().getTotalCount());
+        } finally {
+            Utils.deleteDirectory(new File(directory));
+        }
+    }
+
+    private static List<FieldMetadata> getFields() {
+        List<FieldMetadata> fields = new ArrayList<>();
+        fields.add(new FieldMetadata("id", "integer"));
+        fields.add(new FieldMetadata("name", "varchar(64)"));
+        return fields;
+    }
+
+    private static String[][] getRows() {
+        String[][] rows = new String[ROWS][];
+        for (int i = 0; i < ROWS; i++) {
+            //every 97th row has an invalid integer
+            rows[i] = new String[]{i % 97 == 5 ? "x" + i : String.valueOf(i), "name " + i};
+        }
+        return rows;
+    }
+
+    private static String toCsv(String parquetPath) throws IOException {
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        ParquetConverter.parquetToCanonical(parquetPath, csv, -1);
+        return csv.toString(ParquetAvroUtils.DEFAULT_ENCODING);
+    }
+}
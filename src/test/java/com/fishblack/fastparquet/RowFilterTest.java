@@ -0,0 +1,157 @@
+package com.fishblack.fastparquet;
+
+import com.fishblack.fastparquet.common.FieldMetadata;
+import com.fishblack.fastparquet.common.ParquetConversionException;
+import com.fishblack.fastparquet.reader.ParquetColumnReader;
+import com.fishblack.fastparquet.reader.ParquetColumnReaderImpl;
+import com.fishblack.fastparquet.reader.ParquetDataReader;
+import com.fishblack.fastparquet.reader.ParquetMultiColumnReader;
+import com.fishblack.fastparquet.reader.ParquetMultiColumnReaderImpl;
+import com.fishblack.fastparquet.reader.ParquetReadOptions;
+import com.fishblack.fastparquet.reader.RowFilter;
+import com.fishblack.fastparquet.utils.ParquetAvroUtils;
+import com.fishblack.fastparquet.utils.Utils;
+import com.fishblack.fastparquet.writer.ParquetDataWriter;
+import com.fishblack.fastparquet.writer.ParquetWriteOptions;
+import junit.framework.Assert;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+public class RowFilterTest {
+
+	private static final String fs = File.separator;
+	private static final String tmpDir = System.getProperty("java.io.tmpdir");
+	private static final int ROWS = 3000;
+	private static final long DAY_MILLIS = 86400000L;
+	private static final List<FieldMetadata> fields = new ArrayList<>();
+	private static String parquetPath;
+
+	@BeforeClass
+	public static void setUp() throws IOException, ParquetConversionException {
+		fields.add(new FieldMetadata("id", "integer"));
+		fields.add(new FieldMetadata("day", "date"));
+		fields.add(new FieldMetadata("name", "varchar(20)"));
+		fields.add(new FieldMetadata("price", "number(10,2)"));
+		fields.add(new FieldMetadata("score", "double"));
+		fields.add(new FieldMetadata("created", "timestamp"));
+		parquetPath = tmpDir + fs + UUID.randomUUID().toString() + ".parquet";
+		//a tiny row group size makes many row groups, the rows are sorted by id, day and created
+		try (ParquetDataWriter writer = new ParquetDataWriter(fields, parquetPath, null, new ParquetWriteOptions().withRowGroupSize(1024))) {
+			for (int i = 0; i < ROWS; i++) {
+				writer.write(new String[] {
+						String.valueOf(i),
+						ParquetAvroUtils.dateFormatter.print(i / 10 * DAY_MILLIS),
+						i % 13 == 0 ? null : "name" + i % 100,
+						String.valueOf(i - 1000) + ".25",
+						String.valueOf(i % 7 * 0.5),
+						ParquetAvroUtils.timestampFormatter.print(i * 1000L)
+				});
+			}
+		}
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		Utils.deleteWithWarning(new File(parquetPath));
+	}
+
+	@Test
+	public void testFilterRows() throws IOException {
+		//days 10 to 19 are the rows 100 to 199
+		List<String[]> rows = read(RowFilter.between("day", "1970-01-11", "1970-01-20"));
+		Assert.assertEquals(100, rows.size());
+		Assert.assertEquals("100", rows.get(0)[0]);
+		Assert.assertEquals("199", rows.get(99)[0]);
+
+		Assert.assertEquals(1, read(RowFilter.eq("id", "2500")).size());
+		Assert.assertEquals(3, read(RowFilter.in("id", "5", "1500", "2999", "3000")).size());
+		Assert.assertEquals((ROWS + 12) / 13, read(RowFilter.isNull("name")).size());
+		//the ids 42 + 100 * k, except the two multiples of 13
+		Assert.assertEquals(28, read(RowFilter.eq("name", "name42")).size());
+		//the prices -10.25 to -1.25
+		Assert.assertEquals(10, read(RowFilter.between("price", "-10.25", "0")).size());
+		Assert.assertEquals(ROWS / 7 + 1, read(RowFilter.eq("score", "0")).size());
+		Assert.assertEquals(61, read(RowFilter.between("created", "1970-01-01 00:10:00", "1970-01-01 00:11:00")).size());
+		Assert.assertEquals(2990, read(RowFilter.between("id", "10", null)).size());
+
+		//the conditions are combined
+		Assert.assertEquals(1, read(RowFilter.and(RowFilter.between("id", null, "99"), RowFilter.eq("name", "name42"),
+				RowFilter.or(RowFilter.eq("score", "0"), RowFilter.isNull("name")))).size());
+		Assert.assertEquals(20, read(RowFilter.or(RowFilter.between("id", null, "9"), RowFilter.between("id", "2990", null))).size());
+	}
+
+	@Test
+	public void testSkipRowGroups() throws IOException {
+		long totalRows = countColumnRows(null);
+		Assert.assertEquals(ROWS, totalRows);
+
+		//only the row groups of the range are read, their rows are not filtered by the column readers
+		long rowGroupRows = countColumnRows(RowFilter.between("day", "1970-01-11", "1970-01-20"));
+		Assert.assertTrue(rowGroupRows >= 100);
+		Assert.assertTrue("Read " + rowGroupRows + " rows", rowGroupRows < totalRows / 5);
+
+		//the values are never in the statistics of a row group
+		Assert.assertEquals(0, countColumnRows(RowFilter.eq("id", "-1")));
+		Assert.assertEquals(0, countColumnRows(RowFilter.between("day", "2000-01-01", null)));
+
+		try (ParquetMultiColumnReader reader = new ParquetMultiColumnReaderImpl(parquetPath, Arrays.asList("f0", "f2"), fields, RowFilter.eq("id", "1234"))) {
+			boolean found = false;
+			long rows = 0;
+			while (reader.hasNext()) {
+				found |= Integer.valueOf(1234).equals(reader.next()[0]);
+				rows++;
+			}
+			Assert.assertTrue(found);
+			Assert.assertTrue(rows < totalRows / 5);
+		}
+	}
+
+	@Test
+	public void testInvalidFilter() throws IOException {
+		List<RowFilter> filters = Arrays.asList(RowFilter.eq("missing", "1"), RowFilter.eq("id", "abc"), RowFilter.between("day", "", "1970-01-01"));
+		for (RowFilter filter : filters) {
+			try {
+				new ParquetDataReader(parquetPath, fields, filter).close();
+				Assert.fail("Filter " + filter + " should be invalid");
+			} catch (IllegalArgumentException e) {
+				//expected
+			}
+		}
+	}
+
+	private static List<String[]> read(RowFilter filter) throws IOException {
+		List<String[]> rows;
+		try (ParquetDataReader reader = new ParquetDataReader(parquetPath, fields, filter)) {
+			rows = Arrays.asList(reader.next(ROWS));
+		}
+		//the parallel reader returns the same rows
+		try (ParquetDataReader reader = new ParquetDataReader(parquetPath, fields, filter, new ParquetReadOptions().withParallelism(3))) {
+			String[][] parallelRows = reader.next(ROWS);
+			Assert.assertEquals(rows.size(), parallelRows.length);
+			for (int i = 0; i < parallelRows.length; i++) {
+				Assert.assertEquals(Arrays.toString(rows.get(i)), Arrays.toString(parallelRows[i]));
+			}
+		}
+		return rows;
+	}
+
+	private static long countColumnRows(RowFilter filter) throws IOException {
+		try (ParquetColumnReader reader = filter == null ? new ParquetColumnReaderImpl(parquetPath, "f0")
+				: new ParquetColumnReaderImpl(parquetPath, "f0", fields, filter)) {
+			long rows = 0;
+			while (reader.hasNext()) {
+				reader.next();
+				rows++;
+			}
+			return rows;
+		}
+	}
+}